@@ -0,0 +1,258 @@
+package benchmarks;
+
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+import game.Game;
+import metrics.FramePhase;
+import metrics.FrameProfiler;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs whole game loop scenarios headless for a fixed number of ticks and reports their throughput.
+ * Results are printed as CSV, and compared against a stored baseline when one is given.
+ * Usage: FrameThroughputHarness [--ticks N] [--warmup N] [--out results.csv] [--baseline baseline.csv]
+ * [--tolerance percent]
+ */
+public class FrameThroughputHarness {
+    private static final String HEADER =
+            "scenario,balls,rows,cols,width,height,ticks,ticksPerSec,nsPerBallStep,allocBytesPerTick";
+
+    // Scenarios scale one axis at a time from the production game, then all together
+    private static final Scenario[] SCENARIOS = {
+            new Scenario("default", 35, 6, 12, 800, 600),
+            new Scenario("balls-350", 350, 6, 12, 800, 600),
+            new Scenario("balls-3500", 3500, 6, 12, 800, 600),
+            new Scenario("blocks-24x48", 35, 24, 48, 800, 600),
+            new Scenario("blocks-96x192", 35, 96, 192, 800, 600),
+            new Scenario("arena-1920x1080", 35, 6, 12, 1920, 1080),
+            new Scenario("arena-3840x2160", 35, 6, 12, 3840, 2160),
+            new Scenario("combined", 350, 24, 48, 1920, 1080),
+    };
+
+    /**
+     * Describes a game configuration.
+     * @param name scenario name
+     * @param balls number of balls
+     * @param rows number of block rows
+     * @param cols number of blocks in top row
+     * @param width arena width
+     * @param height arena height
+     */
+    private record Scenario(String name, int balls, int rows, int cols, int width, int height) {
+    }
+
+    /**
+     * Keyboard sensor with no pressed keys.
+     */
+    private static class IdleKeyboard implements KeyboardSensor {
+        @Override
+        public boolean isPressed(String key) {
+            return false;
+        }
+    }
+
+    /**
+     * Draw surface that discards all drawing, so only game-side drawing cost is measured.
+     */
+    private static class NullDrawSurface implements DrawSurface {
+        private final int width;
+        private final int height;
+
+        /**
+         * Constructs a null draw surface.
+         * @param width surface width
+         * @param height surface height
+         */
+        NullDrawSurface(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override public void setColor(Color color) { }
+        @Override public void drawLine(int x1, int y1, int x2, int y2) { }
+        @Override public void fillRectangle(int x, int y, int width, int height) { }
+        @Override public void drawRectangle(int x, int y, int width, int height) { }
+        @Override public void fillOval(int x, int y, int width, int height) { }
+        @Override public void drawOval(int x, int y, int width, int height) { }
+        @Override public void fillCircle(int x, int y, int r) { }
+        @Override public void drawCircle(int x, int y, int r) { }
+        @Override public void fillPolygon(Polygon p) { }
+        @Override public void drawPolygon(Polygon p) { }
+        @Override public void drawText(int x, int y, String s, int fontSize) { }
+        @Override public void drawImage(int x, int y, Image image) { }
+        @Override public int getWidth() {
+            return this.width;
+        }
+        @Override public int getHeight() {
+            return this.height;
+        }
+    }
+
+    /**
+     * Result of a single scenario run.
+     * @param scenario measured scenario
+     * @param ticks number of ticks played
+     * @param ticksPerSec ticks per second
+     * @param nsPerBallStep nanoseconds per single ball step
+     * @param allocBytesPerTick bytes allocated per tick
+     */
+    private record Result(Scenario scenario, int ticks, double ticksPerSec, double nsPerBallStep,
+                          double allocBytesPerTick) {
+        /**
+         *
+         * @return CSV line of result
+         */
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%.1f,%.1f,%.1f", scenario.name(),
+                    scenario.balls(), scenario.rows(), scenario.cols(), scenario.width(), scenario.height(),
+                    ticks, ticksPerSec, nsPerBallStep, allocBytesPerTick);
+        }
+    }
+
+    /**
+     * Creates and starts a game of given scenario.
+     * @param s scenario
+     * @return started game
+     */
+    private static Game createGame(Scenario s) {
+        Game game = new Game(s.width(), s.height(), s.balls());
+        game.initialize(s.rows(), s.cols());
+        game.start(new IdleKeyboard());
+        return game;
+    }
+
+    /**
+     * Plays given number of ticks, drawing each frame on given surface.
+     * @param game started game
+     * @param surface draw surface
+     * @param ticks number of ticks to play
+     * @return total number of ball steps played
+     */
+    private static long play(Game game, DrawSurface surface, int ticks) {
+        FrameProfiler profiler = game.getFrameProfiler();
+        long ballSteps = 0;
+        for (int i = 0; i < ticks; i++) {
+            ballSteps += game.getRemainingBalls();
+            profiler.startFrame();
+            game.tick();
+            game.drawOn(surface);
+            profiler.mark(FramePhase.DRAW);
+            profiler.endFrame();
+        }
+        return ballSteps;
+    }
+
+    /**
+     * Runs a scenario, after warming it up on a separate game.
+     * @param s scenario
+     * @param ticks measured ticks
+     * @param warmup warmup ticks
+     * @return scenario result
+     */
+    private static Result run(Scenario s, int ticks, int warmup) {
+        DrawSurface surface = new NullDrawSurface(s.width(), s.height());
+        play(createGame(s), surface, warmup);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Game game = createGame(s);
+        System.gc();
+        long allocStart = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long ballSteps = play(game, surface, ticks);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocStart;
+
+        return new Result(s, ticks, ticks / (elapsed / 1e9),
+                ballSteps == 0 ? 0 : (double) elapsed / ballSteps, (double) allocated / ticks);
+    }
+
+    /**
+     * Reads a baseline CSV file.
+     * @param path baseline path
+     * @return baseline ns per ball step by scenario name
+     * @throws IOException if file couldn't be read
+     */
+    private static Map<String, Double> readBaseline(Path path) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        List<String> lines = Files.readAllLines(path);
+        for (int i = 1; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(",");
+            if (fields.length == HEADER.split(",").length) {
+                baseline.put(fields[0], Double.parseDouble(fields[8]));
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * Runs all scenarios.
+     * @param args command line options
+     * @throws IOException if output or baseline files couldn't be accessed
+     */
+    public static void main(String[] args) throws IOException {
+        int ticks = 1000;
+        int warmup = 300;
+        Path out = null;
+        Path baselinePath = null;
+        double tolerance = 20;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--ticks" -> ticks = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                case "--out" -> out = Paths.get(args[i + 1]);
+                case "--baseline" -> baselinePath = Paths.get(args[i + 1]);
+                case "--tolerance" -> tolerance = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Map<String, Double> baseline = baselinePath != null && Files.exists(baselinePath)
+                ? readBaseline(baselinePath) : new HashMap<>();
+        PrintStream csv = out == null ? null : new PrintStream(Files.newOutputStream(out));
+        System.out.println(HEADER + ",baselineDeltaPercent");
+        if (csv != null) {
+            csv.println(HEADER);
+        }
+
+        int regressions = 0;
+        for (Scenario s : SCENARIOS) {
+            Result result = run(s, ticks, warmup);
+            String delta = "";
+            Double base = baseline.get(s.name());
+            if (base != null && base > 0) {
+                double percent = (result.nsPerBallStep() - base) / base * 100;
+                delta = String.format(Locale.ROOT, "%+.1f", percent);
+                if (percent > tolerance) {
+                    delta += " REGRESSION";
+                    regressions++;
+                }
+            }
+            System.out.println(result.toCsv() + "," + delta);
+            if (csv != null) {
+                csv.println(result.toCsv());
+            }
+        }
+
+        if (csv != null) {
+            csv.close();
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " scenario(s) regressed by more than " + tolerance + "%");
+            System.exit(1);
+        }
+    }
+}
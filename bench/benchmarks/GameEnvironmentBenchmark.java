@@ -0,0 +1,136 @@
+package benchmarks;
+
+import collisions.CollisionInfo;
+import game.GameEnvironment;
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures closest collision and swept impact query latency as the number of collidables grows.
+ * The world is a square arena sized so that blocks cover roughly a quarter of it, whatever their count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GameEnvironmentBenchmark {
+    private static final int BLOCK_WIDTH = 10;
+    private static final int BLOCK_HEIGHT = 5;
+    // Each block owns a cell of twice its dimensions
+    private static final int CELL_WIDTH = 2 * BLOCK_WIDTH;
+    private static final int CELL_HEIGHT = 2 * BLOCK_HEIGHT;
+    private static final int QUERIES = 1024;
+    private static final long SEED = 42;
+    private static final double GRID_CELL_SIZE = 64;
+    private static final int BALL_RADIUS = 5;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    private int count;
+
+    @Param({"GRID", "RANDOM"})
+    private String layout;
+
+    @Param({"SHORT", "LONG"})
+    private String movement;
+
+    @Param({"LINEAR", "GRID"})
+    private String backend;
+
+    private GameEnvironment environment;
+    private Line[] queries;
+    private CollisionInfo impact;
+    private int next;
+
+    /**
+     * Fills an environment with blocks and prepares query movements.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        int columns = (int) Math.ceil(Math.sqrt(this.count));
+        int rows = (int) Math.ceil((double) this.count / columns);
+        double worldWidth = columns * CELL_WIDTH;
+        double worldHeight = rows * CELL_HEIGHT;
+
+        this.environment = createEnvironment(this.backend);
+        for (int i = 0; i < this.count; i++) {
+            double x, y;
+            if (this.layout.equals("GRID")) {
+                x = (i % columns) * CELL_WIDTH;
+                y = (i / columns) * CELL_HEIGHT;
+            } else {
+                x = random.nextDouble() * (worldWidth - BLOCK_WIDTH);
+                y = random.nextDouble() * (worldHeight - BLOCK_HEIGHT);
+            }
+            this.environment.addCollidable(new Rectangle(new Point(x, y), BLOCK_WIDTH, BLOCK_HEIGHT));
+        }
+
+        // Short movements are a single ball step, long ones cross a quarter of the world
+        double length = this.movement.equals("SHORT") ? 6 : Math.max(worldWidth, worldHeight) / 4;
+        this.queries = new Line[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double x = random.nextDouble() * worldWidth;
+            double y = random.nextDouble() * worldHeight;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            this.queries[i] = new Line(x, y, x + length * Math.cos(angle), y + length * Math.sin(angle));
+        }
+        this.impact = new CollisionInfo();
+    }
+
+    /**
+     * Creates an empty game environment with the given broadphase backend.
+     * @param name backend name
+     * @return game environment
+     */
+    private static GameEnvironment createEnvironment(String name) {
+        if (name.equals("LINEAR")) {
+            return new GameEnvironment();
+        }
+        if (name.equals("GRID")) {
+            return new GameEnvironment(GRID_CELL_SIZE);
+        }
+        throw new IllegalArgumentException("Unknown backend: " + name);
+    }
+
+    /**
+     *
+     * @return closest collision of next query movement
+     */
+    @Benchmark
+    public CollisionInfo getClosestCollision() {
+        Line query = this.queries[this.next];
+        this.next = (this.next + 1) & (QUERIES - 1);
+        return this.environment.getClosestCollision(query);
+    }
+
+    /**
+     *
+     * @return whether a ball swept along next query movement hits a collidable
+     */
+    @Benchmark
+    public boolean getEarliestImpact() {
+        Line query = this.queries[this.next];
+        this.next = (this.next + 1) & (QUERIES - 1);
+        return this.environment.getEarliestImpact(query.start().getX(), query.start().getY(),
+                query.end().getX() - query.start().getX(), query.end().getY() - query.start().getY(),
+                BALL_RADIUS, this.impact);
+    }
+}
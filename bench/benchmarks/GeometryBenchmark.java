@@ -0,0 +1,139 @@
+package benchmarks;
+
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks of geometry package hot paths, for each kind of intersection case.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+    @Param({"HIT", "MISS", "COLLINEAR", "CORNER"})
+    private String scenario;
+
+    private Line line;
+    private Line other;
+    private Line movement;
+    private Rectangle rectangle;
+    private Point collisionPoint;
+    private Velocity velocity;
+
+    /**
+     * Builds the geometry of current scenario.
+     * All scenarios use a 50x50 rectangle at (100, 100).
+     */
+    @Setup
+    public void setup() {
+        this.rectangle = new Rectangle(new Point(100, 100), 50, 50);
+        this.velocity = new Velocity(3, 4);
+        switch (scenario) {
+            case "HIT":
+                // Crossing lines, movement enters through left edge
+                this.line = new Line(0, 0, 10, 10);
+                this.other = new Line(0, 10, 10, 0);
+                this.movement = new Line(90, 120, 110, 125);
+                this.collisionPoint = new Point(100, 122.5);
+                break;
+            case "MISS":
+                // Parallel lines, movement passes beside rectangle
+                this.line = new Line(0, 0, 10, 10);
+                this.other = new Line(20, 0, 30, 10);
+                this.movement = new Line(0, 0, 10, 10);
+                this.collisionPoint = new Point(0, 0);
+                break;
+            case "COLLINEAR":
+                // Overlapping lines, movement slides along top edge
+                this.line = new Line(0, 0, 10, 0);
+                this.other = new Line(5, 0, 15, 0);
+                this.movement = new Line(90, 100, 160, 100);
+                this.collisionPoint = new Point(120, 100);
+                break;
+            case "CORNER":
+                // Lines share an endpoint, movement passes through top left corner
+                this.line = new Line(0, 0, 10, 10);
+                this.other = new Line(10, 10, 20, 0);
+                this.movement = new Line(90, 90, 110, 110);
+                this.collisionPoint = new Point(100, 100);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    /**
+     *
+     * @return intersection point of scenario lines
+     */
+    @Benchmark
+    public Point lineIntersectionWith() {
+        return this.line.intersectionWith(this.other);
+    }
+
+    /**
+     *
+     * @return whether scenario lines intersect
+     */
+    @Benchmark
+    public boolean lineIsIntersecting() {
+        return this.line.isIntersecting(this.other);
+    }
+
+    /**
+     *
+     * @return closest intersection of movement with rectangle
+     */
+    @Benchmark
+    public Point lineClosestIntersectionToStartOfLine() {
+        return this.movement.closestIntersectionToStartOfLine(this.rectangle);
+    }
+
+    /**
+     *
+     * @return intersection points of movement with rectangle
+     */
+    @Benchmark
+    public List<Point> rectangleIntersectionPoints() {
+        return this.rectangle.intersectionPoints(this.movement);
+    }
+
+    /**
+     *
+     * @return collision edge of scenario collision point
+     */
+    @Benchmark
+    public Object rectangleGetCollisionEdge() {
+        return this.rectangle.getCollisionEdge(this.collisionPoint);
+    }
+
+    /**
+     * Collides velocity in place, each invocation flips the direction back and forth.
+     * @return collided velocity
+     */
+    @Benchmark
+    public Velocity velocityCollide() {
+        this.velocity.collide(this.collisionPoint, this.rectangle);
+        return this.velocity;
+    }
+}
@@ -1,16 +1,45 @@
 import game.Game;
+import render.FrameCapture;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * Main class for running assignment game.
  */
 public class Ass5Game {
     /**
-     * Runs the game.
+     * Runs the game, with the default level or with a level file given as first argument.
+     * Files ending with ".chunks" are chunk stores, which are streamed by chunks while playing.
+     * Arguments "--capture dir" capture played frames as PNG images into the directory.
      * @param args cmd input args
+     * @throws IOException if given level file couldn't be read, or capture directory couldn't be created
      */
-    public static void main(String[] args) {
-        Game game = new Game(800, 600);
-        game.initialize();
+    public static void main(String[] args) throws IOException {
+        String level = null;
+        String captureDir = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--capture".equals(args[i]) && i + 1 < args.length) {
+                captureDir = args[++i];
+            } else {
+                level = args[i];
+            }
+        }
+
+        Game game;
+        if (level != null && level.endsWith(".chunks")) {
+            game = Game.loadChunked(Paths.get(level));
+        } else if (level != null) {
+            game = Game.load(Paths.get(level));
+        } else {
+            game = new Game(800, 600);
+            game.initialize();
+        }
+        if (captureDir != null) {
+            int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            game.setCapture(new FrameCapture(Paths.get(captureDir), FrameCapture.Format.PNG, game.getWidth(),
+                    game.getHeight(), workers, 2 * workers));
+        }
         game.run();
     }
 }
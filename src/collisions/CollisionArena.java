@@ -0,0 +1,107 @@
+package collisions;
+
+import geometry.GeometryArena;
+
+import java.util.Arrays;
+
+/**
+ * Hands out reusable collision infos, together with a geometry arena, all valid until the next reset.
+ * Resetting this arena resets its geometry arena too, so a whole tick's temporaries are taken back in one step.
+ * When assertions are enabled, reset clears handed out infos, and reading an info that escaped its tick fails an
+ * assertion. isLive tells the same without failing.
+ */
+public class CollisionArena {
+    private static final boolean DEBUG = CollisionArena.class.desiredAssertionStatus();
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Collision info stamped with the arena epoch in which it was handed out.
+     */
+    private static final class PooledCollisionInfo extends CollisionInfo {
+        private final CollisionArena owner;
+        private int epoch;
+
+        /**
+         * Constructs a pooled collision info.
+         * @param owner owning arena
+         */
+        PooledCollisionInfo(CollisionArena owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        boolean isLive() {
+            return this.epoch == this.owner.epoch;
+        }
+    }
+
+    private final GeometryArena geometry;
+    private PooledCollisionInfo[] infos;
+    private int infosUsed;
+    private int epoch;
+
+    /**
+     * Constructs an empty collision arena.
+     */
+    public CollisionArena() {
+        this.geometry = new GeometryArena();
+        this.infos = new PooledCollisionInfo[INITIAL_CAPACITY];
+    }
+
+    /**
+     *
+     * @return geometry arena which is reset with this arena
+     */
+    public GeometryArena geometry() {
+        return this.geometry;
+    }
+
+    /**
+     * Hands out an empty collision info, valid until next reset.
+     * @return pooled collision info
+     */
+    public CollisionInfo collisionInfo() {
+        if (this.infosUsed == this.infos.length) {
+            this.infos = Arrays.copyOf(this.infos, 2 * this.infos.length);
+        }
+        PooledCollisionInfo info = this.infos[this.infosUsed];
+        if (info == null) {
+            info = new PooledCollisionInfo(this);
+            this.infos[this.infosUsed] = info;
+        }
+        this.infosUsed++;
+        info.epoch = this.epoch;
+        return info;
+    }
+
+    /**
+     * Takes back all handed out collision infos and geometry at once.
+     */
+    public void reset() {
+        if (DEBUG) {
+            for (int i = 0; i < this.infosUsed; i++) {
+                this.infos[i].clear();
+            }
+        }
+        this.infosUsed = 0;
+        this.epoch++;
+        this.geometry.reset();
+    }
+
+    /**
+     *
+     * @return number of collision infos handed out since last reset
+     */
+    public int size() {
+        return this.infosUsed;
+    }
+
+    /**
+     * Checks whether a collision info may still be used, meant to be called in assertions.
+     * @param info collision info to check
+     * @return false if info was handed out by this arena before last reset, else true
+     */
+    public boolean isLive(CollisionInfo info) {
+        return !(info instanceof PooledCollisionInfo pooled) || pooled.owner != this || pooled.epoch == this.epoch;
+    }
+}
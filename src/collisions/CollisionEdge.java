@@ -6,6 +6,9 @@ package collisions;
 public enum CollisionEdge {
     TOP, RIGHT, BOTTOM, LEFT, CORNER;
 
+    // Cached, since values() creates a new array on each call
+    private static final CollisionEdge[] VALUES = values();
+
     @Override
     public String toString() {
         return switch (this) {
@@ -24,11 +27,10 @@ public enum CollisionEdge {
      * @return enum value at given index
      */
     public static CollisionEdge get(int index) {
-        CollisionEdge[] values = values();
-        if (index < 0 || index >= values.length) {
+        if (index < 0 || index >= VALUES.length) {
             return null;
         }
-        return values[index];
+        return VALUES[index];
     }
 
     /**
@@ -7,9 +7,20 @@ import geometry.Rectangle;
  * Represents a collision information.
  */
 public class CollisionInfo {
-    private final Point point;
-    private final Rectangle rectangle;
-    private final CollisionEdge edge;
+    private Point point;
+    private Rectangle rectangle;
+    private CollisionEdge edge;
+    // Set by swept collision queries only
+    private double time;
+    private double normalX;
+    private double normalY;
+
+    /**
+     * Constructor of an empty collision info, meant to be reused with set.
+     */
+    public CollisionInfo() {
+        this(null, new Point(0, 0), null);
+    }
 
     /**
      * Constructor of collision info.
@@ -24,11 +35,63 @@ public class CollisionInfo {
         this.edge = ce;
     }
 
+    /**
+     * Sets collision info, copying collision point coordinates into this info's point.
+     *
+     * @param cr collision object
+     * @param cp collision point
+     * @param ce collision edge
+     */
+    public void set(Rectangle cr, Point cp, CollisionEdge ce) {
+        if (this.point == null) {
+            this.point = new Point(0, 0);
+        }
+        this.point.setLocation(cp.getX(), cp.getY());
+        this.rectangle = cr;
+        this.edge = ce;
+    }
+
+    /**
+     * Sets collision info of a swept query, with impact time and normal.
+     *
+     * @param cr collision object
+     * @param x collision point x value
+     * @param y collision point y value
+     * @param ce collision edge
+     * @param time impact time, as a fraction of movement
+     * @param nx x value of unit normal, pointing from collision point toward the moving object
+     * @param ny y value of unit normal, pointing from collision point toward the moving object
+     */
+    public void set(Rectangle cr, double x, double y, CollisionEdge ce, double time, double nx, double ny) {
+        if (this.point == null) {
+            this.point = new Point(0, 0);
+        }
+        this.point.setLocation(x, y);
+        this.rectangle = cr;
+        this.edge = ce;
+        this.time = time;
+        this.normalX = nx;
+        this.normalY = ny;
+    }
+
+    /**
+     * Clears this collision info, leaving its point with NaN coordinates.
+     */
+    void clear() {
+        this.point.setLocation(Double.NaN, Double.NaN);
+        this.rectangle = null;
+        this.edge = null;
+        this.time = Double.NaN;
+        this.normalX = Double.NaN;
+        this.normalY = Double.NaN;
+    }
+
     /**
      *
      * @return collision point
      */
     public Point getPoint() {
+        assert this.isLive() : "Collision info used after its arena was reset";
         return this.point;
     }
 
@@ -37,6 +100,7 @@ public class CollisionInfo {
      * @return collision object
      */
     public Collidable getObject() {
+        assert this.isLive() : "Collision info used after its arena was reset";
         return this.rectangle;
     }
 
@@ -45,6 +109,42 @@ public class CollisionInfo {
      * @return collision edge
      */
     public CollisionEdge getEdge() {
+        assert this.isLive() : "Collision info used after its arena was reset";
         return this.edge;
     }
+
+    /**
+     *
+     * @return impact time of a swept query, as a fraction of movement
+     */
+    public double getTime() {
+        assert this.isLive() : "Collision info used after its arena was reset";
+        return this.time;
+    }
+
+    /**
+     *
+     * @return x value of impact normal of a swept query
+     */
+    public double getNormalX() {
+        assert this.isLive() : "Collision info used after its arena was reset";
+        return this.normalX;
+    }
+
+    /**
+     *
+     * @return y value of impact normal of a swept query
+     */
+    public double getNormalY() {
+        assert this.isLive() : "Collision info used after its arena was reset";
+        return this.normalY;
+    }
+
+    /**
+     * Checks whether this collision info may still be used, which only infos handed out by an arena may not be.
+     * @return true, unless overridden by pooled collision infos
+     */
+    boolean isLive() {
+        return true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package game;
+
+import biuoop.KeyboardSensor;
+import collisions.CollisionInfo;
+import objects.Ball;
+import objects.Paddle;
+
+import java.util.Arrays;
+
+/**
+ * Keyboard sensor which plays the game by itself, steering the paddle under the descending ball that will
+ * reach the paddle row first.
+ * Where a ball reaches the paddle row is predicted by sweeping it through the game environment, reflecting it
+ * off everything it hits on the way. A ball moves in a straight line until its velocity changes, so each
+ * ball's prediction is cached and computed again only once its velocity changed.
+ * Keys are decided once per tick, on the first query of the tick.
+ */
+public class Autopilot implements KeyboardSensor {
+    // Bounces followed before a ball's prediction is given up
+    private static final int MAX_BOUNCES = 16;
+    // Length of a sweep which isn't bounded by the paddle row, longer than any arena
+    private static final double FAR = 100000;
+
+    private final Game game;
+    private final CollisionInfo info;
+    // Per ball cache of velocity the prediction was made with, and predicted x and tick of reaching the row
+    private double[] cachedDx;
+    private double[] cachedDy;
+    private double[] predictedX;
+    private long[] arrivalTick;
+    private long decidedTick = -1;
+    private boolean left;
+    private boolean right;
+    private long predictions;
+
+    /**
+     * Constructs an autopilot, which controls the first paddle of a game it's started with.
+     * @param game game
+     */
+    public Autopilot(Game game) {
+        this.game = game;
+        this.info = new CollisionInfo();
+        this.cachedDx = new double[0];
+        this.cachedDy = new double[0];
+        this.predictedX = new double[0];
+        this.arrivalTick = new long[0];
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        long tick = this.game.getStateHash().getTick();
+        if (tick != this.decidedTick) {
+            this.decide(tick);
+            this.decidedTick = tick;
+        }
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return this.left;
+        }
+        return KeyboardSensor.RIGHT_KEY.equals(key) && this.right;
+    }
+
+    /**
+     * Decides which keys are pressed on a tick.
+     * @param tick current tick
+     */
+    private void decide(long tick) {
+        this.left = false;
+        this.right = false;
+        Paddle paddle = this.game.getPaddle();
+        int count = this.game.getBallCount();
+        this.ensureCapacity(count);
+
+        int nearest = -1;
+        for (int i = 0; i < count; i++) {
+            Ball ball = this.game.getBall(i);
+            if (!ball.isInGame() || ball.getVelocity().getDy() <= 0) {
+                continue;
+            }
+            if (ball.getVelocity().getDx() != this.cachedDx[i] || ball.getVelocity().getDy() != this.cachedDy[i]
+                    || this.arrivalTick[i] < tick) {
+                this.predict(i, ball, paddle, tick);
+            }
+            if (this.arrivalTick[i] != Long.MAX_VALUE
+                    && (nearest < 0 || this.arrivalTick[i] < this.arrivalTick[nearest])) {
+                nearest = i;
+            }
+        }
+        if (nearest < 0) {
+            return;
+        }
+
+        double center = paddle.getMinX() + paddle.getWidth() / 2;
+        double target = this.predictedX[nearest];
+        if (target < center - Paddle.MOVEMENT_STEPS / 2.0) {
+            this.left = paddle.canMoveLeft();
+        } else if (target > center + Paddle.MOVEMENT_STEPS / 2.0) {
+            this.right = paddle.canMoveRight();
+        }
+    }
+
+    /**
+     * Grows per ball cache to hold a number of balls, with new entries invalid.
+     * @param count number of balls
+     */
+    private void ensureCapacity(int count) {
+        if (this.cachedDx.length >= count) {
+            return;
+        }
+        int old = this.cachedDx.length;
+        this.cachedDx = Arrays.copyOf(this.cachedDx, count);
+        this.cachedDy = Arrays.copyOf(this.cachedDy, count);
+        this.predictedX = Arrays.copyOf(this.predictedX, count);
+        this.arrivalTick = Arrays.copyOf(this.arrivalTick, count);
+        Arrays.fill(this.cachedDx, old, count, Double.NaN);
+    }
+
+    /**
+     * Predicts where and when a ball reaches the paddle row, by sweeping it from impact to impact.
+     * @param i ball index
+     * @param ball descending ball
+     * @param paddle paddle, which is the only collidable ignored
+     * @param tick current tick
+     */
+    private void predict(int i, Ball ball, Paddle paddle, long tick) {
+        this.predictions++;
+        double dx = ball.getVelocity().getDx(), dy = ball.getVelocity().getDy();
+        this.cachedDx[i] = dx;
+        this.cachedDy[i] = dy;
+        this.arrivalTick[i] = Long.MAX_VALUE;
+
+        GameEnvironment environment = this.game.getEnvironment();
+        double radius = ball.getSize();
+        double row = paddle.getMinY() - radius;
+        double x = ball.getCenter().getX(), y = ball.getCenter().getY();
+        // Ticks passed, since ball moves its velocity every tick
+        double ticks = 0;
+        for (int bounce = 0; bounce <= MAX_BOUNCES; bounce++) {
+            // Time, in ticks, until the row is reached or the sweep ends
+            double span = dy > 0 ? (row - y) / dy : FAR / Math.hypot(dx, dy);
+            if (span < 0) {
+                return;
+            }
+            boolean hit = environment.getEarliestImpact(x, y, dx * span, dy * span, radius, this.info)
+                    && this.info.getObject() != paddle;
+            if (!hit) {
+                if (dy > 0) {
+                    this.predictedX[i] = x + dx * span;
+                    this.arrivalTick[i] = tick + (long) Math.ceil(ticks + span);
+                }
+                return;
+            }
+
+            double t = this.info.getTime() * span;
+            x += dx * t;
+            y += dy * t;
+            ticks += t;
+            // Reflect velocity off the impact normal
+            double nx = this.info.getNormalX(), ny = this.info.getNormalY();
+            double dot = dx * nx + dy * ny;
+            dx -= 2 * dot * nx;
+            dy -= 2 * dot * ny;
+        }
+    }
+
+    /**
+     *
+     * @return number of ball predictions computed, rather than taken from cache
+     */
+    public long getPredictions() {
+        return this.predictions;
+    }
+}
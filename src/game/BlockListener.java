@@ -0,0 +1,21 @@
+package game;
+
+import objects.Block;
+
+/**
+ * Represents a listener to blocks being added to and removed from a game.
+ */
+public interface BlockListener {
+
+    /**
+     * Given block was added to the game.
+     * @param block added block
+     */
+    void blockAdded(Block block);
+
+    /**
+     * Given block was removed from the game.
+     * @param block removed block
+     */
+    void blockRemoved(Block block);
+}
@@ -0,0 +1,268 @@
+package game;
+
+import collisions.HitListener;
+import levels.ChunkStore;
+import levels.ColorPalette;
+import objects.Ball;
+import objects.Block;
+import objects.Paddle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams blocks of a chunk store in and out of a game, so only chunks near balls and paddle are in memory.
+ * Chunks within LOAD_RADIUS chunks of a ball or the paddle are loaded, and chunks farther than KEEP_RADIUS
+ * are unloaded, so a ball moving along a chunk border doesn't make chunks load and unload on every tick.
+ * Destroyed blocks are cleared in their chunk's alive bitmask, which is written back on the next update.
+ */
+public class ChunkedWorld implements HitListener, Closeable {
+    private static final int LOAD_RADIUS = 1;
+    private static final int KEEP_RADIUS = 2;
+
+    /**
+     * Blocks of a loaded chunk, by slot.
+     */
+    private static final class Chunk {
+        private final int index;
+        private final Block[] blocks;
+        private final long[] alive;
+        private int destroyed;
+
+        /**
+         * Constructs an empty loaded chunk.
+         * @param index chunk index
+         * @param capacity block slots per chunk
+         */
+        Chunk(int index, int capacity) {
+            this.index = index;
+            this.blocks = new Block[capacity];
+            this.alive = new long[capacity / Long.SIZE];
+        }
+    }
+
+    private final Game game;
+    private final ChunkStore store;
+    private final ColorPalette palette;
+    private final Chunk[] chunks;
+    private final int[] loaded;
+    private int loadedCount;
+    // Chunks marked near a ball or paddle on current update are stamped with current update number
+    private final int[] loadStamps;
+    private final int[] keepStamps;
+    private int stamp;
+    private final int[] toLoad;
+    private int toLoadCount;
+    // Reused for reading chunk records
+    private final float[] bounds;
+    private final int[] colors;
+    private final Set<Block> unloading;
+    private long loads;
+    private long unloads;
+
+    /**
+     * Constructs a chunked world with no loaded chunks.
+     * @param game game which blocks are streamed into
+     * @param store chunk store, owned by this world from now on
+     */
+    public ChunkedWorld(Game game, ChunkStore store) {
+        this.game = game;
+        this.store = store;
+        this.palette = new ColorPalette();
+        int count = store.getChunks();
+        this.chunks = new Chunk[count];
+        this.loaded = new int[count];
+        this.loadStamps = new int[count];
+        this.keepStamps = new int[count];
+        this.toLoad = new int[count];
+        this.bounds = new float[4 * store.getCapacity()];
+        this.colors = new int[store.getCapacity()];
+        this.unloading = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Stamps chunks around given point as needed.
+     * @param x x value
+     * @param y y value
+     */
+    private void mark(double x, double y) {
+        int columns = this.store.getChunkColumns();
+        int center = this.store.chunkAt(x, y);
+        int cx = center % columns, cy = center / columns;
+        int lastRow = Math.min(this.store.getChunkRows() - 1, cy + KEEP_RADIUS);
+        int lastCol = Math.min(columns - 1, cx + KEEP_RADIUS);
+        for (int row = Math.max(0, cy - KEEP_RADIUS); row <= lastRow; row++) {
+            for (int col = Math.max(0, cx - KEEP_RADIUS); col <= lastCol; col++) {
+                int index = row * columns + col;
+                this.keepStamps[index] = this.stamp;
+                boolean near = Math.abs(row - cy) <= LOAD_RADIUS && Math.abs(col - cx) <= LOAD_RADIUS;
+                if (near && this.loadStamps[index] != this.stamp) {
+                    this.loadStamps[index] = this.stamp;
+                    if (this.chunks[index] == null) {
+                        this.toLoad[this.toLoadCount++] = index;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes back chunks with destroyed blocks, and pages chunks in and out around balls and paddle.
+     * @throws UncheckedIOException if a chunk couldn't be read or written
+     */
+    public void update() {
+        try {
+            this.writeBack();
+
+            this.stamp++;
+            this.toLoadCount = 0;
+            List<Ball> balls = this.game.getBalls();
+            for (int i = 0; i < balls.size(); i++) {
+                // Lost balls never come back, so chunks around them aren't kept
+                if (balls.get(i).isInGame()) {
+                    this.mark(balls.get(i).getX(), balls.get(i).getY());
+                }
+            }
+            Paddle[] paddles = this.game.getPaddles();
+            for (int i = 0; paddles != null && i < paddles.length; i++) {
+                this.mark(paddles[i].getOrigin().getX() + paddles[i].getWidth() / 2,
+                        paddles[i].getOrigin().getY() + paddles[i].getHeight() / 2);
+            }
+
+            // Unload chunks which are too far, keeping loaded list compact
+            int kept = 0;
+            for (int i = 0; i < this.loadedCount; i++) {
+                int index = this.loaded[i];
+                if (this.keepStamps[index] == this.stamp) {
+                    this.loaded[kept++] = index;
+                } else {
+                    this.unload(this.chunks[index]);
+                    this.chunks[index] = null;
+                }
+            }
+            this.loadedCount = kept;
+            if (!this.unloading.isEmpty()) {
+                this.game.removeBlocks(this.unloading);
+                this.unloading.clear();
+            }
+
+            for (int i = 0; i < this.toLoadCount; i++) {
+                this.load(this.toLoad[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a chunk and adds its alive blocks to the game.
+     * @param index chunk index
+     * @throws IOException if chunk couldn't be read
+     */
+    private void load(int index) throws IOException {
+        Chunk chunk = new Chunk(index, this.store.getCapacity());
+        int count = this.store.readChunk(index, this.bounds, this.colors, chunk.alive);
+        for (int i = 0; i < count; i++) {
+            if ((chunk.alive[i / Long.SIZE] & (1L << i)) != 0) {
+                Block block = this.game.createBlock(this.bounds[4 * i], this.bounds[4 * i + 1],
+                        this.bounds[4 * i + 2], this.bounds[4 * i + 3], this.palette.get(this.colors[i]));
+                block.addHitListener(this);
+                chunk.blocks[i] = block;
+            }
+        }
+        this.chunks[index] = chunk;
+        this.loaded[this.loadedCount++] = index;
+        this.loads++;
+    }
+
+    /**
+     * Writes back a chunk if needed, and queues its blocks for removal from the game.
+     * @param chunk loaded chunk
+     * @throws IOException if chunk couldn't be written
+     */
+    private void unload(Chunk chunk) throws IOException {
+        if (chunk.destroyed > 0) {
+            this.store.writeAlive(chunk.index, chunk.alive, chunk.destroyed);
+            chunk.destroyed = 0;
+        }
+        for (int i = 0; i < chunk.blocks.length; i++) {
+            if (chunk.blocks[i] != null) {
+                this.unloading.add(chunk.blocks[i]);
+            }
+        }
+        this.unloads++;
+    }
+
+    /**
+     * Writes back alive bitmasks of loaded chunks with destroyed blocks.
+     * @throws IOException if a chunk couldn't be written
+     */
+    private void writeBack() throws IOException {
+        for (int i = 0; i < this.loadedCount; i++) {
+            Chunk chunk = this.chunks[this.loaded[i]];
+            if (chunk.destroyed > 0) {
+                this.store.writeAlive(chunk.index, chunk.alive, chunk.destroyed);
+                chunk.destroyed = 0;
+            }
+        }
+    }
+
+    @Override
+    public void hitEvent(Block beingHit, Ball hitter) {
+        Chunk chunk = this.chunks[this.store.chunkAt(beingHit.getOrigin().getX(), beingHit.getOrigin().getY())];
+        if (chunk == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.blocks.length; i++) {
+            if (chunk.blocks[i] == beingHit) {
+                chunk.blocks[i] = null;
+                chunk.alive[i / Long.SIZE] &= ~(1L << i);
+                chunk.destroyed++;
+                beingHit.removeHitListener(this);
+                return;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return number of chunks currently loaded
+     */
+    public int getLoadedChunks() {
+        return this.loadedCount;
+    }
+
+    /**
+     *
+     * @return number of chunk loads so far
+     */
+    public long getLoads() {
+        return this.loads;
+    }
+
+    /**
+     *
+     * @return number of chunk unloads so far
+     */
+    public long getUnloads() {
+        return this.unloads;
+    }
+
+    /**
+     * Writes back all chunks with destroyed blocks and closes the chunk store.
+     * @throws IOException if a chunk couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.writeBack();
+        } finally {
+            this.store.close();
+        }
+    }
+}
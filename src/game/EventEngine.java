@@ -0,0 +1,341 @@
+package game;
+
+import collisions.CollisionInfo;
+import objects.Ball;
+import objects.Paddle;
+
+import java.util.Arrays;
+
+/**
+ * Moves balls from impact to impact, rather than tick by tick.
+ * Each ball's next impact is predicted once, and balls are kept in a priority queue by predicted time,
+ * so advancing time costs per impact rather than per ball and tick.
+ * The paddle is the only moving collidable, so a ball is predicted only until it could reach the paddle's rows,
+ * and is stepped tick by tick while near them. Block removals can only delay impacts, so a prediction made
+ * before a removal is checked when it's due, while additions make all balls be predicted again.
+ * Velocities of balls in an engine must be changed only by hits.
+ */
+public class EventEngine {
+    // Predictions don't look further ahead than this number of ticks
+    private static final double HORIZON = 4096;
+    // Impacts with no progress in between, after which a ball is stepped instead of predicted
+    private static final int MAX_STALLS = 8;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Event kinds
+    private static final int IMPACT = 0;
+    private static final int CHECKPOINT = 1;
+    private static final int STEP = 2;
+
+    private final GameEnvironment environment;
+    private final Paddle paddle;
+    private Ball[] balls;
+    private int count;
+    // Time in ticks at which each ball's center is valid
+    private double[] times;
+    private double[] eventTimes;
+    private int[] kinds;
+    private CollisionInfo[] impacts;
+    // Environment removals count when each impact was predicted
+    private long[] removals;
+    private int[] stalls;
+    // Indexed min-heap of ball slots by event time, with each slot's heap position or -1
+    private int[] heap;
+    private int[] positions;
+    private int heapSize;
+    private double time;
+    private long additions;
+    private long events;
+    private long predictions;
+
+    /**
+     * Constructs an event engine with no balls.
+     * @param environment environment balls move in
+     * @param paddle game paddle, which balls are stepped near, or null if there is no paddle
+     */
+    public EventEngine(GameEnvironment environment, Paddle paddle) {
+        this.environment = environment;
+        this.paddle = paddle;
+        this.balls = new Ball[INITIAL_CAPACITY];
+        this.times = new double[INITIAL_CAPACITY];
+        this.eventTimes = new double[INITIAL_CAPACITY];
+        this.kinds = new int[INITIAL_CAPACITY];
+        this.impacts = new CollisionInfo[INITIAL_CAPACITY];
+        this.removals = new long[INITIAL_CAPACITY];
+        this.stalls = new int[INITIAL_CAPACITY];
+        this.heap = new int[INITIAL_CAPACITY];
+        this.positions = new int[INITIAL_CAPACITY];
+        this.additions = environment.getAdditions();
+    }
+
+    /**
+     * Adds a ball to this engine, from now on it's moved by this engine only.
+     * @param ball ball to add, at its position of current time
+     */
+    public void addBall(Ball ball) {
+        if (this.count == this.balls.length) {
+            int capacity = 2 * this.balls.length;
+            this.balls = Arrays.copyOf(this.balls, capacity);
+            this.times = Arrays.copyOf(this.times, capacity);
+            this.eventTimes = Arrays.copyOf(this.eventTimes, capacity);
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.impacts = Arrays.copyOf(this.impacts, capacity);
+            this.removals = Arrays.copyOf(this.removals, capacity);
+            this.stalls = Arrays.copyOf(this.stalls, capacity);
+            this.heap = Arrays.copyOf(this.heap, capacity);
+            this.positions = Arrays.copyOf(this.positions, capacity);
+        }
+        int slot = this.count++;
+        this.balls[slot] = ball;
+        this.times[slot] = this.time;
+        this.impacts[slot] = new CollisionInfo();
+        this.positions[slot] = -1;
+        ball.setScheduled(true);
+        this.predict(slot);
+    }
+
+    /**
+     * Advances time by given number of ticks, handling all events on the way.
+     * Balls are moved to their positions at the new time only once all ticks have passed.
+     * Temporaries of the environment arena are taken back between ticks, but not after the last one.
+     * @param ticks number of ticks to advance
+     */
+    public void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            if (i > 0) {
+                this.environment.getArena().reset();
+            }
+            // Added collidables may be hit before predicted impacts
+            if (this.environment.getAdditions() != this.additions) {
+                this.additions = this.environment.getAdditions();
+                this.syncBalls();
+                for (int slot = 0; slot < this.count; slot++) {
+                    this.stalls[slot] = 0;
+                    this.predict(slot);
+                }
+            }
+            this.handleEvents(this.time + 1);
+            this.time++;
+        }
+        this.syncBalls();
+    }
+
+    /**
+     * Moves all balls to their positions at current time, and hands them back to be moved tick by tick.
+     */
+    public void stop() {
+        this.syncBalls();
+        for (int slot = 0; slot < this.count; slot++) {
+            this.balls[slot].setScheduled(false);
+        }
+        this.count = 0;
+        this.heapSize = 0;
+    }
+
+    /**
+     * Handles all events earlier than given time, by event time order.
+     * @param limit time until which events are handled
+     */
+    private void handleEvents(double limit) {
+        while (this.heapSize > 0 && this.eventTimes[this.heap[0]] < limit) {
+            int slot = this.heap[0];
+            Ball ball = this.balls[slot];
+            double elapsed = this.eventTimes[slot] - this.times[slot];
+            ball.advance(elapsed);
+            this.times[slot] = this.eventTimes[slot];
+            this.events++;
+
+            switch (this.kinds[slot]) {
+                case IMPACT:
+                    // An impact predicted before a removal may be with a removed collidable, so it's predicted again
+                    if (this.removals[slot] == this.environment.getRemovals()) {
+                        this.stalls[slot] = elapsed == 0 ? this.stalls[slot] + 1 : 0;
+                        ball.resolveImpact(this.impacts[slot]);
+                    }
+                    break;
+                case STEP:
+                    this.stalls[slot] = 0;
+                    ball.moveOneStep();
+                    this.times[slot]++;
+                    break;
+                default:
+                    break;
+            }
+            this.predict(slot);
+        }
+    }
+
+    /**
+     * Predicts next event of a ball, from its current position and velocity, and queues it.
+     * A ball removed from the game is taken out of the queue.
+     * @param slot ball slot
+     */
+    private void predict(int slot) {
+        Ball ball = this.balls[slot];
+        if (!ball.isInGame()) {
+            this.dequeue(slot);
+            return;
+        }
+        this.predictions++;
+        double start = this.times[slot];
+        double x = ball.getCenter().getX(), y = ball.getCenter().getY();
+        double dx = ball.getVelocity().getDx(), dy = ball.getVelocity().getDy();
+        if (this.stalls[slot] >= MAX_STALLS) {
+            this.stalls[slot] = 0;
+            this.enqueue(slot, start, STEP);
+            return;
+        }
+
+        // Prediction ends on the tick before ball could reach paddle rows, even if paddle moves
+        double end = start + HORIZON;
+        if (this.paddle != null) {
+            double margin = ball.getSize() + GameEnvironment.COLLISION_THRESHOLD + Math.abs(dy);
+            double top = this.paddle.getOrigin().getY() - margin;
+            double bottom = this.paddle.getOrigin().getY() + this.paddle.getHeight() + margin;
+            if (y > top && y < bottom) {
+                end = Math.ceil(start);
+            } else if (y <= top && dy > 0) {
+                end = Math.min(end, Math.max(Math.ceil(start), Math.floor(start + (top - y) / dy)));
+            } else if (y >= bottom && dy < 0) {
+                end = Math.min(end, Math.max(Math.ceil(start), Math.floor(start + (bottom - y) / dy)));
+            }
+        }
+        if (end <= start) {
+            this.enqueue(slot, start, STEP);
+            return;
+        }
+
+        double span = end - start;
+        CollisionInfo impact = this.impacts[slot];
+        if (this.environment.getEarliestImpact(x, y, span * dx, span * dy, ball.getSize(), impact)) {
+            this.removals[slot] = this.environment.getRemovals();
+            this.enqueue(slot, start + impact.getTime() * span, IMPACT);
+        } else {
+            this.enqueue(slot, end, CHECKPOINT);
+        }
+    }
+
+    /**
+     * Moves all balls in game to their positions at current time.
+     */
+    private void syncBalls() {
+        for (int slot = 0; slot < this.count; slot++) {
+            if (this.balls[slot].isInGame() && this.times[slot] < this.time) {
+                this.balls[slot].advance(this.time - this.times[slot]);
+                this.times[slot] = this.time;
+            }
+        }
+    }
+
+    /**
+     * Queues a ball's next event, replacing its queued event if there is one.
+     * @param slot ball slot
+     * @param eventTime event time
+     * @param kind event kind
+     */
+    private void enqueue(int slot, double eventTime, int kind) {
+        this.kinds[slot] = kind;
+        double previous = this.eventTimes[slot];
+        this.eventTimes[slot] = eventTime;
+        int position = this.positions[slot];
+        if (position < 0) {
+            position = this.heapSize++;
+            this.heap[position] = slot;
+            this.positions[slot] = position;
+            this.siftUp(position);
+        } else if (eventTime < previous) {
+            this.siftUp(position);
+        } else {
+            this.siftDown(position);
+        }
+    }
+
+    /**
+     * Takes a ball's event out of the queue, if queued.
+     * @param slot ball slot
+     */
+    private void dequeue(int slot) {
+        int position = this.positions[slot];
+        if (position < 0) {
+            return;
+        }
+        this.positions[slot] = -1;
+        int last = this.heap[--this.heapSize];
+        if (position == this.heapSize) {
+            return;
+        }
+        this.heap[position] = last;
+        this.positions[last] = position;
+        this.siftUp(position);
+        this.siftDown(this.positions[last]);
+    }
+
+    /**
+     * Moves a heap entry up until its parent is not later than it.
+     * @param position heap position
+     */
+    private void siftUp(int position) {
+        int slot = this.heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (this.eventTimes[this.heap[parent]] <= this.eventTimes[slot]) {
+                break;
+            }
+            this.heap[position] = this.heap[parent];
+            this.positions[this.heap[position]] = position;
+            position = parent;
+        }
+        this.heap[position] = slot;
+        this.positions[slot] = position;
+    }
+
+    /**
+     * Moves a heap entry down until its children are not earlier than it.
+     * @param position heap position
+     */
+    private void siftDown(int position) {
+        int slot = this.heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= this.heapSize) {
+                break;
+            }
+            int right = child + 1;
+            if (right < this.heapSize && this.eventTimes[this.heap[right]] < this.eventTimes[this.heap[child]]) {
+                child = right;
+            }
+            if (this.eventTimes[this.heap[child]] >= this.eventTimes[slot]) {
+                break;
+            }
+            this.heap[position] = this.heap[child];
+            this.positions[this.heap[position]] = position;
+            position = child;
+        }
+        this.heap[position] = slot;
+        this.positions[slot] = position;
+    }
+
+    /**
+     *
+     * @return current time, in ticks since engine was created
+     */
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     *
+     * @return number of events handled so far
+     */
+    public long getEvents() {
+        return this.events;
+    }
+
+    /**
+     *
+     * @return number of predictions made so far
+     */
+    public long getPredictions() {
+        return this.predictions;
+    }
+}
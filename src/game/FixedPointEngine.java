@@ -0,0 +1,435 @@
+package game;
+
+import collisions.Collidable;
+import collisions.CollisionEdge;
+import collisions.CollisionInfo;
+import geometry.Fixed;
+import geometry.Rectangle;
+import geometry.Velocity;
+import objects.Ball;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves balls in Q16.16 fixed point, so a game plays bit-exactly the same on every JVM, as replays and lockstep
+ * play need. Ball centers are kept as fixed point integers and swept against rectangles with integer arithmetic,
+ * so exact comparisons replace the epsilon tests of the double sweep, and velocities are kept in fixed point too.
+ * Balls are still hit and drawn through their double state, which always holds their exact fixed point values.
+ * The paddle is swept like any other rectangle, at its position of current tick.
+ */
+public class FixedPointEngine {
+    private static final int MAX_BOUNCES = 8;
+    private static final int THRESHOLD = Fixed.of(GameEnvironment.COLLISION_THRESHOLD);
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final GameEnvironment environment;
+    private Ball[] balls;
+    // Fixed point centers of balls, by slot
+    private int[] xs;
+    private int[] ys;
+    private int count;
+    // Reused for collidables near current sweep
+    private final List<Collidable> candidates;
+
+    // Earliest impact of current sweep
+    private long bestTime;
+    private Rectangle hitObject;
+    private CollisionEdge hitEdge;
+    private int hitX;
+    private int hitY;
+    private int normalX;
+    private int normalY;
+    // Hit point passed to collided object, on its exact double edge
+    private double hitPointX;
+    private double hitPointY;
+    // Collided rectangle's top left corner, which breaks impact time ties
+    private int hitMinX;
+    private int hitMinY;
+
+    /**
+     * Constructs a fixed point engine with no balls.
+     * @param environment environment balls move in
+     */
+    public FixedPointEngine(GameEnvironment environment) {
+        this.environment = environment;
+        this.balls = new Ball[INITIAL_CAPACITY];
+        this.xs = new int[INITIAL_CAPACITY];
+        this.ys = new int[INITIAL_CAPACITY];
+        this.candidates = new ArrayList<>();
+    }
+
+    /**
+     * Adds a ball to this engine, from now on it's moved by this engine only.
+     * Ball center and velocity are rounded to fixed point values.
+     * @param ball ball to add
+     */
+    public void addBall(Ball ball) {
+        if (this.count == this.balls.length) {
+            int capacity = 2 * this.balls.length;
+            this.balls = Arrays.copyOf(this.balls, capacity);
+            this.xs = Arrays.copyOf(this.xs, capacity);
+            this.ys = Arrays.copyOf(this.ys, capacity);
+        }
+        int slot = this.count++;
+        this.balls[slot] = ball;
+        this.xs[slot] = Fixed.of(ball.getCenter().getX());
+        this.ys[slot] = Fixed.of(ball.getCenter().getY());
+        ball.setCenter(Fixed.toDouble(this.xs[slot]), Fixed.toDouble(this.ys[slot]));
+        ball.getVelocity().setFixedPoint(true);
+        ball.setScheduled(true);
+    }
+
+    /**
+     * Moves all balls one step, in the order they were added. Balls removed from the game are dropped.
+     */
+    public void step() {
+        CollisionInfo info = this.environment.getArena().collisionInfo();
+        int kept = 0;
+        for (int slot = 0; slot < this.count; slot++) {
+            Ball ball = this.balls[slot];
+            if (ball.isInGame()) {
+                this.move(slot, info);
+            }
+            if (ball.isInGame()) {
+                this.balls[kept] = ball;
+                this.xs[kept] = this.xs[slot];
+                this.ys[kept] = this.ys[slot];
+                kept++;
+            }
+        }
+        for (int slot = kept; slot < this.count; slot++) {
+            this.balls[slot] = null;
+        }
+        this.count = kept;
+    }
+
+    /**
+     * Hands all balls back to be moved tick by tick, with their velocities no longer kept in fixed point.
+     */
+    public void stop() {
+        for (int slot = 0; slot < this.count; slot++) {
+            this.balls[slot].setScheduled(false);
+            this.balls[slot].getVelocity().setFixedPoint(false);
+            this.balls[slot] = null;
+        }
+        this.count = 0;
+    }
+
+    /**
+     * Moves a ball one step with its velocity, bouncing off every collidable it hits, up to MAX_BOUNCES times.
+     * @param slot ball slot
+     * @param info collision info which is set to each impact, before it's passed to ball
+     */
+    private void move(int slot, CollisionInfo info) {
+        Ball ball = this.balls[slot];
+        int x = this.xs[slot], y = this.ys[slot];
+        int radius = Fixed.of(ball.getSize());
+        // Fraction of this step's movement not used yet
+        int remaining = Fixed.ONE;
+        for (int bounce = 0; bounce < MAX_BOUNCES; bounce++) {
+            // A hit may replace velocity, so it's rounded again
+            Velocity velocity = ball.getVelocity();
+            if (!velocity.isFixedPoint()) {
+                velocity.setFixedPoint(true);
+            }
+            int dx = Fixed.mul(Fixed.of(velocity.getDx()), remaining);
+            int dy = Fixed.mul(Fixed.of(velocity.getDy()), remaining);
+            if (!this.sweep(x, y, dx, dy, radius)) {
+                x += dx;
+                y += dy;
+                break;
+            }
+
+            // Move ball to impact, then keep it threshold distance away from collided object along impact normal
+            int t = (int) this.bestTime;
+            x += Fixed.mul(dx, t);
+            y += Fixed.mul(dy, t);
+            remaining = Fixed.mul(remaining, Fixed.ONE - t);
+            int distance = Fixed.mul(x - this.hitX, this.normalX) + Fixed.mul(y - this.hitY, this.normalY);
+            int gap = radius + THRESHOLD - distance;
+            x += Fixed.mul(gap, this.normalX);
+            y += Fixed.mul(gap, this.normalY);
+
+            ball.setCenter(Fixed.toDouble(x), Fixed.toDouble(y));
+            info.set(this.hitObject, this.hitPointX, this.hitPointY, this.hitEdge, Fixed.toDouble(t),
+                    Fixed.toDouble(this.normalX), Fixed.toDouble(this.normalY));
+            ball.hit(info);
+            if (!ball.isInGame()) {
+                break;
+            }
+        }
+        this.xs[slot] = x;
+        this.ys[slot] = y;
+        ball.setCenter(Fixed.toDouble(x), Fixed.toDouble(y));
+    }
+
+    /**
+     * Sweeps a circle against collidables near its movement, keeping the earliest impact.
+     * @param x fixed point circle center x value
+     * @param y fixed point circle center y value
+     * @param dx fixed point movement on x-axis
+     * @param dy fixed point movement on y-axis
+     * @param radius fixed point circle radius
+     * @return whether there is an impact before movement ends
+     */
+    private boolean sweep(int x, int y, int dx, int dy, int radius) {
+        int margin = radius + Fixed.ONE;
+        this.environment.collectCandidates(Fixed.toDouble(Math.min(x, x + dx) - margin),
+                Fixed.toDouble(Math.min(y, y + dy) - margin), Fixed.toDouble(Math.max(x, x + dx) + margin),
+                Fixed.toDouble(Math.max(y, y + dy) + margin), this.candidates);
+        this.bestTime = Fixed.ONE;
+        this.hitObject = null;
+        for (int i = 0; i < this.candidates.size(); i++) {
+            this.test(this.candidates.get(i).getCollisionRectangle(), x, y, dx, dy, radius);
+        }
+        return this.hitObject != null;
+    }
+
+    /**
+     * Sweeps a circle against a collidable's rectangle, keeping the impact if it's the earliest so far.
+     * Like Rectangle.sweepCircle, faces are tested first, and corners only when no face is hit.
+     * @param r collidable rectangle
+     * @param x fixed point circle center x value
+     * @param y fixed point circle center y value
+     * @param dx fixed point movement on x-axis
+     * @param dy fixed point movement on y-axis
+     * @param radius fixed point circle radius
+     */
+    private void test(Rectangle r, int x, int y, int dx, int dy, int radius) {
+        if (r.getWidth() <= 0 || r.getHeight() <= 0) {
+            return;
+        }
+        int minX = Fixed.of(r.getMinX()), minY = Fixed.of(r.getMinY());
+        int maxX = Fixed.of(r.getMaxX()), maxY = Fixed.of(r.getMaxY());
+
+        // Circle already overlapping, so it's pushed out through the face it penetrates least
+        long offX = x - Math.max(minX, Math.min(x, maxX));
+        long offY = y - Math.max(minY, Math.min(y, maxY));
+        if (offX * offX + offY * offY < (long) radius * radius) {
+            this.overlap(r, minX, minY, maxX, maxY, x, y, dx, dy, radius);
+            return;
+        }
+
+        // Faces, where movement must be toward the face
+        boolean face = false;
+        long t;
+        if (dx > 0 && (t = this.time(minX - radius - x, dx)) >= 0 && this.isEarlier(t, minX, minY)
+                && this.inside(y + Fixed.mul((int) t, dy), minY, maxY)) {
+            this.record(r, t, minX, minY, CollisionEdge.LEFT, minX, y + Fixed.mul((int) t, dy), -Fixed.ONE, 0);
+            face = true;
+        } else if (dx < 0 && (t = this.time(maxX + radius - x, dx)) >= 0 && this.isEarlier(t, minX, minY)
+                && this.inside(y + Fixed.mul((int) t, dy), minY, maxY)) {
+            this.record(r, t, minX, minY, CollisionEdge.RIGHT, maxX, y + Fixed.mul((int) t, dy), Fixed.ONE, 0);
+            face = true;
+        }
+        if (dy > 0 && (t = this.time(minY - radius - y, dy)) >= 0 && this.isEarlier(t, minX, minY)
+                && this.inside(x + Fixed.mul((int) t, dx), minX, maxX)) {
+            this.record(r, t, minX, minY, CollisionEdge.TOP, x + Fixed.mul((int) t, dx), minY, 0, -Fixed.ONE);
+            face = true;
+        } else if (dy < 0 && (t = this.time(maxY + radius - y, dy)) >= 0 && this.isEarlier(t, minX, minY)
+                && this.inside(x + Fixed.mul((int) t, dx), minX, maxX)) {
+            this.record(r, t, minX, minY, CollisionEdge.BOTTOM, x + Fixed.mul((int) t, dx), maxY, 0, Fixed.ONE);
+            face = true;
+        }
+        if (face) {
+            this.placeHitPoint(r);
+            return;
+        }
+
+        // Corners, only reachable when no face is hit
+        for (int i = 0; i < 4; i++) {
+            int cx = (i == 1 || i == 2) ? maxX : minX;
+            int cy = i < 2 ? minY : maxY;
+            t = this.cornerTime(x - cx, y - cy, dx, dy, radius);
+            if (t >= 0 && this.isEarlier(t, minX, minY)) {
+                int nx = Fixed.div(x + Fixed.mul((int) t, dx) - cx, radius);
+                int ny = Fixed.div(y + Fixed.mul((int) t, dy) - cy, radius);
+                this.record(r, t, minX, minY, CollisionEdge.CORNER, cx, cy, nx, ny);
+                this.hitPointX = cx == minX ? r.getMinX() : r.getMaxX();
+                this.hitPointY = cy == minY ? r.getMinY() : r.getMaxY();
+            }
+        }
+    }
+
+    /**
+     * Keeps a time 0 impact of a circle which overlaps a rectangle, if moving into it and earliest so far.
+     * @param r collidable rectangle
+     * @param minX fixed point rectangle left x value
+     * @param minY fixed point rectangle top y value
+     * @param maxX fixed point rectangle right x value
+     * @param maxY fixed point rectangle bottom y value
+     * @param x fixed point circle center x value
+     * @param y fixed point circle center y value
+     * @param dx fixed point movement on x-axis
+     * @param dy fixed point movement on y-axis
+     * @param radius fixed point circle radius
+     */
+    private void overlap(Rectangle r, int minX, int minY, int maxX, int maxY,
+                         int x, int y, int dx, int dy, int radius) {
+        if (!this.isEarlier(0, minX, minY)) {
+            return;
+        }
+        int left = x + radius - minX, right = maxX - x + radius;
+        int top = y + radius - minY, bottom = maxY - y + radius;
+        if (Math.min(left, right) <= Math.min(top, bottom)) {
+            boolean fromLeft = left <= right;
+            if (fromLeft ? dx <= 0 : dx >= 0) {
+                return;
+            }
+            this.record(r, 0, minX, minY, fromLeft ? CollisionEdge.LEFT : CollisionEdge.RIGHT,
+                    fromLeft ? minX : maxX, Math.max(minY, Math.min(y, maxY)), fromLeft ? -Fixed.ONE : Fixed.ONE, 0);
+        } else {
+            boolean fromTop = top <= bottom;
+            if (fromTop ? dy <= 0 : dy >= 0) {
+                return;
+            }
+            this.record(r, 0, minX, minY, fromTop ? CollisionEdge.TOP : CollisionEdge.BOTTOM,
+                    Math.max(minX, Math.min(x, maxX)), fromTop ? minY : maxY, 0, fromTop ? -Fixed.ONE : Fixed.ONE);
+        }
+        this.placeHitPoint(r);
+    }
+
+    /**
+     * Keeps an impact as the earliest so far.
+     * @param r collided rectangle
+     * @param t fixed point impact time, as a fraction of movement
+     * @param minX fixed point rectangle left x value
+     * @param minY fixed point rectangle top y value
+     * @param edge collided edge
+     * @param x fixed point contact x value
+     * @param y fixed point contact y value
+     * @param nx fixed point impact normal x value
+     * @param ny fixed point impact normal y value
+     */
+    private void record(Rectangle r, long t, int minX, int minY, CollisionEdge edge, int x, int y, int nx, int ny) {
+        this.bestTime = t;
+        this.hitObject = r;
+        this.hitMinX = minX;
+        this.hitMinY = minY;
+        this.hitEdge = edge;
+        this.hitX = x;
+        this.hitY = y;
+        this.normalX = nx;
+        this.normalY = ny;
+    }
+
+    /**
+     * Sets hit point of a face impact on the exact double edge of collided rectangle, off its corners,
+     * so the rectangle classifies it as that edge.
+     * @param r collided rectangle
+     */
+    private void placeHitPoint(Rectangle r) {
+        double x = Fixed.toDouble(this.hitX), y = Fixed.toDouble(this.hitY);
+        switch (this.hitEdge) {
+            case LEFT -> this.setHitPoint(r.getMinX(), Rectangle.offCorner(y, r.getMinY(), r.getMaxY()));
+            case RIGHT -> this.setHitPoint(r.getMaxX(), Rectangle.offCorner(y, r.getMinY(), r.getMaxY()));
+            case TOP -> this.setHitPoint(Rectangle.offCorner(x, r.getMinX(), r.getMaxX()), r.getMinY());
+            default -> this.setHitPoint(Rectangle.offCorner(x, r.getMinX(), r.getMaxX()), r.getMaxY());
+        }
+    }
+
+    /**
+     * Sets hit point passed to collided object.
+     * @param x hit point x value
+     * @param y hit point y value
+     */
+    private void setHitPoint(double x, double y) {
+        this.hitPointX = x;
+        this.hitPointY = y;
+    }
+
+    /**
+     * Checks if an impact comes before the earliest impact so far.
+     * Impacts at the same time are ordered by their rectangle's top left corner, so the order candidates are
+     * collected in doesn't matter.
+     * @param t fixed point impact time
+     * @param minX fixed point rectangle left x value
+     * @param minY fixed point rectangle top y value
+     * @return whether impact is earlier
+     */
+    private boolean isEarlier(long t, int minX, int minY) {
+        if (t != this.bestTime) {
+            return t < this.bestTime;
+        }
+        return this.hitObject != null && (minY < this.hitMinY || (minY == this.hitMinY && minX < this.hitMinX));
+    }
+
+    /**
+     * Calculates when a moving coordinate covers a distance.
+     * @param distance fixed point distance
+     * @param delta fixed point movement, which must not be 0
+     * @return fixed point time as a fraction of movement, which may be beyond int range
+     */
+    private long time(int distance, int delta) {
+        return ((long) distance << Fixed.FRACTION_BITS) / delta;
+    }
+
+    /**
+     * Calculates when a moving point first gets radius away from the origin.
+     * @param fx fixed point x value, relative to origin
+     * @param fy fixed point y value, relative to origin
+     * @param dx fixed point movement on x-axis
+     * @param dy fixed point movement on y-axis
+     * @param radius fixed point distance from origin
+     * @return fixed point time as a fraction of movement, or -1 if point doesn't get radius away from origin
+     */
+    private long cornerTime(int fx, int fy, int dx, int dy, int radius) {
+        // A corner farther than movement and radius can't be reached, which also keeps products below long range
+        if (Math.abs(fx) > Math.abs(dx) + radius || Math.abs(fy) > Math.abs(dy) + radius) {
+            return -1;
+        }
+        if ((long) fx * dx + (long) fy * dy >= 0) {
+            return -1; // Not moving toward corner
+        }
+
+        // Quadratic coefficients, scaled down from Q32.32 to Q16.16
+        long a = ((long) dx * dx + (long) dy * dy) >> Fixed.FRACTION_BITS;
+        long b = ((long) fx * dx + (long) fy * dy) >> Fixed.FRACTION_BITS;
+        long c = ((long) fx * fx + (long) fy * fy - (long) radius * radius) >> Fixed.FRACTION_BITS;
+        long discriminant = b * b - a * c;
+        if (a == 0 || discriminant < 0) {
+            return -1;
+        }
+        long t = ((-b - Fixed.sqrt(discriminant)) << Fixed.FRACTION_BITS) / a;
+        return t >= 0 && t <= Fixed.ONE ? t : -1;
+    }
+
+    /**
+     *
+     * @param v fixed point value
+     * @param min range start
+     * @param max range end
+     * @return whether value is strictly inside range, as range ends are corners
+     */
+    private boolean inside(int v, int min, int max) {
+        return v > min && v < max;
+    }
+
+    /**
+     *
+     * @return number of balls moved by this engine
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     *
+     * @param index ball index, by order of addition among balls still in game
+     * @return fixed point center x value of ball
+     */
+    public int getX(int index) {
+        return this.xs[index];
+    }
+
+    /**
+     *
+     * @param index ball index, by order of addition among balls still in game
+     * @return fixed point center y value of ball
+     */
+    public int getY(int index) {
+        return this.ys[index];
+    }
+}
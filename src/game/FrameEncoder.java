@@ -0,0 +1,238 @@
+package game;
+
+import objects.Ball;
+import objects.Block;
+import objects.Paddle;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes game state once per tick, for any number of spectators to read.
+ * Each tick is encoded as a delta against the previous one - paddles, moved balls, removed blocks and added
+ * blocks - and a keyframe of the whole state is encoded on demand, for spectators which join or fall behind.
+ * Every frame is a header and a body, which are kept in separate buffers so they're written with a single
+ * gathering write. Blocks are identified by ids given in order of addition.
+ * Header: body length (int), frame type (byte), tick (int) and score (int).
+ * Delta body: paddles count (int) and each paddle's x, y (floats), moved balls count (int) and each ball's
+ * index (int) and x, y (floats, NaN if ball left the game), removed blocks count (int) and their ids (ints),
+ * added blocks count (int) and each block's id (int), x, y, width, height (floats) and RGB (int).
+ * Keyframe body: paddles as in a delta, balls count (int) and each ball's x, y, and blocks as added blocks.
+ */
+public class FrameEncoder implements BlockListener {
+    public static final byte KEYFRAME = 1;
+    public static final byte DELTA = 2;
+    public static final int HEADER_SIZE = 13;
+    public static final int BLOCK_SIZE = 24;
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final Game game;
+    private final Map<Block, Integer> ids;
+    private int nextId;
+    private final List<Block> added;
+    private int[] removed;
+    private int removedCount;
+    // Ball positions sent on last delta, NaN for balls out of game
+    private float[] lastX;
+    private float[] lastY;
+
+    private final ByteBuffer[] delta;
+    private final ByteBuffer[] keyframe;
+    private boolean keyframeStale;
+
+    /**
+     * Constructs an encoder of a game's frames, which is told about game blocks from now on.
+     * @param game game, which is encoded after each tick
+     */
+    public FrameEncoder(Game game) {
+        this.game = game;
+        this.ids = new IdentityHashMap<>();
+        this.added = new ArrayList<>();
+        this.removed = new int[16];
+        this.lastX = new float[0];
+        this.lastY = new float[0];
+        this.delta = new ByteBuffer[] {ByteBuffer.allocateDirect(HEADER_SIZE),
+                ByteBuffer.allocateDirect(INITIAL_CAPACITY)};
+        this.keyframe = new ByteBuffer[] {ByteBuffer.allocateDirect(HEADER_SIZE),
+                ByteBuffer.allocateDirect(INITIAL_CAPACITY)};
+        this.keyframeStale = true;
+        game.addBlockListener(this);
+    }
+
+    @Override
+    public void blockAdded(Block block) {
+        this.ids.put(block, this.nextId++);
+        this.added.add(block);
+    }
+
+    @Override
+    public void blockRemoved(Block block) {
+        Integer id = this.ids.remove(block);
+        if (id == null) {
+            return;
+        }
+        // A block added and removed between two deltas isn't sent at all
+        for (int i = 0; i < this.added.size(); i++) {
+            if (this.added.get(i) == block) {
+                this.added.remove(i);
+                return;
+            }
+        }
+        if (this.removedCount == this.removed.length) {
+            this.removed = Arrays.copyOf(this.removed, 2 * this.removedCount);
+        }
+        this.removed[this.removedCount++] = id;
+    }
+
+    /**
+     * Encodes the delta of the tick just played, and marks the keyframe to be encoded again when asked for.
+     */
+    public void encode() {
+        List<Ball> balls = this.game.getBalls();
+        if (this.lastX.length < balls.size()) {
+            int old = this.lastX.length;
+            this.lastX = Arrays.copyOf(this.lastX, balls.size());
+            this.lastY = Arrays.copyOf(this.lastY, balls.size());
+            Arrays.fill(this.lastX, old, balls.size(), Float.NaN);
+            Arrays.fill(this.lastY, old, balls.size(), Float.NaN);
+        }
+
+        ByteBuffer body = this.ensure(this.delta, 4 + 8 * this.paddlesCount() + 4 + 12 * balls.size()
+                + 4 + 4 * this.removedCount + 4 + BLOCK_SIZE * this.added.size());
+        this.putPaddles(body);
+
+        // Moved balls count is filled in once balls are scanned
+        int countAt = body.position();
+        body.putInt(0);
+        int moved = 0;
+        for (int i = 0; i < balls.size(); i++) {
+            Ball ball = balls.get(i);
+            float x = ball.isInGame() ? (float) ball.getCenter().getX() : Float.NaN;
+            float y = ball.isInGame() ? (float) ball.getCenter().getY() : Float.NaN;
+            // Compared by bits, so a ball staying out of game isn't sent again
+            if (Float.floatToIntBits(x) != Float.floatToIntBits(this.lastX[i])
+                    || Float.floatToIntBits(y) != Float.floatToIntBits(this.lastY[i])) {
+                body.putInt(i).putFloat(x).putFloat(y);
+                this.lastX[i] = x;
+                this.lastY[i] = y;
+                moved++;
+            }
+        }
+        body.putInt(countAt, moved);
+
+        body.putInt(this.removedCount);
+        for (int i = 0; i < this.removedCount; i++) {
+            body.putInt(this.removed[i]);
+        }
+        this.removedCount = 0;
+        body.putInt(this.added.size());
+        for (int i = 0; i < this.added.size(); i++) {
+            this.putBlock(body, this.added.get(i));
+        }
+        this.added.clear();
+
+        this.finish(this.delta, DELTA);
+        this.keyframeStale = true;
+    }
+
+    /**
+     * Returns delta frame of last encoded tick, rewound so it can be written.
+     * @return header and body buffers
+     */
+    public ByteBuffer[] getDelta() {
+        this.delta[0].rewind();
+        this.delta[1].rewind();
+        return this.delta;
+    }
+
+    /**
+     * Returns keyframe of last encoded tick, encoding it on first call after each tick, rewound so it can be
+     * written. A spectator reading it may continue with the following deltas. Must be called after encode.
+     * @return header and body buffers
+     */
+    public ByteBuffer[] getKeyframe() {
+        if (this.keyframeStale) {
+            // Balls are taken as sent on last delta, so following deltas apply on top of them
+            ByteBuffer body = this.ensure(this.keyframe, 4 + 8 * this.paddlesCount() + 4 + 8 * this.lastX.length
+                    + 4 + BLOCK_SIZE * this.ids.size());
+            this.putPaddles(body);
+            body.putInt(this.lastX.length);
+            for (int i = 0; i < this.lastX.length; i++) {
+                body.putFloat(this.lastX[i]).putFloat(this.lastY[i]);
+            }
+            body.putInt(this.ids.size());
+            for (Block block : this.ids.keySet()) {
+                this.putBlock(body, block);
+            }
+            this.finish(this.keyframe, KEYFRAME);
+            this.keyframeStale = false;
+        }
+        this.keyframe[0].rewind();
+        this.keyframe[1].rewind();
+        return this.keyframe;
+    }
+
+    /**
+     *
+     * @return number of paddles in game
+     */
+    private int paddlesCount() {
+        Paddle[] paddles = this.game.getPaddles();
+        return paddles == null ? 0 : paddles.length;
+    }
+
+    /**
+     * Writes all paddles positions.
+     * @param body frame body
+     */
+    private void putPaddles(ByteBuffer body) {
+        Paddle[] paddles = this.game.getPaddles();
+        body.putInt(this.paddlesCount());
+        for (int i = 0; i < this.paddlesCount(); i++) {
+            body.putFloat((float) paddles[i].getMinX()).putFloat((float) paddles[i].getMinY());
+        }
+    }
+
+    /**
+     * Writes a block's id, bounds and color.
+     * @param body frame body
+     * @param block live block
+     */
+    private void putBlock(ByteBuffer body, Block block) {
+        body.putInt(this.ids.get(block));
+        body.putFloat((float) block.getMinX()).putFloat((float) block.getMinY());
+        body.putFloat((float) block.getWidth()).putFloat((float) block.getHeight());
+        body.putInt(block.getColor().getRGB());
+    }
+
+    /**
+     * Clears a frame's body, growing it to hold a given size first if needed.
+     * @param frame header and body buffers
+     * @param size body size needed
+     * @return cleared body
+     */
+    private ByteBuffer ensure(ByteBuffer[] frame, int size) {
+        if (frame[1].capacity() < size) {
+            frame[1] = ByteBuffer.allocateDirect(Math.max(size, 2 * frame[1].capacity()));
+        }
+        frame[1].clear();
+        return frame[1];
+    }
+
+    /**
+     * Flips a frame's body and writes its header.
+     * @param frame header and body buffers
+     * @param type frame type
+     */
+    private void finish(ByteBuffer[] frame, byte type) {
+        frame[1].flip();
+        frame[0].clear();
+        frame[0].putInt(frame[1].limit()).put(type)
+                .putInt((int) this.game.getStateHash().getTick()).putInt(this.game.getScore());
+        frame[0].flip();
+    }
+}
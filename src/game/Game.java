@@ -2,19 +2,36 @@ package game;
 
 import biuoop.DrawSurface;
 import biuoop.GUI;
+import biuoop.KeyboardSensor;
 import biuoop.Sleeper;
 import collisions.Collidable;
 import geometry.Point;
+import levels.ChunkStore;
+import levels.LevelReader;
+import levels.LevelSink;
+import metrics.CollisionMetrics;
+import metrics.FrameEvent;
+import metrics.FramePhase;
+import metrics.FrameProfiler;
+import metrics.GameEvents;
 import objects.Ball;
 import objects.Block;
 import objects.Paddle;
+import render.FrameCapture;
+import render.TiledSurface;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a game management object.
+ * Game is a level sink, so levels are streamed into it object by object.
  */
-public class Game {
+public class Game implements LevelSink {
     private final int width;
     private final int height;
     private final SpriteCollection sprites;
@@ -22,8 +39,16 @@ public class Game {
     private final Block[] borders;
     private final Block deathBlock;
     private final int deathBlockThreshold = 5;
-    private final Ball[] balls;
+    private final List<Ball> balls;
     private final int borderSize = 30;
+    private static final Color BACKGROUND_COLOR = Color.BLUE.darker().darker();
+    // Broadphase grid cell size, a few blocks wide
+    private static final double CELL_SIZE = 64;
+    // Distance between left edges of adjacent players' paddles
+    private static final int PADDLE_SPACING = 250;
+    private static final Color[] PADDLE_COLORS = {Color.ORANGE, Color.PINK, Color.GREEN, Color.YELLOW};
+    // Score added once all blocks are cleared
+    private static final int WIN_SCORE = 100;
 
     // Counters and trackers
     private final Counter remainingBlocks;
@@ -33,6 +58,21 @@ public class Game {
     private final Counter scoreCounter;
     private final ScoreTrackingListener scoreTracker;
     private final ScoreIndicator scoreIndicator;
+    private final FrameProfiler profiler;
+    private final StateHash stateHash;
+    private final List<BlockListener> blockListeners;
+    // Paddle of each player, null until game is started
+    private Paddle[] paddles;
+    // Streams blocks of huge levels in and out, null if all blocks are loaded up front
+    private ChunkedWorld world;
+    // Moves balls from impact to impact once game starts, null if balls are moved tick by tick
+    private EventEngine engine;
+    private boolean eventDriven;
+    private FixedPointEngine fixedEngine;
+    private boolean fixedPoint;
+    // Captures frames drawn by run, null if frames aren't captured
+    private FrameCapture capture;
+    private TiledSurface captureSurface;
 
     /**
      * Constructor for game.
@@ -40,9 +80,19 @@ public class Game {
      * @param height screen height
      */
     public Game(int width, int height) {
+        this(width, height, 35);
+    }
+
+    /**
+     * Constructor for game with a given number of balls.
+     * @param width screen width
+     * @param height screen height
+     * @param ballsCount number of balls
+     */
+    public Game(int width, int height, int ballsCount) {
         this.width = width;
         this.height = height;
-        this.environment = new GameEnvironment();
+        this.environment = new GameEnvironment(CELL_SIZE);
         this.sprites = new SpriteCollection();
 
         // Keeping track blocks, balls and score
@@ -54,6 +104,9 @@ public class Game {
         this.scoreTracker = new ScoreTrackingListener(scoreCounter);
         int scoreHeight = 20;
         this.scoreIndicator = new ScoreIndicator(new Block(new Point(0, 0), width, scoreHeight), scoreCounter);
+        this.profiler = new FrameProfiler();
+        this.stateHash = new StateHash();
+        this.blockListeners = new ArrayList<>();
 
         // Borders
         this.borders = new Block[]{
@@ -67,14 +120,218 @@ public class Game {
         this.deathBlock = new Block(new Point(borderSize, height - borderSize + deathBlockThreshold),
                 width - 2 * borderSize, borderSize - deathBlockThreshold);
 
-        // Balls
-        int ballsCount = 35;
-        this.balls = new Ball[ballsCount];
+        // Balls, lined up in rows from the bottom right
+        int ballsSpace = 15;
+        int ballsPerRow = Math.max(1, (width - 2 * borderSize - 60) / ballsSpace);
+        this.balls = new ArrayList<>(ballsCount);
         for (int i = 0; i < ballsCount; i++) {
-            this.balls[i] = new Ball(width - 90 - 15 * i, height - 100, 5, Color.WHITE);
-            this.balls[i].setVelocity(3, -5);
-            this.balls[i].setEnvironment(this.environment);
-            this.balls[i].addToGame(this);
+            int x = width - 90 - ballsSpace * (i % ballsPerRow);
+            int y = height - 100 - ballsSpace * (i / ballsPerRow);
+            this.addBall(x, y, 3, -5);
+        }
+    }
+
+    /**
+     * Loads a game from a level file, streaming its objects into the game as they are read.
+     * @param path level file path, in text or binary form
+     * @return initialized game, with the level's size, balls and blocks
+     * @throws IOException if level couldn't be read or is malformed
+     */
+    public static Game load(Path path) throws IOException {
+        try (LevelReader reader = LevelReader.open(path)) {
+            Game game = new Game(reader.getWidth(), reader.getHeight(), 0);
+            game.initialize(reader);
+            return game;
+        }
+    }
+
+    /**
+     * Loads a game from a chunk store. Balls are loaded right away, and blocks are streamed in and out
+     * of the game by chunks, as balls and paddle move.
+     * @param path chunk store path
+     * @return initialized game, with the store's size and balls, and all blocks counted as remaining
+     * @throws IOException if store couldn't be read or is malformed
+     */
+    public static Game loadChunked(Path path) throws IOException {
+        ChunkStore store = new ChunkStore(path);
+        try {
+            Game game = new Game(store.getWidth(), store.getHeight(), 0);
+            game.initializeBorders();
+            store.readBalls(game);
+            game.world = new ChunkedWorld(game, store);
+            game.remainingBlocks.increase((int) store.getAliveBlocks());
+            game.world.update();
+            return game;
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+    }
+
+    /**
+     *
+     * @return chunked world streaming this game's blocks, or null if game isn't chunked
+     */
+    public ChunkedWorld getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Sets whether balls are moved by an event engine rather than tick by tick, must be called before start.
+     * @param eventDriven whether balls are moved by an event engine
+     */
+    public void setEventDriven(boolean eventDriven) {
+        this.eventDriven = eventDriven;
+    }
+
+    /**
+     * Sets whether balls are moved in fixed point, so the game plays the same on every JVM, must be called before
+     * start. Takes precedence over moving balls by an event engine.
+     * @param fixedPoint whether balls are moved in fixed point
+     */
+    public void setFixedPoint(boolean fixedPoint) {
+        this.fixedPoint = fixedPoint;
+    }
+
+    /**
+     *
+     * @return fixed point engine moving this game's balls, or null if balls aren't moved in fixed point
+     */
+    public FixedPointEngine getFixedPointEngine() {
+        return this.fixedEngine;
+    }
+
+    /**
+     *
+     * @return event engine moving this game's balls, or null if balls are moved tick by tick
+     */
+    public EventEngine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Sets a capture every frame drawn by run is offered to, which is closed once game is over.
+     * Frames the capture wants are drawn a second time for capture, into a framebuffer of the game's size which
+     * is rasterized by tiles in parallel.
+     * @param capture frame capture of game's size, or null to capture no frames
+     */
+    public void setCapture(FrameCapture capture) {
+        this.capture = capture;
+        this.captureSurface = capture == null ? null : new TiledSurface(this.width, this.height);
+    }
+
+    /**
+     *
+     * @return game environment
+     */
+    GameEnvironment getEnvironment() {
+        return this.environment;
+    }
+
+    /**
+     *
+     * @return all balls of game, including balls which were removed
+     */
+    List<Ball> getBalls() {
+        return this.balls;
+    }
+
+    /**
+     *
+     * @return number of balls added to game, including balls which were removed
+     */
+    public int getBallCount() {
+        return this.balls.size();
+    }
+
+    /**
+     * Returns a ball by order of addition.
+     * @param i ball index, less than ball count
+     * @return ball, which may have been removed from game
+     */
+    public Ball getBall(int i) {
+        return this.balls.get(i);
+    }
+
+    /**
+     *
+     * @return first player's paddle, or null if game wasn't started
+     */
+    Paddle getPaddle() {
+        return this.paddles == null ? null : this.paddles[0];
+    }
+
+    /**
+     * Returns a player's paddle.
+     * @param player player index, less than number of keyboards game was started with
+     * @return player's paddle
+     */
+    public Paddle getPaddle(int player) {
+        return this.paddles[player];
+    }
+
+    /**
+     *
+     * @return paddles of all players, or null if game wasn't started
+     */
+    Paddle[] getPaddles() {
+        return this.paddles;
+    }
+
+    @Override
+    public void addBall(double x, double y, double dx, double dy) {
+        Ball ball = new Ball(x, y, 5, Color.WHITE);
+        ball.setVelocity(dx, dy);
+        ball.setEnvironment(this.environment);
+        ball.addToGame(this);
+        this.balls.add(ball);
+        // Balls added once game has started are counted right away
+        if (this.paddles != null) {
+            ball.setPaddles(this.paddles);
+            this.remainingBalls.increase(1);
+        }
+        if (this.engine != null) {
+            this.engine.addBall(ball);
+        }
+        if (this.fixedEngine != null) {
+            this.fixedEngine.addBall(ball);
+        }
+    }
+
+    @Override
+    public void addBlock(double x, double y, double width, double height, Color color) {
+        this.createBlock(x, y, width, height, color);
+        this.remainingBlocks.increase(1);
+    }
+
+    /**
+     * Creates a destructible block and adds it to the game, without counting it as a remaining block.
+     * @param x x value of block's top left corner
+     * @param y y value of block's top left corner
+     * @param width block width
+     * @param height block height
+     * @param color block color
+     * @return created block
+     */
+    Block createBlock(double x, double y, double width, double height, Color color) {
+        Block block = new Block(new Point(x, y), width, height);
+        block.addToGame(this);
+        block.setColor(color);
+        block.addHitListener(this.blockRemover);
+        block.addHitListener(this.scoreTracker);
+        return block;
+    }
+
+    /**
+     * Removes many blocks from the game at once, without counting them as destroyed.
+     * @param blocks blocks to remove
+     */
+    void removeBlocks(Set<Block> blocks) {
+        this.sprites.removeSprites(blocks);
+        this.environment.removeCollidables(blocks);
+        for (Block block : blocks) {
+            this.stateHash.removeRectangle(block);
+            this.notifyBlockRemoved(block);
         }
     }
 
@@ -84,6 +341,12 @@ public class Game {
      */
     public void addCollidable(Collidable c) {
         this.environment.addCollidable(c);
+        this.stateHash.addRectangle(c.getCollisionRectangle());
+        if (c instanceof Block) {
+            for (int i = 0; i < this.blockListeners.size(); i++) {
+                this.blockListeners.get(i).blockAdded((Block) c);
+            }
+        }
     }
 
     /**
@@ -92,6 +355,35 @@ public class Game {
      */
     public void removeCollidable(Collidable c) {
         this.environment.removeCollidable(c);
+        this.stateHash.removeRectangle(c.getCollisionRectangle());
+        if (c instanceof Block) {
+            this.notifyBlockRemoved((Block) c);
+        }
+    }
+
+    /**
+     * Notifies block listeners that a block was removed.
+     * @param block removed block
+     */
+    private void notifyBlockRemoved(Block block) {
+        for (int i = 0; i < this.blockListeners.size(); i++) {
+            this.blockListeners.get(i).blockRemoved(block);
+        }
+    }
+
+    /**
+     * Adds a listener to blocks being added to and removed from the game, which is told about the blocks already
+     * in game right away.
+     * @param listener block listener
+     */
+    public void addBlockListener(BlockListener listener) {
+        this.blockListeners.add(listener);
+        // Score indicator is a block sprite, but isn't a collidable block of the game
+        for (int i = 0; i < this.sprites.size(); i++) {
+            if (this.sprites.get(i) instanceof Block && this.sprites.get(i) != this.scoreIndicator) {
+                listener.blockAdded((Block) this.sprites.get(i));
+            }
+        }
     }
 
     /**
@@ -110,10 +402,69 @@ public class Game {
         this.sprites.removeSprite(s);
     }
 
+    /**
+     *
+     * @return hash of game state, taken at the end of every tick
+     */
+    public StateHash getStateHash() {
+        return this.stateHash;
+    }
+
+    /**
+     *
+     * @return profiler of game loop phases
+     */
+    public FrameProfiler getFrameProfiler() {
+        return this.profiler;
+    }
+
     /**
      * Creates all game objects and adds them to the game.
      */
     public void initialize() {
+        this.initialize(6, 12);
+    }
+
+    /**
+     * Creates all game objects and adds them to the game.
+     * Blocks are stacked in rows, each row has one block less than the row above it.
+     * Blocks shrink when given rows and columns don't fit in the screen.
+     * @param rows number of block rows
+     * @param initialCols number of blocks in the top row
+     */
+    public void initialize(int rows, int initialCols) {
+        this.initializeBorders();
+
+        // Blocks
+        Color[] colors = new Color[]{Color.RED.darker(), Color.CYAN, Color.MAGENTA,
+                Color.BLUE.brighter(), Color.PINK, Color.GREEN};
+        int top = this.borderSize + 100;
+        double blockWidth = Math.min(50, (double) (this.width - 2 * this.borderSize) / initialCols);
+        double blockHeight = Math.min(20, (double) (this.height / 2 - top) / rows);
+        for (int i = 0; i < rows; i++) {
+            int cols = Math.max(1, initialCols - i);
+            double y = top + (i * blockHeight);
+            for (int j = 0; j < cols; j++) {
+                double x = this.width - this.borderSize - ((j + 1) * blockWidth);
+                this.addBlock(x, y, blockWidth, blockHeight, colors[i % colors.length]);
+            }
+        }
+    }
+
+    /**
+     * Creates borders and adds all level objects to the game, as they are read.
+     * @param level level reader, of a level with the same size as this game
+     * @throws IOException if level couldn't be read or is malformed
+     */
+    public void initialize(LevelReader level) throws IOException {
+        this.initializeBorders();
+        level.readInto(this);
+    }
+
+    /**
+     * Adds borders and death block to the game.
+     */
+    private void initializeBorders() {
         // Borders
         for (int i = 0; i < this.borders.length; i++) {
             if (i != 2) {
@@ -129,107 +480,233 @@ public class Game {
         this.deathBlock.setColor(Color.GRAY);
         this.deathBlock.setPassiveColor();
         this.deathBlock.setNoBorders();
+    }
 
-        // Blocks
-        Color[] colors = new Color[]{Color.RED.darker(), Color.CYAN, Color.MAGENTA,
-                Color.BLUE.brighter(), Color.PINK, Color.GREEN};
-        int blockWidth = 50;
-        int blockHeight = 20;
-        int initialCols = 12;
-        for (int i = 0; i < colors.length; i++) {
-            int cols = initialCols - i;
-            int y = this.borderSize + 100 + (i * blockHeight);
-            for (int j = 0; j < cols; j++) {
-                int x = this.width - this.borderSize - ((j + 1) * blockWidth);
-                Block block = new Block(new Point(x, y), blockWidth, blockHeight);
-                block.addToGame(this);
-                block.setColor(colors[i]);
-                block.addHitListener(this.blockRemover);
-                block.addHitListener(this.scoreTracker);
+    /**
+     * Creates a paddle for each player and adds the remaining objects to the game, must be called once before
+     * first tick. Paddles are placed side by side from the bottom right, in players order.
+     * @param keyboards keyboard sensor which controls the paddle of each player, at least one
+     */
+    public void start(KeyboardSensor... keyboards) {
+        // Paddles setup
+        this.paddles = new Paddle[keyboards.length];
+        for (int i = 0; i < keyboards.length; i++) {
+            double x = Math.max(borderSize, this.width - 200 - borderSize - i * PADDLE_SPACING);
+            Paddle paddle = new Paddle(keyboards[i], new Point(x, this.height - 30 - borderSize), 200, 30);
+            paddle.setXBounds(borderSize, this.width - borderSize);
+            // Paddle is moved and drawn by the game itself, so it isn't added as a sprite
+            this.environment.addMovingCollidable(paddle);
+            paddle.setColor(PADDLE_COLORS[i % PADDLE_COLORS.length]);
+            paddle.setPassiveColor();
+            this.paddles[i] = paddle;
+        }
+
+        for (int i = 0; i < this.balls.size(); i++) {
+            this.balls.get(i).setPaddles(this.paddles);
+        }
+        this.remainingBalls.increase(this.balls.size());
+        if (this.fixedPoint) {
+            this.fixedEngine = new FixedPointEngine(this.environment);
+            for (int i = 0; i < this.balls.size(); i++) {
+                this.fixedEngine.addBall(this.balls.get(i));
+            }
+        } else if (this.eventDriven) {
+            // Paddles share their rows, so the first one stands for all
+            this.engine = new EventEngine(this.environment, this.paddles[0]);
+            for (int i = 0; i < this.balls.size(); i++) {
+                this.engine.addBall(this.balls.get(i));
             }
-            this.remainingBlocks.increase(cols);
         }
+
+        // Score indicator, with texts of all reachable scores built before play
+        this.scoreIndicator.prepareTexts(this.scoreCounter.getValue()
+                + ScoreTrackingListener.HIT_SCORE * this.remainingBlocks.getValue() + WIN_SCORE);
+        this.scoreIndicator.addToGame(this);
+    }
+
+    /**
+     * Plays a single game tick - chunks around balls and paddles are streamed first, then paddles move,
+     * then balls of the fixed point or event engine if there is one, then all sprites, and then state is hashed.
+     * Temporary objects handed out by the environment arena during the tick are taken back at its end.
+     * A tick played while no profiler frame is open, as headless callers do, is profiled as a frame of its own.
+     */
+    public void tick() {
+        boolean ownFrame = !this.profiler.isFrameOpen();
+        if (ownFrame) {
+            this.profiler.startFrame();
+        }
+        if (this.world != null) {
+            this.world.update();
+        }
+        for (int i = 0; i < this.paddles.length; i++) {
+            this.paddles[i].timePassed();
+        }
+        this.profiler.mark(FramePhase.INPUT);
+        if (this.engine != null) {
+            this.engine.advance(1);
+        }
+        if (this.fixedEngine != null) {
+            this.fixedEngine.step();
+        }
+        this.sprites.notifyAllTimePassed();
+        this.stateHash.update(this.balls, this.paddles, this.scoreCounter.getValue(),
+                this.remainingBalls.getValue(), this.remainingBlocks.getValue());
+        this.environment.getArena().reset();
+        this.profiler.mark(FramePhase.TIME_PASSED);
+        if (ownFrame) {
+            this.profiler.endFrame();
+        }
+    }
+
+    /**
+     * Draws the screen, borders and all sprites.
+     * @param d draw surface
+     */
+    public void drawOn(DrawSurface d) {
+        this.deathBlock.drawOn(d);
+        d.setColor(BACKGROUND_COLOR);
+        d.fillRectangle(0, 0, this.width, this.height);
+        for (int i = 0; i < this.borders.length; i++) {
+            this.borders[i].drawOn(d);
+        }
+        this.sprites.drawAllOn(d);
+        for (int i = 0; i < this.paddles.length; i++) {
+            this.paddles[i].drawOn(d);
+        }
+    }
+
+    /**
+     *
+     * @return whether game is over, either all blocks or all balls are gone
+     */
+    public boolean isOver() {
+        return this.remainingBlocks.getValue() == 0 || this.remainingBalls.getValue() == 0;
+    }
+
+    /**
+     *
+     * @return number of balls still in game
+     */
+    public int getRemainingBalls() {
+        return this.remainingBalls.getValue();
+    }
+
+    /**
+     *
+     * @return number of blocks still in game
+     */
+    public int getRemainingBlocks() {
+        return this.remainingBlocks.getValue();
+    }
+
+    /**
+     *
+     * @return screen width
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     *
+     * @return screen height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     *
+     * @return current game score
+     */
+    public int getScore() {
+        return this.scoreCounter.getValue();
     }
 
     /**
      * Run the game.
      */
     public void run() {
+        CollisionMetrics.registerMBean();
+
         // GUI setup
         GUI gui = new GUI("Arkanoid", this.width, this.height);
         Sleeper sleeper = new Sleeper();
         int framesPerSecond = 60;
         int millisecondsPerFrame = 1000 / framesPerSecond;
-
-        // Paddle setup
-        Paddle paddle = new Paddle(
-                gui.getKeyboardSensor(),
-                new Point(this.width - 200 - borderSize, this.height - 30 - borderSize), 200, 30);
-        paddle.setXBounds(borderSize, this.width - borderSize);
-        paddle.addToGame(this);
-        paddle.setColor(Color.ORANGE);
-        paddle.setPassiveColor();
-
-        // Add ball after paddle, to force paddle move before ball
-        for (int i = 0; i < this.balls.length; i++) {
-            this.balls[i].setPaddle(paddle);
-        }
-        this.remainingBalls.increase(this.balls.length);
-
-        // Score indicator
-        this.scoreIndicator.addToGame(this);
+        this.start(gui.getKeyboardSensor());
 
         // Animation loop
+        long frame = 0;
         while (true) {
-            long startTime = System.currentTimeMillis();
-            DrawSurface d = gui.getDrawSurface();
-
-            // Screen and borders
-            this.deathBlock.drawOn(d);
-            d.setColor(Color.BLUE.darker().darker());
-            d.fillRectangle(0, 0, this.width, this.height);
-            for (int i = 0; i < this.borders.length; i++) {
-                this.borders[i].drawOn(d);
+            FrameEvent frameEvent = null;
+            if (GameEvents.isRecording()) {
+                frameEvent = new FrameEvent();
+                frameEvent.begin();
             }
+            this.profiler.startFrame();
+            long startTime = System.currentTimeMillis();
 
-            // Sprites - notify, then draw
-            this.sprites.notifyAllTimePassed();
-            this.sprites.drawAllOn(d);
+            // Paddle and sprites move, then everything is drawn
+            this.tick();
+            DrawSurface d = gui.getDrawSurface();
+            this.drawOn(d);
+            this.profiler.mark(FramePhase.DRAW);
             gui.show(d);
+            this.profiler.mark(FramePhase.SHOW);
+            // Frames which capture would skip or drop aren't drawn for it
+            if (this.capture != null && this.capture.wantsFrame()) {
+                this.drawOn(this.captureSurface);
+                this.captureSurface.render();
+                this.capture.capture(this.captureSurface.getPixels());
+                this.profiler.mark(FramePhase.CAPTURE);
+            }
 
             // Game finish check (win / lose)
-            boolean noBlocks = this.remainingBlocks.getValue() == 0;
-            if (noBlocks || this.remainingBalls.getValue() == 0) {
+            if (this.isOver()) {
+                boolean noBlocks = this.remainingBlocks.getValue() == 0;
                 if (noBlocks) {
-                    this.scoreCounter.increase(100);
+                    this.scoreCounter.increase(WIN_SCORE);
+                    // Balls are given new velocities, so they're moved tick by tick from now on
+                    if (this.engine != null) {
+                        this.engine.stop();
+                        this.engine = null;
+                    }
+                    if (this.fixedEngine != null) {
+                        this.fixedEngine.stop();
+                        this.fixedEngine = null;
+                    }
 
                     int endGameVel = 1;
-                    for (int i = 0; i < this.balls.length; i++) {
+                    for (int i = 0; i < this.balls.size(); i++) {
                         switch (i % 4) {
                             case 0:
-                                this.balls[i].setVelocity(endGameVel, -endGameVel);
+                                this.balls.get(i).setVelocity(endGameVel, -endGameVel);
                                 break;
                             case 1:
-                                this.balls[i].setVelocity(endGameVel, endGameVel);
+                                this.balls.get(i).setVelocity(endGameVel, endGameVel);
                                 break;
                             case 2:
-                                this.balls[i].setVelocity(-endGameVel, endGameVel);
+                                this.balls.get(i).setVelocity(-endGameVel, endGameVel);
                                 break;
                             default:
-                                this.balls[i].setVelocity(-endGameVel, -endGameVel);
+                                this.balls.get(i).setVelocity(-endGameVel, -endGameVel);
                         }
                     }
 
                     for (int i = 0; i < 300; i++) {
                         DrawSurface d2 = gui.getDrawSurface();
-                        d2.setColor(Color.BLUE.darker().darker());
+                        d2.setColor(BACKGROUND_COLOR);
                         d2.fillRectangle(0, 0, this.width, this.height);
                         for (int j = 0; j < this.borders.length; j++) {
                             this.borders[j].drawOn(d2);
                         }
-                        paddle.rotateUpward();
-                        paddle.drawOn(d2);
+                        for (int j = 0; j < this.paddles.length; j++) {
+                            this.paddles[j].rotateUpward();
+                            this.paddles[j].drawOn(d2);
+                        }
                         this.sprites.notifyAllTimePassed();
+                        this.environment.getArena().reset();
                         this.sprites.drawAllOn(d2);
                         gui.show(d2);
                         sleeper.sleepFor(8);
@@ -237,6 +714,22 @@ public class Game {
                 }
                 String message = noBlocks ? "You Win!" : "Game Over.";
                 System.out.println(message + "\nYour score is: " + this.scoreCounter.getValue());
+                System.out.print(this.profiler.report());
+                if (this.capture != null) {
+                    try {
+                        this.capture.close();
+                    } catch (IOException e) {
+                        System.out.println("Couldn't capture frames: " + e.getMessage());
+                    }
+                    System.out.print(this.capture.report());
+                }
+                if (this.world != null) {
+                    try {
+                        this.world.close();
+                    } catch (IOException e) {
+                        System.out.println("Couldn't save level: " + e.getMessage());
+                    }
+                }
                 gui.close();
                 return;
             }
@@ -247,6 +740,13 @@ public class Game {
             if (milliSecondLeftToSleep > 0) {
                 sleeper.sleepFor(milliSecondLeftToSleep);
             }
+            this.profiler.mark(FramePhase.SLEEP);
+            this.profiler.endFrame();
+            if (frameEvent != null) {
+                frameEvent.set(frame, this.sprites.size());
+                frameEvent.commit();
+            }
+            frame++;
         }
     }
 }
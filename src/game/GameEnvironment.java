@@ -1,35 +1,100 @@
 package game;
 
 import collisions.Collidable;
+import collisions.CollisionArena;
 import collisions.CollisionEdge;
 import collisions.CollisionInfo;
 import geometry.Line;
 import geometry.Point;
 import geometry.Rectangle;
+import metrics.CollisionMetrics;
+import metrics.CollisionQueryEvent;
+import metrics.GameEvents;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a game environment.
+ * Static collidables are kept either in a list, which every query scans, or in a uniform grid broadphase.
+ * Moving collidables, like the paddle, are kept in a separate list which every query scans.
  */
 public class GameEnvironment {
     private final List<Collidable> collidables;
+    private final List<Collidable> moving;
+    // Broadphase of static collidables, null if they're kept in the collidables list
+    private final UniformGrid grid;
     public static final double COLLISION_THRESHOLD = 0.1;
+    private static final CollisionMetrics METRICS = CollisionMetrics.getInstance();
+    // Number of broadphase candidates of the last query, and how many of them were tested
+    private int lastCandidates;
+    private int lastTests;
+    // Distance the circle of the last swept query could move from its start without touching a static collidable
+    private double lastClearance;
+    // Reused by queries, holds current intersection point
+    private final Point intersection;
+    // Temporaries of objects moving in this environment, reset at the end of every tick
+    private final CollisionArena arena;
+    // Counts of collidable additions and removals, so cached predictions can tell they're outdated
+    private long additions;
+    private long removals;
 
     /**
-     * Constructor of game environment.
+     * Constructor of game environment, which scans all collidables on every query.
      */
     public GameEnvironment() {
+        this(null);
+    }
+
+    /**
+     * Constructor of game environment, which keeps static collidables in a uniform grid.
+     * @param cellSize grid cell width and height
+     */
+    public GameEnvironment(double cellSize) {
+        this(new UniformGrid(cellSize));
+    }
+
+    /**
+     * Constructor of game environment with a given broadphase.
+     * @param grid broadphase of static collidables, or null to keep them in a list
+     */
+    private GameEnvironment(UniformGrid grid) {
         this.collidables = new ArrayList<>();
+        this.moving = new ArrayList<>();
+        this.grid = grid;
+        this.intersection = new Point(0, 0);
+        this.arena = new CollisionArena();
     }
 
     /**
-     * Add given collidable to environment.
-     * @param c collidable to be added
+     *
+     * @return arena of temporary objects, valid until the end of current tick
+     */
+    public CollisionArena getArena() {
+        return this.arena;
+    }
+
+    /**
+     * Add given static collidable to environment.
+     * @param c collidable to be added, which must not move while in environment
      */
     public void addCollidable(Collidable c) {
-        collidables.add(c);
+        if (this.grid != null) {
+            this.grid.add(c);
+        } else {
+            collidables.add(c);
+        }
+        this.additions++;
+    }
+
+    /**
+     * Add given moving collidable to environment, which is tested by every query.
+     * @param c collidable to be added
+     */
+    public void addMovingCollidable(Collidable c) {
+        this.moving.add(c);
+        this.additions++;
     }
 
     /**
@@ -37,7 +102,70 @@ public class GameEnvironment {
      * @param c collidable to be removed
      */
     public void removeCollidable(Collidable c) {
-        collidables.remove(c);
+        if (!this.moving.remove(c)) {
+            if (this.grid != null) {
+                this.grid.remove(c);
+            } else {
+                collidables.remove(c);
+            }
+        }
+        this.removals++;
+    }
+
+    /**
+     * Removes all given collidables from environment, in a single pass.
+     * @param c collidables to be removed
+     */
+    public void removeCollidables(Set<? extends Collidable> c) {
+        this.moving.removeIf(c::contains);
+        if (this.grid != null) {
+            for (Collidable collidable : c) {
+                this.grid.remove(collidable);
+            }
+        } else {
+            collidables.removeIf(c::contains);
+        }
+        this.removals++;
+    }
+
+    /**
+     * Collects collidables which may overlap a box, which are all moving collidables and static ones near the box.
+     * A collidable may be collected more than once.
+     * @param minX box left x value
+     * @param minY box top y value
+     * @param maxX box right x value
+     * @param maxY box bottom y value
+     * @param out list which is cleared, then collidables are added to
+     */
+    public void collectCandidates(double minX, double minY, double maxX, double maxY, List<Collidable> out) {
+        // Added one by one, as adding a whole list copies it into a new array
+        out.clear();
+        if (this.grid != null) {
+            this.grid.collect(minX, minY, maxX, maxY, out);
+        } else {
+            for (int i = 0; i < this.collidables.size(); i++) {
+                out.add(this.collidables.get(i));
+            }
+        }
+        for (int i = 0; i < this.moving.size(); i++) {
+            out.add(this.moving.get(i));
+        }
+    }
+
+    /**
+     *
+     * @return number of times collidables were added to this environment
+     */
+    public long getAdditions() {
+        return this.additions;
+    }
+
+    /**
+     *
+     * @return number of times collidables were removed from this environment
+     */
+    public long getRemovals() {
+        return this.removals;
     }
 
     /**
@@ -47,16 +175,184 @@ public class GameEnvironment {
      * @return collision info if there is a collision, else null
      */
     public CollisionInfo getClosestCollision(Line movement) {
-        for (int i = 0; i < collidables.size(); i++) {
-            Rectangle rectangle = collidables.get(i).getCollisionRectangle();
-            Point intersection = movement.closestIntersectionToStartOfLine(rectangle);
-            if (intersection != null) {
-                CollisionEdge edge = rectangle.getCollisionEdge(intersection);
-                return new CollisionInfo(rectangle, intersection, edge);
+        CollisionInfo info = new CollisionInfo();
+        return this.getClosestCollision(movement, info) ? info : null;
+    }
+
+    /**
+     * Finds the closest collision without allocating, by filling a given collision info.
+     * Assumes object moves from movement start to movement end.
+     * @param movement line which describes object movement
+     * @param out collision info which is set if there is a collision
+     * @return whether there is a collision
+     */
+    public boolean getClosestCollision(Line movement, CollisionInfo out) {
+        if (!GameEvents.isRecording()) {
+            return this.findClosestCollision(movement, out);
+        }
+
+        CollisionQueryEvent event = new CollisionQueryEvent();
+        event.begin();
+        boolean found = this.findClosestCollision(movement, out);
+        event.set(this.lastCandidates, found);
+        event.commit();
+        return found;
+    }
+
+    /**
+     * Finds the earliest impact of a moving circle with any collidable, by filling a given collision info.
+     * @param x circle center x value
+     * @param y circle center y value
+     * @param dx circle movement on x-axis
+     * @param dy circle movement on y-axis
+     * @param radius circle radius
+     * @param out collision info which is set if there is an impact, with time as a fraction of movement
+     * @return whether there is an impact
+     */
+    public boolean getEarliestImpact(double x, double y, double dx, double dy, double radius, CollisionInfo out) {
+        if (!GameEvents.isRecording()) {
+            return this.findEarliestImpact(x, y, dx, dy, radius, out);
+        }
+
+        CollisionQueryEvent event = new CollisionQueryEvent();
+        event.begin();
+        boolean found = this.findEarliestImpact(x, y, dx, dy, radius, out);
+        event.set(this.lastCandidates, found);
+        event.commit();
+        return found;
+    }
+
+    /**
+     * Sweeps a circle against all collidables, keeping the earliest impact, and measures its clearance.
+     * @param x circle center x value
+     * @param y circle center y value
+     * @param dx circle movement on x-axis
+     * @param dy circle movement on y-axis
+     * @param radius circle radius
+     * @param out collision info which is set if there is an impact
+     * @return whether there is an impact
+     */
+    private boolean findEarliestImpact(double x, double y, double dx, double dy, double radius, CollisionInfo out) {
+        boolean found;
+        if (this.grid != null) {
+            found = this.grid.sweep(x, y, dx, dy, radius, Double.POSITIVE_INFINITY, out);
+            this.lastCandidates = this.grid.getCandidates();
+            this.lastTests = this.grid.getTested();
+            this.lastClearance = this.grid.getClearance();
+        } else {
+            found = false;
+            double limit = Double.POSITIVE_INFINITY;
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < collidables.size(); i++) {
+                Rectangle rectangle = collidables.get(i).getCollisionRectangle();
+                nearest = Math.min(nearest, UniformGrid.distance(rectangle, x, y));
+                if (rectangle.sweepCircle(x, y, dx, dy, radius, limit, out)) {
+                    found = true;
+                    limit = out.getTime();
+                }
             }
+            this.lastCandidates = collidables.size();
+            this.lastTests = this.lastCandidates;
+            this.lastClearance = nearest - radius;
         }
+        double limit = found ? out.getTime() : Double.POSITIVE_INFINITY;
+        found |= this.findEarliestMovingImpact(x, y, dx, dy, radius, limit, out);
+        this.lastCandidates += this.moving.size();
+        this.lastTests += this.moving.size();
+        METRICS.query(this.lastCandidates, this.lastTests, found);
+        return found;
+    }
+
+    /**
+     * Finds the earliest impact of a moving circle with moving collidables only, by filling a given collision info.
+     * A circle that moves less than the clearance of its last query can only hit moving collidables.
+     * @param x circle center x value
+     * @param y circle center y value
+     * @param dx circle movement on x-axis
+     * @param dy circle movement on y-axis
+     * @param radius circle radius
+     * @param out collision info which is set if there is an impact, with time as a fraction of movement
+     * @return whether there is an impact
+     */
+    public boolean getEarliestMovingImpact(double x, double y, double dx, double dy, double radius,
+                                           CollisionInfo out) {
+        return this.findEarliestMovingImpact(x, y, dx, dy, radius, Double.POSITIVE_INFINITY, out);
+    }
 
-        // No collisions found
-        return null;
+    /**
+     * Sweeps a circle against moving collidables, keeping the earliest impact.
+     * @param x circle center x value
+     * @param y circle center y value
+     * @param dx circle movement on x-axis
+     * @param dy circle movement on y-axis
+     * @param radius circle radius
+     * @param limit only impacts earlier than this time are reported
+     * @param out collision info which is set if there is an impact
+     * @return whether there is an impact earlier than limit
+     */
+    private boolean findEarliestMovingImpact(double x, double y, double dx, double dy, double radius, double limit,
+                                             CollisionInfo out) {
+        boolean found = false;
+        for (int i = 0; i < this.moving.size(); i++) {
+            if (this.moving.get(i).getCollisionRectangle().sweepCircle(x, y, dx, dy, radius, limit, out)) {
+                found = true;
+                limit = out.getTime();
+            }
+        }
+        return found;
+    }
+
+    /**
+     *
+     * @return distance the circle of the last swept query could move from its start in any direction,
+     *     without touching a static collidable
+     */
+    public double getLastClearance() {
+        return this.lastClearance;
+    }
+
+    /**
+     * Searches for the closest collision and saves the number of tested collidables.
+     * @param movement line which describes object movement
+     * @param out collision info which is set if there is a collision
+     * @return whether there is a collision
+     */
+    private boolean findClosestCollision(Line movement, CollisionInfo out) {
+        Rectangle hit = null;
+        if (this.grid != null) {
+            Collidable c = this.grid.intersect(movement, this.intersection);
+            if (c != null) {
+                hit = c.getCollisionRectangle();
+            }
+            this.lastCandidates = this.grid.getCandidates();
+            this.lastTests = this.grid.getTested();
+        } else {
+            for (int i = 0; i < collidables.size() && hit == null; i++) {
+                Rectangle rectangle = collidables.get(i).getCollisionRectangle();
+                if (movement.closestIntersectionToStartOfLine(rectangle, this.intersection)) {
+                    hit = rectangle;
+                    this.lastCandidates = i + 1;
+                }
+            }
+            if (hit == null) {
+                this.lastCandidates = collidables.size();
+            }
+            this.lastTests = this.lastCandidates;
+        }
+        for (int i = 0; i < this.moving.size() && hit == null; i++) {
+            Rectangle rectangle = this.moving.get(i).getCollisionRectangle();
+            this.lastCandidates++;
+            this.lastTests++;
+            if (movement.closestIntersectionToStartOfLine(rectangle, this.intersection)) {
+                hit = rectangle;
+            }
+        }
+
+        METRICS.query(this.lastCandidates, this.lastTests, hit != null);
+        if (hit == null) {
+            return false;
+        }
+        out.set(hit, this.intersection, hit.getCollisionEdge(this.intersection));
+        return true;
     }
 }
\ No newline at end of file
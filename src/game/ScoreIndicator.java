@@ -4,12 +4,20 @@ import biuoop.DrawSurface;
 import objects.Block;
 
 import java.awt.Color;
+import java.util.Arrays;
 
 /**
  * Displays the game score.
  */
 public class ScoreIndicator extends Block implements Sprite {
+    // Bounds memory of prepared texts, so huge levels build texts of higher scores as they're reached
+    private static final int MAX_PREPARED_SCORE = 10000;
     private Counter scoreCounter;
+    // Score text is looked up only when score changes
+    private int shownScore;
+    private String text;
+    // Text of each score, by score
+    private String[] texts;
 
     /**
      * Constructs a score indicator.
@@ -19,6 +27,9 @@ public class ScoreIndicator extends Block implements Sprite {
     public ScoreIndicator(Block block, Counter scoreCounter) {
         super(block.getOrigin(), block.getWidth(), block.getHeight());
         this.scoreCounter = scoreCounter;
+        this.texts = new String[0];
+        this.shownScore = scoreCounter.getValue();
+        this.text = this.textOf(this.shownScore);
         this.setPassiveColor();
         this.setNoBorders();
     }
@@ -28,10 +39,39 @@ public class ScoreIndicator extends Block implements Sprite {
         this.setColor(Color.WHITE);
         super.drawOn(d);
 
-        String text = "Score: " + this.scoreCounter.getValue();
-        int startX = ((int) this.getWidth() / 2) - text.length() * 3;
+        if (this.scoreCounter.getValue() != this.shownScore) {
+            this.shownScore = this.scoreCounter.getValue();
+            this.text = this.textOf(this.shownScore);
+        }
+        int startX = ((int) this.getWidth() / 2) - this.text.length() * 3;
         d.setColor(Color.BLACK);
-        d.drawText(startX, 15, text, 15);
+        d.drawText(startX, 15, this.text, 15);
+    }
+
+    /**
+     * Builds texts of all scores up to a given score ahead of play, so score changes don't allocate while playing.
+     * Scores above MAX_PREPARED_SCORE are not prepared.
+     * @param maxScore highest score which may be reached
+     */
+    public void prepareTexts(int maxScore) {
+        int count = Math.min(maxScore, MAX_PREPARED_SCORE) + 1;
+        if (count <= this.texts.length) {
+            return;
+        }
+        int prepared = this.texts.length;
+        this.texts = Arrays.copyOf(this.texts, count);
+        for (int score = prepared; score < count; score++) {
+            this.texts[score] = "Score: " + score;
+        }
+    }
+
+    /**
+     * Returns text of a score, building it only if it wasn't prepared.
+     * @param score score
+     * @return score text
+     */
+    private String textOf(int score) {
+        return score >= 0 && score < this.texts.length ? this.texts[score] : "Score: " + score;
     }
 
     @Override
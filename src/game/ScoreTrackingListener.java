@@ -8,6 +8,7 @@ import objects.Block;
  * Tracks game score.
  */
 public class ScoreTrackingListener implements HitListener {
+    public static final int HIT_SCORE = 5;
     private Counter scoreCounter;
 
     /**
@@ -20,6 +21,6 @@ public class ScoreTrackingListener implements HitListener {
 
     @Override
     public void hitEvent(Block beingHit, Ball hitter) {
-        this.scoreCounter.increase(5);
+        this.scoreCounter.increase(HIT_SCORE);
     }
 }
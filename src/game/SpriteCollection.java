@@ -4,6 +4,7 @@ import biuoop.DrawSurface;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a sprite collection.
@@ -34,6 +35,31 @@ public class SpriteCollection {
         this.sprites.remove(s);
     }
 
+    /**
+     * Removes all given sprites from the sprite collection, in a single pass.
+     * @param s sprites to remove
+     */
+    public void removeSprites(Set<? extends Sprite> s) {
+        this.sprites.removeIf(s::contains);
+    }
+
+    /**
+     *
+     * @return number of sprites in collection
+     */
+    public int size() {
+        return this.sprites.size();
+    }
+
+    /**
+     * Returns a sprite by its position in the collection.
+     * @param i sprite index, less than size
+     * @return sprite
+     */
+    public Sprite get(int i) {
+        return this.sprites.get(i);
+    }
+
     /**
      * Call timePassed on all sprites.
      */
@@ -0,0 +1,179 @@
+package game;
+
+import geometry.Point;
+import geometry.Rectangle;
+import geometry.Velocity;
+import objects.Ball;
+import objects.Paddle;
+
+import java.util.List;
+
+/**
+ * Rolling hash of game state, taken at the end of every tick, so replays, engines and peers can be checked
+ * against each other and the first tick they diverge on can be found.
+ * Live rectangles are kept as a sum of per-rectangle keys, which is updated as rectangles are added and removed,
+ * so it doesn't depend on their order and costs nothing on ticks where no block changes. Balls, paddles and
+ * counters change on almost every tick, so their part is rehashed at the end of each tick, in ball order.
+ * Hashes of recent ticks are kept in a ring, and each tick's hash is also chained into a hash of the whole run.
+ */
+public class StateHash {
+    private static final int DEFAULT_HISTORY = 1024;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    // Sum of keys of live rectangles
+    private long rectangles;
+    private long tick;
+    private long hash;
+    private long chain;
+    private final long[] history;
+
+    /**
+     * Constructs a state hash keeping hashes of the last DEFAULT_HISTORY ticks.
+     */
+    public StateHash() {
+        this(DEFAULT_HISTORY);
+    }
+
+    /**
+     * Constructs a state hash.
+     * @param history number of recent ticks whose hashes are kept
+     */
+    public StateHash(int history) {
+        this.history = new long[history];
+    }
+
+    /**
+     * Mixes bits of a value, so close values get unrelated hashes (SplitMix64 finalizer).
+     * @param z value
+     * @return mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Mixes a double into a hash.
+     * @param h hash
+     * @param v value
+     * @return new hash
+     */
+    private static long mix(long h, double v) {
+        return mix(h + GOLDEN + Double.doubleToLongBits(v));
+    }
+
+    /**
+     * Calculates the key of a rectangle, from its bounds.
+     * @param r rectangle
+     * @return rectangle key
+     */
+    private static long key(Rectangle r) {
+        return mix(mix(mix(mix(0, r.getMinX()), r.getMinY()), r.getMaxX()), r.getMaxY());
+    }
+
+    /**
+     * Adds a rectangle to the live rectangles.
+     * @param r rectangle, which must not move while live
+     */
+    public void addRectangle(Rectangle r) {
+        this.rectangles += key(r);
+    }
+
+    /**
+     * Removes a rectangle from the live rectangles.
+     * @param r rectangle, which was added before
+     */
+    public void removeRectangle(Rectangle r) {
+        this.rectangles -= key(r);
+    }
+
+    /**
+     * Hashes state at the end of a tick, and keeps it as next tick's hash.
+     * @param balls all balls, by order of addition, of which those in game are hashed
+     * @param paddles paddles of all players
+     * @param score score
+     * @param remainingBalls number of balls still in game
+     * @param remainingBlocks number of blocks still in game
+     */
+    void update(List<Ball> balls, Paddle[] paddles, int score, int remainingBalls, int remainingBlocks) {
+        long h = this.rectangles;
+        for (int i = 0; i < balls.size(); i++) {
+            Ball ball = balls.get(i);
+            if (ball.isInGame()) {
+                // Exact coordinates, so divergence below a pixel is detected on the tick it starts
+                Point c = ball.getCenter();
+                Velocity v = ball.getVelocity();
+                long b = mix(mix(mix(mix(i, c.getX()), c.getY()), v.getDx()), v.getDy());
+                h = mix(h ^ b);
+            }
+        }
+        for (int i = 0; i < paddles.length; i++) {
+            h = mix(mix(h, paddles[i].getMinX()), paddles[i].getMinY());
+        }
+        h = mix(h + mix(((long) score << 32) ^ ((long) remainingBalls << 16) ^ remainingBlocks));
+
+        this.hash = h;
+        this.chain = mix(this.chain ^ h);
+        this.history[(int) (this.tick % this.history.length)] = h;
+        this.tick++;
+    }
+
+    /**
+     *
+     * @return number of ticks hashed
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     *
+     * @return hash of state at the end of last tick
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     *
+     * @return hash of states of all ticks so far, in order
+     */
+    public long getChain() {
+        return this.chain;
+    }
+
+    /**
+     * Checks if the hash of a tick is still kept.
+     * @param t tick number, starting from 0
+     * @return whether hash of tick is kept
+     */
+    public boolean hasHash(long t) {
+        return t >= 0 && t < this.tick && t >= this.tick - this.history.length;
+    }
+
+    /**
+     * Returns the hash of state at the end of a recent tick.
+     * @param t tick number, starting from 0, whose hash is kept
+     * @return hash of state at the end of tick
+     */
+    public long getHash(long t) {
+        return this.history[(int) (t % this.history.length)];
+    }
+
+    /**
+     * Finds the first tick whose hash differs from another state hash, among ticks both still keep.
+     * @param other state hash to compare to
+     * @return first divergent tick, or -1 if all ticks both keep have equal hashes
+     */
+    public long findDivergence(StateHash other) {
+        long last = Math.min(this.tick, other.tick);
+        long first = Math.max(0, Math.max(this.tick - this.history.length, other.tick - other.history.length));
+        for (long t = first; t < last; t++) {
+            if (this.getHash(t) != other.getHash(t)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,436 @@
+package game;
+
+import collisions.Collidable;
+import collisions.CollisionInfo;
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Broadphase of static collidables, which are kept in every square cell their rectangle overlaps.
+ * Only non-empty cells are stored, in an open addressing table, so the grid has no bounds.
+ * Queries walk the cells along a movement in order, so they stop soon after the earliest hit. Collidables of
+ * visited cells are candidates, and only candidates overlapping the movement's bounding box are tested.
+ * Collidables must not move while in the grid.
+ */
+class UniformGrid {
+    private static final int INITIAL_CELLS = 64;
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    // Slack of a query's bounding box, so collidables within tolerance of intersection tests are still tested
+    private static final double BOX_SLACK = 1e-3;
+
+    private final double cellSize;
+    // Open addressing table from packed cell coordinates to cell index plus one, 0 marks an empty entry
+    private long[] keys;
+    private int[] entries;
+    private Collidable[][] cells;
+    private int[] counts;
+    private int cellsCount;
+    private int size;
+    // Last query in which each cell was visited, so cells shared by neighborhoods are visited once
+    private int[] visits;
+    private int query;
+
+    // State of current query
+    private int candidates;
+    private int tested;
+    private double boxMinX;
+    private double boxMinY;
+    private double boxMaxX;
+    private double boxMaxY;
+    private double bestTime;
+    private double clearance;
+    private CollisionInfo sweepOut;
+    private Line line;
+    private Point lineOut;
+    private Collidable hitCollidable;
+    private final Point intersection;
+    private double x;
+    private double y;
+    private double dx;
+    private double dy;
+    private double radius;
+
+    /**
+     * Constructs an empty grid.
+     * @param cellSize cell width and height
+     */
+    UniformGrid(double cellSize) {
+        this.cellSize = cellSize;
+        this.keys = new long[2 * INITIAL_CELLS];
+        this.entries = new int[2 * INITIAL_CELLS];
+        this.cells = new Collidable[INITIAL_CELLS][];
+        this.counts = new int[INITIAL_CELLS];
+        this.visits = new int[INITIAL_CELLS];
+        this.intersection = new Point(0, 0);
+    }
+
+    /**
+     *
+     * @return number of collidables in grid
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds a collidable to all cells its rectangle overlaps.
+     * @param c collidable to add
+     */
+    void add(Collidable c) {
+        Rectangle r = c.getCollisionRectangle();
+        int lastX = this.cellOf(r.getMaxX());
+        int lastY = this.cellOf(r.getMaxY());
+        for (int cy = this.cellOf(r.getMinY()); cy <= lastY; cy++) {
+            for (int cx = this.cellOf(r.getMinX()); cx <= lastX; cx++) {
+                int cell = this.findOrCreate(cx, cy);
+                if (this.counts[cell] == this.cells[cell].length) {
+                    this.cells[cell] = Arrays.copyOf(this.cells[cell], 2 * this.counts[cell]);
+                }
+                this.cells[cell][this.counts[cell]++] = c;
+            }
+        }
+        this.size++;
+    }
+
+    /**
+     * Removes a collidable from all cells its rectangle overlaps.
+     * @param c collidable to remove
+     * @return whether collidable was in grid
+     */
+    boolean remove(Collidable c) {
+        Rectangle r = c.getCollisionRectangle();
+        int lastX = this.cellOf(r.getMaxX());
+        int lastY = this.cellOf(r.getMaxY());
+        boolean removed = false;
+        for (int cy = this.cellOf(r.getMinY()); cy <= lastY; cy++) {
+            for (int cx = this.cellOf(r.getMinX()); cx <= lastX; cx++) {
+                int cell = this.find(cx, cy);
+                if (cell < 0) {
+                    continue;
+                }
+                Collidable[] items = this.cells[cell];
+                for (int i = 0; i < this.counts[cell]; i++) {
+                    if (items[i] == c) {
+                        // Order in a cell doesn't matter, so last item takes removed item's place
+                        items[i] = items[--this.counts[cell]];
+                        items[this.counts[cell]] = null;
+                        removed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        if (removed) {
+            this.size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Collects collidables of all cells a box overlaps.
+     * A collidable overlapping several of these cells is collected once per cell.
+     * @param minX box left x value
+     * @param minY box top y value
+     * @param maxX box right x value
+     * @param maxY box bottom y value
+     * @param out list which collidables are added to
+     */
+    void collect(double minX, double minY, double maxX, double maxY, List<Collidable> out) {
+        int lastX = this.cellOf(maxX);
+        int lastY = this.cellOf(maxY);
+        for (int cy = this.cellOf(minY); cy <= lastY; cy++) {
+            for (int cx = this.cellOf(minX); cx <= lastX; cx++) {
+                int cell = this.find(cx, cy);
+                if (cell < 0) {
+                    continue;
+                }
+                for (int i = 0; i < this.counts[cell]; i++) {
+                    out.add(this.cells[cell][i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the earliest impact of a moving circle with a collidable in grid.
+     * Also measures clearance of circle's start, which is saved for getClearance.
+     * @param x circle center x value
+     * @param y circle center y value
+     * @param dx circle movement on x-axis
+     * @param dy circle movement on y-axis
+     * @param radius circle radius
+     * @param limit only impacts earlier than this time are reported
+     * @param out collision info which is set if there is an impact
+     * @return whether there is an impact earlier than limit
+     */
+    boolean sweep(double x, double y, double dx, double dy, double radius, double limit, CollisionInfo out) {
+        this.x = x;
+        this.y = y;
+        this.dx = dx;
+        this.dy = dy;
+        this.radius = radius;
+        this.sweepOut = out;
+        this.line = null;
+        this.bestTime = limit;
+        this.clearance = Double.POSITIVE_INFINITY;
+        return this.traverse(x, y, dx, dy, radius);
+    }
+
+    /**
+     * Finds the closest intersection of a line with a collidable in grid.
+     * @param line line to intersect
+     * @param out point which is set to closest intersection, if there is one
+     * @return intersected collidable, or null if there is no intersection
+     */
+    Collidable intersect(Line line, Point out) {
+        this.line = line;
+        this.lineOut = out;
+        this.hitCollidable = null;
+        this.bestTime = Double.POSITIVE_INFINITY;
+        this.clearance = Double.POSITIVE_INFINITY;
+        double startX = line.start().getX(), startY = line.start().getY();
+        this.traverse(startX, startY, line.end().getX() - startX, line.end().getY() - startY, 0);
+        Collidable hit = this.hitCollidable;
+        this.hitCollidable = null;
+        return hit;
+    }
+
+    /**
+     *
+     * @return clearance of last sweep's start, excluding radius
+     */
+    double getClearance() {
+        return this.clearance;
+    }
+
+    /**
+     *
+     * @return number of collidables in cells visited by last query, counting collidables in many cells once per cell
+     */
+    int getCandidates() {
+        return this.candidates;
+    }
+
+    /**
+     *
+     * @return number of candidates of last query which overlapped its bounding box, and were tested
+     */
+    int getTested() {
+        return this.tested;
+    }
+
+    /**
+     * Walks cells along a movement, visiting cells around each of them, until no earlier hit is possible.
+     * @param x movement start x value
+     * @param y movement start y value
+     * @param dx movement on x-axis
+     * @param dy movement on y-axis
+     * @param margin distance from movement at which collidables may be hit
+     * @return whether a hit was found
+     */
+    private boolean traverse(double x, double y, double dx, double dy, double margin) {
+        this.query++;
+        this.candidates = 0;
+        this.tested = 0;
+        this.boxMinX = Math.min(x, x + dx) - margin - BOX_SLACK;
+        this.boxMinY = Math.min(y, y + dy) - margin - BOX_SLACK;
+        this.boxMaxX = Math.max(x, x + dx) + margin + BOX_SLACK;
+        this.boxMaxY = Math.max(y, y + dy) + margin + BOX_SLACK;
+        boolean found = false;
+        int ring = (int) Math.ceil(margin / this.cellSize);
+        int cx = this.cellOf(x), cy = this.cellOf(y);
+
+        // Clearance is bounded by the distance to the edge of the start neighborhood, which is fully visited
+        double reach = Math.min(Math.min(x - (cx - ring) * this.cellSize, (cx + ring + 1) * this.cellSize - x),
+                Math.min(y - (cy - ring) * this.cellSize, (cy + ring + 1) * this.cellSize - y));
+        this.clearance = reach - margin;
+        found |= this.visitNeighborhood(cx, cy, ring, this.line == null);
+
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1;
+        double nextX = dx == 0 ? Double.POSITIVE_INFINITY : ((cx + (dx > 0 ? 1 : 0)) * this.cellSize - x) / dx;
+        double nextY = dy == 0 ? Double.POSITIVE_INFINITY : ((cy + (dy > 0 ? 1 : 0)) * this.cellSize - y) / dy;
+        double deltaX = dx == 0 ? Double.POSITIVE_INFINITY : this.cellSize / Math.abs(dx);
+        double deltaY = dy == 0 ? Double.POSITIVE_INFINITY : this.cellSize / Math.abs(dy);
+        while (true) {
+            double entry = Math.min(nextX, nextY);
+            // Hits in later cells can't be earlier than best hit
+            if (entry > 1 || entry > this.bestTime) {
+                return found;
+            }
+            if (nextX < nextY) {
+                cx += stepX;
+                nextX += deltaX;
+            } else {
+                cy += stepY;
+                nextY += deltaY;
+            }
+            found |= this.visitNeighborhood(cx, cy, ring, false);
+        }
+    }
+
+    /**
+     * Tests collidables overlapping query's bounding box, of all cells within ring cells of a cell that weren't
+     * visited by current query.
+     * @param cx cell x coordinate
+     * @param cy cell y coordinate
+     * @param ring number of cells around cell to visit
+     * @param measure whether clearance is measured from collidables
+     * @return whether a hit earlier than best hit was found
+     */
+    private boolean visitNeighborhood(int cx, int cy, int ring, boolean measure) {
+        boolean found = false;
+        for (int j = cy - ring; j <= cy + ring; j++) {
+            for (int i = cx - ring; i <= cx + ring; i++) {
+                int cell = this.find(i, j);
+                if (cell < 0 || this.visits[cell] == this.query) {
+                    continue;
+                }
+                this.visits[cell] = this.query;
+                Collidable[] items = this.cells[cell];
+                int count = this.counts[cell];
+                this.candidates += count;
+                for (int k = 0; k < count; k++) {
+                    Rectangle r = items[k].getCollisionRectangle();
+                    if (measure) {
+                        this.clearance = Math.min(this.clearance, distance(r, this.x, this.y) - this.radius);
+                    }
+                    if (r.getMaxX() < this.boxMinX || r.getMinX() > this.boxMaxX
+                            || r.getMaxY() < this.boxMinY || r.getMinY() > this.boxMaxY) {
+                        continue;
+                    }
+                    this.tested++;
+                    found |= this.test(items[k], r);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tests a collidable against current query, keeping it if it's hit earlier than best hit.
+     * @param c collidable
+     * @param r collidable rectangle
+     * @return whether collidable is hit earlier than best hit
+     */
+    private boolean test(Collidable c, Rectangle r) {
+        if (this.line == null) {
+            if (r.sweepCircle(this.x, this.y, this.dx, this.dy, this.radius, this.bestTime, this.sweepOut)) {
+                this.bestTime = this.sweepOut.getTime();
+                return true;
+            }
+            return false;
+        }
+        if (!this.line.closestIntersectionToStartOfLine(r, this.intersection)) {
+            return false;
+        }
+        double length = this.line.length();
+        double t = length == 0 ? 0 : this.line.start().distance(this.intersection) / length;
+        if (t >= this.bestTime) {
+            return false;
+        }
+        this.bestTime = t;
+        this.lineOut.setLocation(this.intersection.getX(), this.intersection.getY());
+        this.hitCollidable = c;
+        return true;
+    }
+
+    /**
+     * Calculates distance from a point to a rectangle.
+     * @param r rectangle
+     * @param x point x value
+     * @param y point y value
+     * @return distance, 0 if point is inside rectangle
+     */
+    static double distance(Rectangle r, double x, double y) {
+        double outX = Math.max(Math.max(r.getMinX() - x, 0), x - r.getMaxX());
+        double outY = Math.max(Math.max(r.getMinY() - y, 0), y - r.getMaxY());
+        return Math.sqrt(outX * outX + outY * outY);
+    }
+
+    /**
+     *
+     * @param v coordinate
+     * @return coordinate of cell containing given coordinate
+     */
+    private int cellOf(double v) {
+        return (int) Math.floor(v / this.cellSize);
+    }
+
+    /**
+     *
+     * @param cx cell x coordinate
+     * @param cy cell y coordinate
+     * @return table slot where cell's entry is, or where it would be added
+     */
+    private int slotOf(int cx, int cy) {
+        long key = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+        // Fibonacci hashing spreads neighboring cells over the table
+        int mask = this.keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (this.entries[slot] != 0 && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     *
+     * @param cx cell x coordinate
+     * @param cy cell y coordinate
+     * @return cell index, or -1 if cell is empty
+     */
+    private int find(int cx, int cy) {
+        return this.entries[this.slotOf(cx, cy)] - 1;
+    }
+
+    /**
+     *
+     * @param cx cell x coordinate
+     * @param cy cell y coordinate
+     * @return cell index, of a new cell if cell wasn't stored yet
+     */
+    private int findOrCreate(int cx, int cy) {
+        int slot = this.slotOf(cx, cy);
+        if (this.entries[slot] != 0) {
+            return this.entries[slot] - 1;
+        }
+
+        if (this.cellsCount == this.cells.length) {
+            int capacity = 2 * this.cells.length;
+            this.cells = Arrays.copyOf(this.cells, capacity);
+            this.counts = Arrays.copyOf(this.counts, capacity);
+            this.visits = Arrays.copyOf(this.visits, capacity);
+        }
+        int cell = this.cellsCount++;
+        this.cells[cell] = new Collidable[INITIAL_CELL_CAPACITY];
+        this.keys[slot] = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+        this.entries[slot] = cell + 1;
+
+        // Table is kept at most half full
+        if (2 * this.cellsCount > this.keys.length) {
+            this.rehash();
+        }
+        return cell;
+    }
+
+    /**
+     * Doubles the table, adding all stored cells again.
+     */
+    private void rehash() {
+        long[] oldKeys = this.keys;
+        int[] oldEntries = this.entries;
+        this.keys = new long[2 * oldKeys.length];
+        this.entries = new int[2 * oldEntries.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldEntries[i] != 0) {
+                int slot = this.slotOf((int) (oldKeys[i] >> 32), (int) oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.entries[slot] = oldEntries[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package geometry;
+
+/**
+ * Q16.16 fixed point arithmetic, where an int holds a value times 2^16.
+ * Results depend on integer arithmetic only, so they're the same on every JVM, unlike Math trigonometry.
+ * Values must be within +-32768, and products of two values are computed in longs.
+ */
+public final class Fixed {
+    public static final int FRACTION_BITS = 16;
+    public static final int ONE = 1 << FRACTION_BITS;
+    public static final int HALF = ONE >> 1;
+    // Sine table resolution, in steps per degree
+    private static final int STEPS_PER_DEGREE = 16;
+    private static final int STEPS = 360 * STEPS_PER_DEGREE;
+    private static final int[] SINES = new int[STEPS];
+
+    static {
+        // StrictMath gives the same values on every JVM, and is used only here
+        for (int i = 0; i < STEPS; i++) {
+            SINES[i] = (int) Math.round(StrictMath.sin(2 * Math.PI * i / STEPS) * ONE);
+        }
+    }
+
+    /**
+     * Prevents creating instances of this utility class.
+     */
+    private Fixed() {
+    }
+
+    /**
+     * Converts a double to the nearest fixed point value.
+     * @param v value
+     * @return fixed point value
+     */
+    public static int of(double v) {
+        return (int) Math.round(v * ONE);
+    }
+
+    /**
+     * Converts an int to fixed point.
+     * @param v value
+     * @return fixed point value
+     */
+    public static int of(int v) {
+        return v << FRACTION_BITS;
+    }
+
+    /**
+     * Converts a fixed point value to a double, which holds it exactly.
+     * @param f fixed point value
+     * @return value as double
+     */
+    public static double toDouble(int f) {
+        return f / (double) ONE;
+    }
+
+    /**
+     * Multiplies fixed point values, rounding toward negative infinity.
+     * @param a fixed point value
+     * @param b fixed point value
+     * @return fixed point product
+     */
+    public static int mul(int a, int b) {
+        return (int) (((long) a * b) >> FRACTION_BITS);
+    }
+
+    /**
+     * Divides fixed point values, rounding toward zero.
+     * @param a fixed point dividend
+     * @param b fixed point divisor, which must not be 0
+     * @return fixed point quotient
+     */
+    public static int div(int a, int b) {
+        return (int) (((long) a << FRACTION_BITS) / b);
+    }
+
+    /**
+     * Calculates integer square root, rounding down.
+     * @param v non-negative value, below 2^62
+     * @return largest r such that r * r is at most v
+     */
+    public static long sqrt(long v) {
+        // Correctly rounded on every JVM, then fixed to the exact integer root
+        long r = (long) Math.sqrt((double) v);
+        while (r * r > v) {
+            r--;
+        }
+        while ((r + 1) * (r + 1) <= v) {
+            r++;
+        }
+        return r;
+    }
+
+    /**
+     * Calculates length of a fixed point vector.
+     * @param x fixed point x value
+     * @param y fixed point y value
+     * @return fixed point length, rounded down
+     */
+    public static int hypot(int x, int y) {
+        return (int) sqrt((long) x * x + (long) y * y);
+    }
+
+    /**
+     * Looks up sine of an angle, at a 1/16 degree resolution.
+     * @param degrees fixed point angle in degrees
+     * @return fixed point sine
+     */
+    public static int sin(int degrees) {
+        long step = ((long) degrees * STEPS_PER_DEGREE + HALF) >> FRACTION_BITS;
+        return SINES[(int) Math.floorMod(step, (long) STEPS)];
+    }
+
+    /**
+     * Looks up cosine of an angle, at a 1/16 degree resolution.
+     * @param degrees fixed point angle in degrees
+     * @return fixed point cosine
+     */
+    public static int cos(int degrees) {
+        return sin(degrees + of(90));
+    }
+}
@@ -0,0 +1,167 @@
+package geometry;
+
+import java.util.Arrays;
+
+/**
+ * Hands out reusable points and lines which are valid only until the next reset, normally the end of a tick.
+ * Objects are recycled once the arena grows to the tick's high-water mark, so steady-state ticks don't allocate.
+ * When assertions are enabled, reset poisons handed out objects with NaN coordinates, and reading an object
+ * that escaped the tick in which it was handed out fails an assertion. isLive tells the same without failing.
+ */
+public class GeometryArena {
+    private static final boolean DEBUG = GeometryArena.class.desiredAssertionStatus();
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Point stamped with the arena epoch in which it was handed out.
+     */
+    private static final class PooledPoint extends Point {
+        private final GeometryArena owner;
+        private int epoch;
+
+        /**
+         * Constructs a pooled point.
+         * @param owner owning arena
+         */
+        PooledPoint(GeometryArena owner) {
+            super(0, 0);
+            this.owner = owner;
+        }
+
+        @Override
+        boolean isLive() {
+            return this.epoch == this.owner.epoch;
+        }
+    }
+
+    /**
+     * Line stamped with the arena epoch in which it was handed out.
+     */
+    private static final class PooledLine extends Line {
+        private final GeometryArena owner;
+        private int epoch;
+
+        /**
+         * Constructs a pooled line.
+         * @param owner owning arena
+         */
+        PooledLine(GeometryArena owner) {
+            super(0, 0, 0, 0);
+            this.owner = owner;
+        }
+
+        @Override
+        boolean isLive() {
+            return this.epoch == this.owner.epoch;
+        }
+    }
+
+    private PooledPoint[] points;
+    private int pointsUsed;
+    private PooledLine[] lines;
+    private int linesUsed;
+    private int epoch;
+
+    /**
+     * Constructs an empty geometry arena.
+     */
+    public GeometryArena() {
+        this.points = new PooledPoint[INITIAL_CAPACITY];
+        this.lines = new PooledLine[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Hands out a point, valid until next reset.
+     * @param x x value of point
+     * @param y y value of point
+     * @return pooled point
+     */
+    public Point point(double x, double y) {
+        if (this.pointsUsed == this.points.length) {
+            this.points = Arrays.copyOf(this.points, 2 * this.points.length);
+        }
+        PooledPoint p = this.points[this.pointsUsed];
+        if (p == null) {
+            p = new PooledPoint(this);
+            this.points[this.pointsUsed] = p;
+        }
+        this.pointsUsed++;
+        p.epoch = this.epoch;
+        p.setLocation(x, y);
+        return p;
+    }
+
+    /**
+     * Hands out a line, valid until next reset.
+     * @param x1 x val of first point
+     * @param y1 y val of first point
+     * @param x2 x val of second point
+     * @param y2 y val of second point
+     * @return pooled line
+     */
+    public Line line(double x1, double y1, double x2, double y2) {
+        if (this.linesUsed == this.lines.length) {
+            this.lines = Arrays.copyOf(this.lines, 2 * this.lines.length);
+        }
+        PooledLine l = this.lines[this.linesUsed];
+        if (l == null) {
+            l = new PooledLine(this);
+            this.lines[this.linesUsed] = l;
+        }
+        this.linesUsed++;
+        l.epoch = this.epoch;
+        l.set(x1, y1, x2, y2);
+        return l;
+    }
+
+    /**
+     * Takes back all handed out objects at once, so they can be handed out again.
+     */
+    public void reset() {
+        if (DEBUG) {
+            for (int i = 0; i < this.pointsUsed; i++) {
+                this.points[i].setLocation(Double.NaN, Double.NaN);
+            }
+            for (int i = 0; i < this.linesUsed; i++) {
+                this.lines[i].set(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+            }
+        }
+        this.pointsUsed = 0;
+        this.linesUsed = 0;
+        this.epoch++;
+    }
+
+    /**
+     *
+     * @return number of resets so far
+     */
+    public int getEpoch() {
+        return this.epoch;
+    }
+
+    /**
+     *
+     * @return number of points and lines handed out since last reset
+     */
+    public int size() {
+        return this.pointsUsed + this.linesUsed;
+    }
+
+    /**
+     * Checks whether a point may still be used, meant to be called in assertions.
+     * @param p point to check
+     * @return false if point was handed out by this arena before last reset, else true
+     */
+    public boolean isLive(Point p) {
+        return !(p instanceof PooledPoint pooled) || pooled.owner != this || pooled.epoch == this.epoch;
+    }
+
+    /**
+     * Checks whether a line may still be used, meant to be called in assertions.
+     * @param l line to check
+     * @return false if line was handed out by this arena before last reset, else true
+     */
+    public boolean isLive(Line l) {
+        return !(l instanceof PooledLine pooled) || pooled.owner != this || pooled.epoch == this.epoch;
+    }
+}
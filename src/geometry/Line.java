@@ -32,11 +32,24 @@ public class Line {
         this.end = new Point(x2, y2);
     }
 
+    /**
+     * Moves this line to given coordinates, without creating new points.
+     * @param x1 x val of first point
+     * @param y1 y val of first point
+     * @param x2 x val of second point
+     * @param y2 y val of second point
+     */
+    public void set(double x1, double y1, double x2, double y2) {
+        this.start.setLocation(x1, y1);
+        this.end.setLocation(x2, y2);
+    }
+
     /**
      *
      * @return Line's length
      */
     public double length() {
+        assert this.isLive() : "Line used after its arena was reset";
         return this.start.distance(end);
     }
 
@@ -54,6 +67,7 @@ public class Line {
      * @return start point of the line
      */
     public Point start() {
+        assert this.isLive() : "Line used after its arena was reset";
         return this.start;
     }
 
@@ -62,9 +76,18 @@ public class Line {
      * @return end point of the line
      */
     public Point end() {
+        assert this.isLive() : "Line used after its arena was reset";
         return this.end;
     }
 
+    /**
+     * Checks whether this line may still be used, which only lines handed out by an arena may not be.
+     * @return true, unless overridden by pooled lines
+     */
+    boolean isLive() {
+        return true;
+    }
+
     /**
      * Determines if this line intersects with given line.
      * @param other line to check intersection
@@ -153,9 +176,20 @@ public class Line {
      * @return intersection point if exists, else null
      */
     public Point intersectionWith(Line other) {
+        Point intersection = new Point(0, 0);
+        return this.intersectionWith(other, intersection) ? intersection : null;
+    }
+
+    /**
+     * Calculates point of intersection point between this line and another line, if it exists.
+     * @param other line to calculate the intersection with
+     * @param out point which is set to the intersection point, if exists
+     * @return whether an intersection point exists
+     */
+    private boolean intersectionWith(Line other, Point out) {
         // Validate there is an intersection
         if (!this.isIntersecting(other)) {
-            return null;
+            return false;
         }
 
         // Shortcut for all relevant points
@@ -172,14 +206,16 @@ public class Line {
                         || (b.equals(c) && !onSegment(b, d, a) && !onSegment(c, a, d))
                         || (b.equals(d) && !onSegment(b, c, a) && !onSegment(d, a, c))) {
                     if (a.equals(c) || a.equals(d)) {
-                        return a;
+                        out.setLocation(a.getX(), a.getY());
+                        return true;
                     } else if (b.equals(c) || b.equals(d)) {
-                        return b;
+                        out.setLocation(b.getX(), b.getY());
+                        return true;
                     }
                 }
 
                 // Lines overlap in a segment, not just a point
-                return null;
+                return false;
             }
         }
 
@@ -194,14 +230,15 @@ public class Line {
         // Calculate determinant and confirm intersection found
         double det = dy1 * dx2 - dy2 * dx1;
         if (Math.abs(det) < COMPARISON_THRESHOLD) {
-            return null;
+            return false;
         }
 
         // Calculate intersection point
         double x = (dx2 * firstOffset - dx1 * secondOffset) / det;
         double y = (dy2 * firstOffset - dy1 * secondOffset) / det;
 
-        return new Point(x, y);
+        out.setLocation(x, y);
+        return true;
     }
 
     /**
@@ -230,6 +267,37 @@ public class Line {
         return closest;
     }
 
+    /**
+     * Calculates closest intersection to start of line with a given rectangle, without creating new points.
+     * @param rect rectangle to check intersection
+     * @param out point which is set to the closest intersection, if exists
+     * @return whether there is an intersection
+     */
+    public boolean closestIntersectionToStartOfLine(Rectangle rect, Point out) {
+        // Each candidate intersection is set to out, so the closest one is kept aside
+        boolean found = false;
+        double minDistance = Double.MAX_VALUE;
+        double closestX = 0, closestY = 0;
+        Line[] edges = rect.edges();
+        for (int i = 0; i < edges.length; i++) {
+            if (!this.intersectionWith(edges[i], out)) {
+                continue;
+            }
+            double distance = this.start.distance(out);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closestX = out.getX();
+                closestY = out.getY();
+                found = true;
+            }
+        }
+
+        if (found) {
+            out.setLocation(closestX, closestY);
+        }
+        return found;
+    }
+
     /**
      * Checks if a given point lies on this line.
      * @param p the point to check
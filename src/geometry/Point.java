@@ -24,6 +24,7 @@ public class Point {
      * @return distance of this point to the other point
      */
     public double distance(Point other) {
+        assert this.isLive() && other.isLive() : "Point used after its arena was reset";
         return Math.sqrt((this.x - other.x) * (this.x - other.x) + (this.y - other.y) * (this.y - other.y));
     }
 
@@ -49,6 +50,7 @@ public class Point {
      * @return x value of point
      */
     public double getX() {
+        assert this.isLive() : "Point used after its arena was reset";
         return this.x;
     }
 
@@ -56,9 +58,28 @@ public class Point {
      * @return y value of point
      */
     public double getY() {
+        assert this.isLive() : "Point used after its arena was reset";
         return this.y;
     }
 
+    /**
+     * Checks whether this point may still be used, which only points handed out by an arena may not be.
+     * @return true, unless overridden by pooled points
+     */
+    boolean isLive() {
+        return true;
+    }
+
+    /**
+     * Moves this point to given coordinates.
+     * @param newX new x value
+     * @param newY new y value
+     */
+    public void setLocation(double newX, double newY) {
+        this.x = newX;
+        this.y = newY;
+    }
+
     /**
      * @return a string representation of this Point instance
      */
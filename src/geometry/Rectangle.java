@@ -2,6 +2,7 @@ package geometry;
 
 import collisions.Collidable;
 import collisions.CollisionEdge;
+import collisions.CollisionInfo;
 import objects.Ball;
 
 import java.util.ArrayList;
@@ -9,14 +10,25 @@ import java.util.List;
 
 /**
  * Represents a rectangle defined by an origin point, width and height.
+ * Bounds are kept as plain values, so moving a rectangle and classifying hit edges take a few comparisons.
+ * Edges as lines are created only when asked for, and moved in place with the rectangle from then on.
  */
 public class Rectangle implements Collidable {
-    private Point origin;
+    // Distance from a corner at which a point on an edge is classified by that edge only
+    public static final double CORNER_MARGIN = 0.001;
+    private static final Line[] NO_EDGES = new Line[0];
+    // Moved in place, so it's owned by this rectangle rather than shared with callers
+    private final Point origin;
     private final double width;
     private final double height;
-    // Save rectangle edges - optimization to prevent redundant calculations
-    // Saved in this order: Top, Right, Bottom, Left
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    // Lazily created edges, in this order: Top, Right, Bottom, Left
     private Line[] edges;
+    // Whether edges were created before the last move
+    private boolean edgesMoved;
 
     /**
      * Constructor for rectangle.
@@ -25,35 +37,41 @@ public class Rectangle implements Collidable {
      * @param height rectangle height
      */
     public Rectangle(Point origin, double width, double height) {
+        this.origin = new Point(0, 0);
         // Validate correctness of arguments
         if (origin == null || width <= 0 || height <= 0) {
             // Create a default rectangle for malformed input
-            this.origin = new Point(0, 0);
             this.width = 0;
             this.height = 0;
-            this.edges = new Line[0];
+            this.edges = NO_EDGES;
             return;
         }
 
         this.width = width;
         this.height = height;
-        this.setOrigin(origin);
+        this.setOrigin(origin.getX(), origin.getY());
     }
 
     /**
-     * Sets origin and optimizes rectangle edges calculations.
-     * @param origin rectangle origin point
+     * Moves rectangle so its origin is at given point.
+     * @param origin rectangle origin point, which is copied
      */
     public void setOrigin(Point origin) {
-        this.origin = origin;
-
-        // Shortcut rectangle corners
-        Point tr = new Point(origin.getX() + this.width, origin.getY());
-        Point br = new Point(origin.getX() + this.width, origin.getY() + this.height);
-        Point bl = new Point(origin.getX(), origin.getY() + this.height);
+        this.setOrigin(origin.getX(), origin.getY());
+    }
 
-        // Define rectangle edges
-        this.edges = new Line[]{new Line(origin, tr), new Line(tr, br), new Line(br, bl), new Line(bl, origin)};
+    /**
+     * Moves rectangle so its origin is at given coordinates, without creating any object.
+     * @param x origin x value
+     * @param y origin y value
+     */
+    public void setOrigin(double x, double y) {
+        this.origin.setLocation(x, y);
+        this.minX = x;
+        this.minY = y;
+        this.maxX = x + this.width;
+        this.maxY = y + this.height;
+        this.edgesMoved = this.edges != null;
     }
 
     /**
@@ -63,13 +81,8 @@ public class Rectangle implements Collidable {
      * @return whether ball is inside this rectangle borders
      */
     public boolean isBallInside(Point p, int radius) {
-        double startX = this.origin.getX();
-        double startY = this.origin.getY();
-        double endX = startX + this.width;
-        double endY = startY + this.height;
-
-        return p.getX() + radius > startX && p.getX() - radius < endX
-                && p.getY() + radius > startY && p.getY() - radius < endY;
+        return p.getX() + radius > this.minX && p.getX() - radius < this.maxX
+                && p.getY() + radius > this.minY && p.getY() - radius < this.maxY;
     }
 
     @Override
@@ -85,21 +98,203 @@ public class Rectangle implements Collidable {
 
     @Override
     public CollisionEdge getCollisionEdge(Point cp) {
-        if (cp == null) {
+        if (cp == null || this.width <= 0) {
             return null;
         }
 
+        double x = cp.getX(), y = cp.getY();
+        double threshold = Line.COMPARISON_THRESHOLD;
+        boolean withinX = x >= this.minX - threshold && x <= this.maxX + threshold;
+        boolean withinY = y >= this.minY - threshold && y <= this.maxY + threshold;
+        boolean top = withinX && Math.abs(y - this.minY) <= threshold;
+        boolean bottom = withinX && Math.abs(y - this.maxY) <= threshold;
+        boolean left = withinY && Math.abs(x - this.minX) <= threshold;
+        boolean right = withinY && Math.abs(x - this.maxX) <= threshold;
+
+        // If on both a horizontal edge and a vertical edge, that's a corner collision
+        if ((top || bottom) && (left || right)) {
+            return CollisionEdge.CORNER;
+        }
+        if (top) {
+            return CollisionEdge.TOP;
+        }
+        if (bottom) {
+            return CollisionEdge.BOTTOM;
+        }
+        if (left) {
+            return CollisionEdge.LEFT;
+        }
+        return right ? CollisionEdge.RIGHT : null;
+    }
+
+    /**
+     * Sweeps a moving circle against this rectangle, and sets given info if it hits earlier than given limit.
+     * The circle hits a face when its center crosses the face moved out by radius, within face extent,
+     * and hits a corner when its center gets radius away from it. A circle which already overlaps this
+     * rectangle while moving into it hits at time 0 the face it penetrates least.
+     * @param x circle center x value
+     * @param y circle center y value
+     * @param dx circle movement on x-axis
+     * @param dy circle movement on y-axis
+     * @param radius circle radius
+     * @param limit only impacts earlier than this time are reported
+     * @param out collision info which is set if there is an impact, with time as a fraction of movement
+     * @return whether circle hits this rectangle earlier than limit
+     */
+    public boolean sweepCircle(double x, double y, double dx, double dy, double radius, double limit,
+                               CollisionInfo out) {
+        if (this.width <= 0 || this.height <= 0) {
+            return false;
+        }
+        double minX = this.minX, minY = this.minY, maxX = this.maxX, maxY = this.maxY;
+
+        // Circle already overlapping, so it's pushed out through the face it penetrates least
+        double offX = x - Math.max(minX, Math.min(x, maxX));
+        double offY = y - Math.max(minY, Math.min(y, maxY));
+        if (offX * offX + offY * offY < radius * radius) {
+            return this.overlap(x, y, dx, dy, radius, limit, out);
+        }
+
+        // Faces, where movement must be toward the face
+        double best = Math.min(limit, 1);
         CollisionEdge edge = null;
-        for (int i = 0; i < edges.length; i++) {
-            if (edges[i].isPointOnLine(cp)) {
-                // If collides with two edges, that's a corner collision
-                if (edge != null) {
-                    return CollisionEdge.CORNER;
-                }
-                edge = CollisionEdge.get(i);
+        double t;
+        if (dx > 0 && (t = (minX - radius - x) / dx) >= 0 && t < best && this.inside(y + t * dy, minY, maxY)) {
+            best = t;
+            edge = CollisionEdge.LEFT;
+        } else if (dx < 0 && (t = (maxX + radius - x) / dx) >= 0 && t < best
+                && this.inside(y + t * dy, minY, maxY)) {
+            best = t;
+            edge = CollisionEdge.RIGHT;
+        }
+        if (dy > 0 && (t = (minY - radius - y) / dy) >= 0 && t < best && this.inside(x + t * dx, minX, maxX)) {
+            best = t;
+            edge = CollisionEdge.TOP;
+        } else if (dy < 0 && (t = (maxY + radius - y) / dy) >= 0 && t < best
+                && this.inside(x + t * dx, minX, maxX)) {
+            best = t;
+            edge = CollisionEdge.BOTTOM;
+        }
+        if (edge != null) {
+            double hx = x + best * dx, hy = y + best * dy;
+            switch (edge) {
+                case LEFT -> out.set(this, minX, hy, edge, best, -1, 0);
+                case RIGHT -> out.set(this, maxX, hy, edge, best, 1, 0);
+                case TOP -> out.set(this, hx, minY, edge, best, 0, -1);
+                default -> out.set(this, hx, maxY, edge, best, 0, 1);
             }
+            return true;
+        }
+
+        // Corners, only reachable when no face is hit
+        double cornerX = 0, cornerY = 0;
+        for (int i = 0; i < 4; i++) {
+            double cx = (i == 1 || i == 2) ? maxX : minX;
+            double cy = i < 2 ? minY : maxY;
+            t = this.sweepCorner(x - cx, y - cy, dx, dy, radius);
+            if (t >= 0 && t < best) {
+                best = t;
+                cornerX = cx;
+                cornerY = cy;
+                edge = CollisionEdge.CORNER;
+            }
+        }
+        if (edge == null) {
+            return false;
+        }
+        double nx = (x + best * dx - cornerX) / radius, ny = (y + best * dy - cornerY) / radius;
+        out.set(this, cornerX, cornerY, edge, best, nx, ny);
+        return true;
+    }
+
+    /**
+     * Sets given info to a time 0 impact of a circle which overlaps this rectangle, if moving into it.
+     * @param x circle center x value
+     * @param y circle center y value
+     * @param dx circle movement on x-axis
+     * @param dy circle movement on y-axis
+     * @param radius circle radius
+     * @param limit only impacts earlier than this time are reported
+     * @param out collision info which is set if circle moves into this rectangle
+     * @return whether circle moves into this rectangle
+     */
+    private boolean overlap(double x, double y, double dx, double dy, double radius, double limit,
+                            CollisionInfo out) {
+        if (limit <= 0) {
+            return false;
+        }
+        double minX = this.minX, minY = this.minY, maxX = this.maxX, maxY = this.maxY;
+        double left = x + radius - minX, right = maxX - x + radius;
+        double top = y + radius - minY, bottom = maxY - y + radius;
+        double horizontal = Math.min(left, right), vertical = Math.min(top, bottom);
+
+        // Contact point is kept off corners, so its edge isn't ambiguous
+        if (horizontal <= vertical) {
+            double nx = left <= right ? -1 : 1;
+            if (dx * nx >= 0) {
+                return false;
+            }
+            double cy = Math.max(minY, Math.min(y, maxY));
+            out.set(this, nx < 0 ? minX : maxX, offCorner(cy, minY, maxY),
+                    nx < 0 ? CollisionEdge.LEFT : CollisionEdge.RIGHT, 0, nx, 0);
+        } else {
+            double ny = top <= bottom ? -1 : 1;
+            if (dy * ny >= 0) {
+                return false;
+            }
+            double cx = Math.max(minX, Math.min(x, maxX));
+            out.set(this, offCorner(cx, minX, maxX), ny < 0 ? minY : maxY,
+                    ny < 0 ? CollisionEdge.TOP : CollisionEdge.BOTTOM, 0, 0, ny);
+        }
+        return true;
+    }
+
+    /**
+     * Calculates when a moving point first gets radius away from the origin.
+     * @param fx point x value, relative to origin
+     * @param fy point y value, relative to origin
+     * @param dx point movement on x-axis
+     * @param dy point movement on y-axis
+     * @param radius distance from origin
+     * @return time as a fraction of movement, or -1 if point doesn't get radius away from origin
+     */
+    private double sweepCorner(double fx, double fy, double dx, double dy, double radius) {
+        double a = dx * dx + dy * dy;
+        double b = fx * dx + fy * dy;
+        if (a == 0 || b >= 0) {
+            return -1; // Not moving toward corner
         }
-        return edge;
+        double discriminant = b * b - a * (fx * fx + fy * fy - radius * radius);
+        if (discriminant < 0) {
+            return -1;
+        }
+        double t = (-b - Math.sqrt(discriminant)) / a;
+        return t >= 0 && t <= 1 ? t : -1;
+    }
+
+    /**
+     *
+     * @param v value
+     * @param min range start
+     * @param max range end
+     * @return whether value is strictly inside range, as range ends are corners
+     */
+    private boolean inside(double v, double min, double max) {
+        return v > min && v < max;
+    }
+
+    /**
+     * Moves a coordinate on an edge off the edge's corners.
+     * @param v coordinate on edge
+     * @param min edge start
+     * @param max edge end
+     * @return coordinate at least CORNER_MARGIN away from edge ends, if edge is long enough
+     */
+    public static double offCorner(double v, double min, double max) {
+        if (max - min <= 2 * CORNER_MARGIN) {
+            return (min + max) / 2;
+        }
+        return Math.max(min + CORNER_MARGIN, Math.min(v, max - CORNER_MARGIN));
     }
 
     /**
@@ -111,8 +306,9 @@ public class Rectangle implements Collidable {
         List<Point> intersections = new ArrayList<>();
 
         // Search for intersections with each of rectangle edges
-        for (int i = 0; i < this.edges.length; i++) {
-            Point intersection = line.intersectionWith(this.edges[i]);
+        Line[] lines = this.edges();
+        for (int i = 0; i < lines.length; i++) {
+            Point intersection = line.intersectionWith(lines[i]);
             if (intersection == null) {
                 continue;
             }
@@ -135,6 +331,58 @@ public class Rectangle implements Collidable {
         return new ArrayList<>(intersections);
     }
 
+    /**
+     *
+     * @return rectangle edges, in this order: Top, Right, Bottom, Left
+     */
+    protected Line[] edges() {
+        if (this.edges == null) {
+            this.edges = new Line[]{new Line(0, 0, 0, 0), new Line(0, 0, 0, 0),
+                    new Line(0, 0, 0, 0), new Line(0, 0, 0, 0)};
+            this.edgesMoved = true;
+        }
+        if (this.edgesMoved) {
+            this.edges[0].set(this.minX, this.minY, this.maxX, this.minY);
+            this.edges[1].set(this.maxX, this.minY, this.maxX, this.maxY);
+            this.edges[2].set(this.maxX, this.maxY, this.minX, this.maxY);
+            this.edges[3].set(this.minX, this.maxY, this.minX, this.minY);
+            this.edgesMoved = false;
+        }
+        return this.edges;
+    }
+
+    /**
+     *
+     * @return x value of left edge
+     */
+    public double getMinX() {
+        return this.minX;
+    }
+
+    /**
+     *
+     * @return y value of top edge
+     */
+    public double getMinY() {
+        return this.minY;
+    }
+
+    /**
+     *
+     * @return x value of right edge
+     */
+    public double getMaxX() {
+        return this.maxX;
+    }
+
+    /**
+     *
+     * @return y value of bottom edge
+     */
+    public double getMaxY() {
+        return this.maxY;
+    }
+
     /**
      *
      * @return rectangle width
@@ -162,7 +410,7 @@ public class Rectangle implements Collidable {
 
     /**
      *
-     * @return rectangle origin point
+     * @return rectangle origin point, which is moved in place with this rectangle and must not be modified
      */
     public Point getOrigin() {
         return this.origin;
@@ -9,6 +9,8 @@ import collisions.CollisionEdge;
 public class Velocity {
     private double dx;
     private double dy;
+    // Whether deltas are kept at fixed point values, computed with fixed point arithmetic
+    private boolean fixedPoint;
 
     /**
      * Constructor with deltas.
@@ -20,6 +22,27 @@ public class Velocity {
         this.dy = dy;
     }
 
+    /**
+     * Sets whether this velocity is kept in fixed point, in which case its deltas are rounded to fixed point values
+     * and every change of its angle or speed is computed by Fixed, so it's the same on every JVM.
+     * @param fixedPoint whether this velocity is kept in fixed point
+     */
+    public void setFixedPoint(boolean fixedPoint) {
+        this.fixedPoint = fixedPoint;
+        if (fixedPoint) {
+            this.dx = Fixed.toDouble(Fixed.of(this.dx));
+            this.dy = Fixed.toDouble(Fixed.of(this.dy));
+        }
+    }
+
+    /**
+     *
+     * @return whether this velocity is kept in fixed point
+     */
+    public boolean isFixedPoint() {
+        return this.fixedPoint;
+    }
+
     /**
      * Constructs a velocity with angle and speed by converting them to deltas.
      * @param angle velocity angle
@@ -27,11 +50,28 @@ public class Velocity {
      * @return velocity defined with given angle and speed
      */
     public static Velocity fromAngleAndSpeed(double angle, double speed) {
+        Velocity v = new Velocity(0, 0);
+        v.setAngleAndSpeed(angle, speed);
+        return v;
+    }
+
+    /**
+     * Sets deltas of this velocity by given angle and speed.
+     * @param angle velocity angle
+     * @param speed velocity speed
+     */
+    private void setAngleAndSpeed(double angle, double speed) {
+        if (this.fixedPoint) {
+            int fixedAngle = Fixed.of(angle - 90), fixedSpeed = Fixed.of(speed);
+            this.dx = Fixed.toDouble(Fixed.mul(fixedSpeed, Fixed.cos(fixedAngle)));
+            this.dy = Fixed.toDouble(Fixed.mul(fixedSpeed, Fixed.sin(fixedAngle)));
+            return;
+        }
+
         // angle - 90: Make sure 0 is up, 90 is right, etc.
         double angleRad = Math.toRadians(angle - 90);
-        double dx = speed * Math.cos(angleRad);
-        double dy = speed * Math.sin(angleRad);
-        return new Velocity(dx, dy);
+        this.dx = speed * Math.cos(angleRad);
+        this.dy = speed * Math.sin(angleRad);
     }
 
     /**
@@ -44,11 +84,24 @@ public class Velocity {
         return fromAngleAndSpeed(angle, getSpeed() + acceleration);
     }
 
+    /**
+     * Changes this velocity to given angle, accelerated by given acceleration.
+     * Same as accelerate, without creating a new velocity.
+     * @param angle new velocity's angle
+     * @param acceleration addition to current speed
+     */
+    public void accelerateInPlace(double angle, double acceleration) {
+        this.setAngleAndSpeed(angle, getSpeed() + acceleration);
+    }
+
     /**
      *
      * @return velocity speed
      */
     private double getSpeed() {
+        if (this.fixedPoint) {
+            return Fixed.toDouble(Fixed.hypot(Fixed.of(this.dx), Fixed.of(this.dy)));
+        }
         return Math.sqrt(dx * dx + dy * dy);
     }
 
@@ -62,6 +115,30 @@ public class Velocity {
         return new Point(p.getX() + this.dx, p.getY() + this.dy);
     }
 
+    /**
+     * Moves given point by velocity deltas, without creating a new point.
+     * @param p point to move
+     */
+    public void moveInPlace(Point p) {
+        p.setLocation(p.getX() + this.dx, p.getY() + this.dy);
+    }
+
+    /**
+     *
+     * @return x delta
+     */
+    public double getDx() {
+        return this.dx;
+    }
+
+    /**
+     *
+     * @return y delta
+     */
+    public double getDy() {
+        return this.dy;
+    }
+
     /**
      *
      * @return whether velocity is moving to right on x-axis
@@ -0,0 +1,65 @@
+package levels;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the compact binary form of a level.
+ * Header is magic "ARKL", version, width and height as ints. Every object follows as a tag byte:
+ * BALL with x, y, dx, dy floats, or BLOCK with x, y, width, height floats and an RGB int.
+ */
+public class BinaryLevelReader extends LevelReader {
+    static final int MAGIC = 0x41524B4C;
+    static final int VERSION = 1;
+    static final int BALL = 1;
+    static final int BLOCK = 2;
+    private final DataInputStream in;
+    private final ColorPalette palette;
+
+    /**
+     * Constructs a binary level reader and reads level header.
+     * @param in level input stream, expected to be buffered
+     * @throws IOException if header couldn't be read or is malformed
+     */
+    BinaryLevelReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        this.palette = new ColorPalette();
+        if (this.in.readInt() != MAGIC) {
+            throw new IOException("Not a binary level");
+        }
+        int version = this.in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary level version " + version);
+        }
+        this.setSize(this.in.readInt(), this.in.readInt());
+    }
+
+    @Override
+    public long readInto(LevelSink sink) throws IOException {
+        long count = 0;
+        int tag;
+        try {
+            while ((tag = this.in.read()) != -1) {
+                if (tag == BLOCK) {
+                    sink.addBlock(this.in.readFloat(), this.in.readFloat(), this.in.readFloat(), this.in.readFloat(),
+                            this.palette.get(this.in.readInt()));
+                } else if (tag == BALL) {
+                    sink.addBall(this.in.readFloat(), this.in.readFloat(), this.in.readFloat(), this.in.readFloat());
+                } else {
+                    throw new IOException("Object " + count + ": unknown tag " + tag);
+                }
+                count++;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Object " + count + ": truncated level", e);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,62 @@
+package levels;
+
+import java.awt.Color;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the compact binary form of a level, as read by BinaryLevelReader.
+ * Coordinates are stored as floats, which is exact for integral and half coordinates.
+ */
+public class BinaryLevelWriter extends LevelWriter {
+    private final DataOutputStream out;
+
+    /**
+     * Constructs a binary level writer and writes level header.
+     * @param out level output stream, expected to be buffered
+     * @param width level width
+     * @param height level height
+     * @throws IOException if header couldn't be written
+     */
+    BinaryLevelWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(BinaryLevelReader.MAGIC);
+        this.out.writeInt(BinaryLevelReader.VERSION);
+        this.out.writeInt(width);
+        this.out.writeInt(height);
+    }
+
+    @Override
+    public void addBall(double x, double y, double dx, double dy) {
+        try {
+            this.out.writeByte(BinaryLevelReader.BALL);
+            this.out.writeFloat((float) x);
+            this.out.writeFloat((float) y);
+            this.out.writeFloat((float) dx);
+            this.out.writeFloat((float) dy);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void addBlock(double x, double y, double width, double height, Color color) {
+        try {
+            this.out.writeByte(BinaryLevelReader.BLOCK);
+            this.out.writeFloat((float) x);
+            this.out.writeFloat((float) y);
+            this.out.writeFloat((float) width);
+            this.out.writeFloat((float) height);
+            this.out.writeInt(color.getRGB() & 0xFFFFFF);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+}
@@ -0,0 +1,454 @@
+package levels;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores a level on disk as a grid of fixed-size chunk records, so single chunks can be read and written back
+ * without reading the whole level.
+ * A block belongs to the chunk containing its top left corner. Every chunk record holds its blocks count,
+ * an alive bitmask and a fixed number of block slots (x, y, width, height floats and an RGB int).
+ * Balls are kept in a trailer after all chunk records.
+ */
+public class ChunkStore implements Closeable {
+    public static final int CHUNK_WIDTH = LevelGenerator.CHUNK_SIZE * LevelGenerator.CELL_WIDTH;
+    public static final int CHUNK_HEIGHT = LevelGenerator.CHUNK_SIZE * LevelGenerator.CELL_HEIGHT;
+    public static final int DEFAULT_CAPACITY = LevelGenerator.CHUNK_SIZE * LevelGenerator.CHUNK_SIZE;
+    private static final int MAGIC = 0x41524B43;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 20;
+    private static final int BALL_SIZE = 16;
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int chunkColumns;
+    private final int chunkRows;
+    private final int capacity;
+    private final int recordSize;
+    // Reused for reading and writing a whole chunk record
+    private final ByteBuffer record;
+    private long aliveBlocks;
+
+    /**
+     * Opens an existing chunk store.
+     * @param path chunk store path
+     * @throws IOException if store couldn't be read or is malformed
+     */
+    public ChunkStore(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, 0);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a chunk store");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported chunk store version " + version);
+            }
+            this.width = header.getInt();
+            this.height = header.getInt();
+            this.capacity = header.getInt();
+            this.chunkColumns = columnsOf(this.width);
+            this.chunkRows = rowsOf(this.height);
+            this.recordSize = recordSizeOf(this.capacity);
+            this.record = ByteBuffer.allocateDirect(this.recordSize);
+
+            // Alive blocks are counted from chunk bitmasks, which are kept up to date on write back
+            ByteBuffer alive = ByteBuffer.allocate(this.recordSize - this.capacity * SLOT_SIZE);
+            for (int i = 0; i < this.getChunks(); i++) {
+                alive.clear();
+                readFully(alive, this.offsetOf(i));
+                alive.getInt();
+                while (alive.hasRemaining()) {
+                    this.aliveBlocks += Long.bitCount(alive.getLong());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     *
+     * @param width level width
+     * @return number of chunk columns covering given width
+     */
+    private static int columnsOf(int width) {
+        return Math.max(1, (width + CHUNK_WIDTH - 1) / CHUNK_WIDTH);
+    }
+
+    /**
+     *
+     * @param height level height
+     * @return number of chunk rows covering given height
+     */
+    private static int rowsOf(int height) {
+        return Math.max(1, (height + CHUNK_HEIGHT - 1) / CHUNK_HEIGHT);
+    }
+
+    /**
+     *
+     * @param capacity block slots per chunk
+     * @return size of a chunk record in bytes
+     */
+    private static int recordSizeOf(int capacity) {
+        return Integer.BYTES + (capacity / Long.SIZE) * Long.BYTES + capacity * SLOT_SIZE;
+    }
+
+    /**
+     * Reads from channel until given buffer is full.
+     * @param buffer buffer to fill
+     * @param position channel position to read from
+     * @throws IOException if store is truncated
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = this.channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Truncated chunk store");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     *
+     * @param chunk chunk index
+     * @return position of chunk record in store
+     */
+    private long offsetOf(int chunk) {
+        return HEADER_SIZE + (long) chunk * this.recordSize;
+    }
+
+    /**
+     *
+     * @return level width
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     *
+     * @return level height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     *
+     * @return number of chunk columns
+     */
+    public int getChunkColumns() {
+        return this.chunkColumns;
+    }
+
+    /**
+     *
+     * @return number of chunk rows
+     */
+    public int getChunkRows() {
+        return this.chunkRows;
+    }
+
+    /**
+     *
+     * @return number of chunks
+     */
+    public int getChunks() {
+        return this.chunkColumns * this.chunkRows;
+    }
+
+    /**
+     *
+     * @return block slots per chunk
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     *
+     * @return number of blocks not destroyed yet, in all chunks
+     */
+    public long getAliveBlocks() {
+        return this.aliveBlocks;
+    }
+
+    /**
+     *
+     * @param x x value
+     * @param y y value
+     * @return index of chunk containing given point, clamped to level chunks
+     */
+    public int chunkAt(double x, double y) {
+        int column = Math.max(0, Math.min(this.chunkColumns - 1, (int) Math.floor(x / CHUNK_WIDTH)));
+        int row = Math.max(0, Math.min(this.chunkRows - 1, (int) Math.floor(y / CHUNK_HEIGHT)));
+        return row * this.chunkColumns + column;
+    }
+
+    /**
+     * Reads a chunk record.
+     * @param chunk chunk index
+     * @param bounds array of at least 4 * capacity, set to x, y, width and height of every slot
+     * @param colors array of at least capacity, set to RGB value of every slot
+     * @param alive array of capacity / 64 longs, set to alive bitmask of slots
+     * @return number of used slots
+     * @throws IOException if chunk couldn't be read
+     */
+    public int readChunk(int chunk, float[] bounds, int[] colors, long[] alive) throws IOException {
+        this.record.clear();
+        readFully(this.record, this.offsetOf(chunk));
+        int count = this.record.getInt();
+        for (int i = 0; i < alive.length; i++) {
+            alive[i] = this.record.getLong();
+        }
+        for (int i = 0; i < count; i++) {
+            bounds[4 * i] = this.record.getFloat();
+            bounds[4 * i + 1] = this.record.getFloat();
+            bounds[4 * i + 2] = this.record.getFloat();
+            bounds[4 * i + 3] = this.record.getFloat();
+            colors[i] = this.record.getInt();
+        }
+        return count;
+    }
+
+    /**
+     * Writes back alive bitmask of a chunk, after some of its blocks were destroyed.
+     * @param chunk chunk index
+     * @param alive alive bitmask of chunk slots
+     * @param destroyed number of blocks destroyed since chunk was read or last written back
+     * @throws IOException if chunk couldn't be written
+     */
+    public void writeAlive(int chunk, long[] alive, int destroyed) throws IOException {
+        this.record.clear();
+        for (int i = 0; i < alive.length; i++) {
+            this.record.putLong(alive[i]);
+        }
+        this.record.flip();
+        long position = this.offsetOf(chunk) + Integer.BYTES;
+        while (this.record.hasRemaining()) {
+            position += this.channel.write(this.record, position);
+        }
+        this.aliveBlocks -= destroyed;
+    }
+
+    /**
+     * Reads all balls into given sink.
+     * @param sink level sink
+     * @throws IOException if balls couldn't be read
+     */
+    public void readBalls(LevelSink sink) throws IOException {
+        long position = this.offsetOf(this.getChunks());
+        ByteBuffer count = ByteBuffer.allocate(Integer.BYTES);
+        readFully(count, position);
+        ByteBuffer balls = ByteBuffer.allocate(count.getInt() * BALL_SIZE);
+        readFully(balls, position + Integer.BYTES);
+        while (balls.hasRemaining()) {
+            sink.addBall(balls.getFloat(), balls.getFloat(), balls.getFloat(), balls.getFloat());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Creates a chunk store, to be filled through the returned level sink.
+     * @param path chunk store path
+     * @param width level width
+     * @param height level height
+     * @param capacity block slots per chunk, a multiple of 64
+     * @return chunk store builder
+     * @throws IOException if store couldn't be created
+     */
+    public static Builder create(Path path, int width, int height, int capacity) throws IOException {
+        if (capacity <= 0 || capacity % Long.SIZE != 0) {
+            throw new IllegalArgumentException("Chunk capacity must be a positive multiple of 64");
+        }
+        return new Builder(path, width, height, capacity);
+    }
+
+    /**
+     * Converts a level file to a chunk store, streaming blocks into their chunks.
+     * @param level level reader
+     * @param path chunk store path
+     * @throws IOException if level couldn't be read or store couldn't be written
+     */
+    public static void convert(LevelReader level, Path path) throws IOException {
+        try (Builder builder = create(path, level.getWidth(), level.getHeight(), DEFAULT_CAPACITY)) {
+            level.readInto(builder);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Converts a level file, in text or binary form, to a chunk store.
+     * Usage: ChunkStore level.bin world.chunks
+     * @param args level path and chunk store path
+     * @throws IOException if level couldn't be read or store couldn't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ChunkStore <level> <chunk store>");
+        }
+        try (LevelReader reader = LevelReader.open(Paths.get(args[0]))) {
+            convert(reader, Paths.get(args[1]));
+        }
+    }
+
+    /**
+     * Level sink which writes blocks into their chunk slots as they arrive.
+     * Slots are written through small per-chunk buffers, so memory depends on number of chunks only.
+     * Chunk headers and balls are written on close. Write failures are thrown as UncheckedIOException.
+     */
+    public static final class Builder implements LevelSink, Closeable {
+        private static final int SLOTS_PER_FLUSH = 64;
+        private final FileChannel channel;
+        private final int chunkColumns;
+        private final int chunks;
+        private final int capacity;
+        private final int recordSize;
+        private final int[] counts;
+        // Slots not written yet, by chunk, created on first block of chunk
+        private final ByteBuffer[] pending;
+        private final int[] pendingFirst;
+        private final ByteArrayOutputStream balls;
+        private int ballsCount;
+
+        /**
+         * Constructs a chunk store builder and writes store header.
+         * @param path chunk store path
+         * @param width level width
+         * @param height level height
+         * @param capacity block slots per chunk
+         * @throws IOException if store couldn't be created
+         */
+        private Builder(Path path, int width, int height, int capacity) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+            this.chunkColumns = columnsOf(width);
+            this.chunks = this.chunkColumns * rowsOf(height);
+            this.capacity = capacity;
+            this.recordSize = recordSizeOf(capacity);
+            this.counts = new int[this.chunks];
+            this.pending = new ByteBuffer[this.chunks];
+            this.pendingFirst = new int[this.chunks];
+            this.balls = new ByteArrayOutputStream();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(capacity);
+            header.position(HEADER_SIZE).flip();
+            this.write(header, 0);
+        }
+
+        /**
+         * Writes a whole buffer to channel.
+         * @param buffer buffer to write
+         * @param position channel position to write to
+         * @throws IOException if buffer couldn't be written
+         */
+        private void write(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += this.channel.write(buffer, position);
+            }
+        }
+
+        /**
+         * Writes pending slots of a chunk.
+         * @param chunk chunk index
+         * @throws IOException if slots couldn't be written
+         */
+        private void flush(int chunk) throws IOException {
+            ByteBuffer buffer = this.pending[chunk];
+            buffer.flip();
+            long position = HEADER_SIZE + (long) chunk * this.recordSize + this.recordSize
+                    - (long) this.capacity * SLOT_SIZE + (long) this.pendingFirst[chunk] * SLOT_SIZE;
+            this.write(buffer, position);
+            buffer.clear();
+            this.pendingFirst[chunk] = this.counts[chunk];
+        }
+
+        @Override
+        public void addBall(double x, double y, double dx, double dy) {
+            ByteBuffer ball = ByteBuffer.allocate(BALL_SIZE);
+            ball.putFloat((float) x).putFloat((float) y).putFloat((float) dx).putFloat((float) dy);
+            this.balls.write(ball.array(), 0, BALL_SIZE);
+            this.ballsCount++;
+        }
+
+        @Override
+        public void addBlock(double x, double y, double width, double height, Color color) {
+            // Chunk is found by stored coordinates, exactly as chunkAt finds it for a loaded block
+            float fx = (float) x, fy = (float) y;
+            int column = Math.max(0, Math.min(this.chunkColumns - 1, (int) Math.floor(fx / CHUNK_WIDTH)));
+            int row = Math.max(0, Math.min(this.chunks / this.chunkColumns - 1, (int) Math.floor(fy / CHUNK_HEIGHT)));
+            int chunk = row * this.chunkColumns + column;
+            if (this.counts[chunk] == this.capacity) {
+                throw new UncheckedIOException(new IOException("Chunk (" + column + ", " + row + ") has more than "
+                        + this.capacity + " blocks"));
+            }
+
+            if (this.pending[chunk] == null) {
+                this.pending[chunk] = ByteBuffer.allocate(SLOTS_PER_FLUSH * SLOT_SIZE);
+            }
+            ByteBuffer buffer = this.pending[chunk];
+            buffer.putFloat(fx).putFloat(fy).putFloat((float) width).putFloat((float) height)
+                    .putInt(color.getRGB() & 0xFFFFFF);
+            this.counts[chunk]++;
+            if (!buffer.hasRemaining()) {
+                try {
+                    this.flush(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // Chunk headers - count and alive bitmask of all used slots
+                ByteBuffer header = ByteBuffer.allocate(this.recordSize - this.capacity * SLOT_SIZE);
+                for (int chunk = 0; chunk < this.chunks; chunk++) {
+                    if (this.pending[chunk] != null && this.pending[chunk].position() > 0) {
+                        this.flush(chunk);
+                    }
+                    header.clear();
+                    int count = this.counts[chunk];
+                    header.putInt(count);
+                    for (int i = 0; i < this.capacity / Long.SIZE; i++) {
+                        int bits = Math.max(0, Math.min(Long.SIZE, count - i * Long.SIZE));
+                        header.putLong(bits == Long.SIZE ? -1L : (1L << bits) - 1);
+                    }
+                    header.flip();
+                    this.write(header, HEADER_SIZE + (long) chunk * this.recordSize);
+                }
+
+                // Balls trailer, after last chunk record
+                long position = HEADER_SIZE + (long) this.chunks * this.recordSize;
+                ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES + this.balls.size());
+                trailer.putInt(this.ballsCount).put(this.balls.toByteArray()).flip();
+                this.write(trailer, position);
+            } finally {
+                this.channel.close();
+            }
+        }
+    }
+}
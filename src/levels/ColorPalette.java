@@ -0,0 +1,42 @@
+package levels;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches colors by their RGB value, so levels with many blocks share a few color objects.
+ */
+public class ColorPalette {
+    private final Map<Integer, Color> colors;
+
+    /**
+     * Constructs an empty color palette.
+     */
+    public ColorPalette() {
+        this.colors = new HashMap<>();
+    }
+
+    /**
+     *
+     * @param rgb RGB value, alpha bits are ignored
+     * @return color of given RGB value
+     */
+    public Color get(int rgb) {
+        rgb &= 0xFFFFFF;
+        Color color = this.colors.get(rgb);
+        if (color == null) {
+            color = new Color(rgb);
+            this.colors.put(rgb, color);
+        }
+        return color;
+    }
+
+    /**
+     *
+     * @return number of distinct colors in palette
+     */
+    public int size() {
+        return this.colors.size();
+    }
+}
@@ -0,0 +1,334 @@
+package levels;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Generates huge block fields for capacity testing, streaming them into a level sink.
+ * The field is a grid of cells, generated chunk by chunk, so only a single chunk is held in memory.
+ * Every chunk has its own random stream derived from the seed and chunk position, and noise is derived
+ * from the seed and cell position, so the same seed always produces the same level.
+ * Usage: LevelGenerator --out level.bin [--seed N] [--pattern MAZE] [--cols N] [--rows N] [--density D]
+ * [--balls N] [--text | --chunks]
+ */
+public class LevelGenerator {
+    public static final int CELL_WIDTH = 20;
+    public static final int CELL_HEIGHT = 10;
+    public static final int CHUNK_SIZE = 64;
+    private static final int BORDER = 30;
+    private static final int TOP = BORDER + 100;
+    private static final int BOTTOM_SPACE = 300;
+    private static final int NOISE_SCALE = 8;
+    private static final Color[] COLORS = {Color.RED.darker(), Color.CYAN, Color.MAGENTA,
+            Color.BLUE.brighter(), Color.PINK, Color.GREEN};
+
+    private final long seed;
+    private final LevelPattern pattern;
+    private final int columns;
+    private final int rows;
+    private final double density;
+    private final int balls;
+
+    // Current chunk cells, reused by all chunks
+    private final boolean[] cells;
+    private final int[] mazeStack;
+    private final boolean[] mazeVisited;
+    private final int[] mazeNeighbours;
+    private long state;
+
+    /**
+     * Constructs a level generator.
+     * @param seed random seed
+     * @param pattern block field pattern
+     * @param columns number of cell columns
+     * @param rows number of cell rows
+     * @param density fraction of cells holding blocks, for patterns which use it
+     * @param balls number of balls
+     */
+    public LevelGenerator(long seed, LevelPattern pattern, int columns, int rows, double density, int balls) {
+        this.seed = seed;
+        this.pattern = pattern;
+        this.columns = columns;
+        this.rows = rows;
+        this.density = density;
+        this.balls = balls;
+        this.cells = new boolean[CHUNK_SIZE * CHUNK_SIZE];
+        int rooms = (CHUNK_SIZE / 2) * (CHUNK_SIZE / 2);
+        this.mazeStack = new int[rooms];
+        this.mazeVisited = new boolean[rooms];
+        this.mazeNeighbours = new int[4];
+    }
+
+    /**
+     *
+     * @return level width, fitting all columns between borders
+     */
+    public int getWidth() {
+        return 2 * BORDER + this.columns * CELL_WIDTH;
+    }
+
+    /**
+     *
+     * @return level height, fitting all rows and leaving space for balls and paddle
+     */
+    public int getHeight() {
+        return TOP + this.rows * CELL_HEIGHT + BOTTOM_SPACE;
+    }
+
+    /**
+     * Scrambles bits of a value (SplitMix64 finalizer).
+     * @param z value to scramble
+     * @return scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     *
+     * @param a first key
+     * @param b second key
+     * @return random value derived from seed and given keys
+     */
+    private long hash(long a, long b) {
+        return mix(this.seed ^ mix(a * 0x9E3779B97F4A7C15L ^ mix(b)));
+    }
+
+    /**
+     *
+     * @return next value of current chunk's random stream
+     */
+    private long nextLong() {
+        this.state += 0x9E3779B97F4A7C15L;
+        return mix(this.state);
+    }
+
+    /**
+     *
+     * @param bound exclusive upper bound
+     * @return next random int in [0, bound)
+     */
+    private int nextInt(int bound) {
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     *
+     * @return next random double in [0, 1)
+     */
+    private double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     *
+     * @param x lattice x
+     * @param y lattice y
+     * @return random value in [0, 1) of lattice point
+     */
+    private double latticeValue(long x, long y) {
+        return (hash(x, y) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Calculates smoothly interpolated value noise of a cell.
+     * @param x cell column
+     * @param y cell row
+     * @return noise value in [0, 1)
+     */
+    private double noise(int x, int y) {
+        int lx = x / NOISE_SCALE, ly = y / NOISE_SCALE;
+        double fx = (double) (x % NOISE_SCALE) / NOISE_SCALE, fy = (double) (y % NOISE_SCALE) / NOISE_SCALE;
+        // Smoothstep, so noise has no visible lattice lines
+        fx = fx * fx * (3 - 2 * fx);
+        fy = fy * fy * (3 - 2 * fy);
+        double top = latticeValue(lx, ly) + fx * (latticeValue(lx + 1, ly) - latticeValue(lx, ly));
+        double bottom = latticeValue(lx, ly + 1) + fx * (latticeValue(lx + 1, ly + 1) - latticeValue(lx, ly + 1));
+        return top + fy * (bottom - top);
+    }
+
+    /**
+     * Fills current chunk cells with maze walls.
+     * Rooms are at odd cells, walls at even cells, and the top and left walls of the chunk have a single
+     * opening each, so neighbour chunk mazes are connected.
+     */
+    private void carveMaze() {
+        Arrays.fill(this.cells, true);
+        Arrays.fill(this.mazeVisited, false);
+        int side = CHUNK_SIZE / 2;
+
+        // Randomized depth first search over rooms
+        int top = 0;
+        this.mazeStack[top++] = 0;
+        this.mazeVisited[0] = true;
+        this.cells[CHUNK_SIZE + 1] = false;
+        int[] neighbours = this.mazeNeighbours;
+        while (top > 0) {
+            int room = this.mazeStack[top - 1];
+            int rx = room % side, ry = room / side;
+            int count = 0;
+            if (rx > 0 && !this.mazeVisited[room - 1]) {
+                neighbours[count++] = room - 1;
+            }
+            if (rx < side - 1 && !this.mazeVisited[room + 1]) {
+                neighbours[count++] = room + 1;
+            }
+            if (ry > 0 && !this.mazeVisited[room - side]) {
+                neighbours[count++] = room - side;
+            }
+            if (ry < side - 1 && !this.mazeVisited[room + side]) {
+                neighbours[count++] = room + side;
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+
+            int next = neighbours[nextInt(count)];
+            int nx = next % side, ny = next / side;
+            this.mazeVisited[next] = true;
+            this.mazeStack[top++] = next;
+            // Carve next room and the wall between the rooms
+            this.cells[(2 * ny + 1) * CHUNK_SIZE + 2 * nx + 1] = false;
+            this.cells[(ry + ny + 1) * CHUNK_SIZE + rx + nx + 1] = false;
+        }
+
+        // Openings to top and left neighbour chunks
+        this.cells[2 * nextInt(side) + 1] = false;
+        this.cells[(2 * nextInt(side) + 1) * CHUNK_SIZE] = false;
+    }
+
+    /**
+     * Fills current chunk cells by pattern.
+     * @param chunkX chunk column
+     * @param chunkY chunk row
+     */
+    private void fillChunk(int chunkX, int chunkY) {
+        if (this.pattern == LevelPattern.MAZE) {
+            this.carveMaze();
+            return;
+        }
+        for (int ly = 0; ly < CHUNK_SIZE; ly++) {
+            int y = chunkY * CHUNK_SIZE + ly;
+            for (int lx = 0; lx < CHUNK_SIZE; lx++) {
+                int x = chunkX * CHUNK_SIZE + lx;
+                boolean filled;
+                switch (this.pattern) {
+                    case PATTERN -> filled = (x + (y % 2) * 2) % 4 != 3;
+                    case DENSITY -> filled = nextDouble() < this.density;
+                    default -> filled = noise(x, y) < this.density;
+                }
+                this.cells[ly * CHUNK_SIZE + lx] = filled;
+            }
+        }
+    }
+
+    /**
+     * Generates balls and then all blocks, chunk by chunk, into given sink.
+     * @param sink level sink, of a level of this generator's size
+     * @return number of generated blocks
+     */
+    public long generate(LevelSink sink) {
+        // Balls, lined up from the bottom right like the default game
+        int ballsSpace = 15;
+        int width = this.getWidth(), height = this.getHeight();
+        int ballsPerRow = Math.max(1, (width - 2 * BORDER - 60) / ballsSpace);
+        for (int i = 0; i < this.balls; i++) {
+            sink.addBall(width - 90 - ballsSpace * (i % ballsPerRow), height - 100 - ballsSpace * (i / ballsPerRow),
+                    3, -5);
+        }
+
+        long blocks = 0;
+        int chunkColumns = (this.columns + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int chunkRows = (this.rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        for (int chunkY = 0; chunkY < chunkRows; chunkY++) {
+            for (int chunkX = 0; chunkX < chunkColumns; chunkX++) {
+                this.state = hash(chunkX, chunkY);
+                this.fillChunk(chunkX, chunkY);
+
+                // Emit chunk cells, clipped to field
+                int maxX = Math.min(CHUNK_SIZE, this.columns - chunkX * CHUNK_SIZE);
+                int maxY = Math.min(CHUNK_SIZE, this.rows - chunkY * CHUNK_SIZE);
+                for (int ly = 0; ly < maxY; ly++) {
+                    int y = chunkY * CHUNK_SIZE + ly;
+                    Color color = this.pattern == LevelPattern.MAZE
+                            ? COLORS[(chunkX + chunkY) % COLORS.length] : COLORS[y % COLORS.length];
+                    for (int lx = 0; lx < maxX; lx++) {
+                        if (this.cells[ly * CHUNK_SIZE + lx]) {
+                            int x = chunkX * CHUNK_SIZE + lx;
+                            sink.addBlock(BORDER + (double) x * CELL_WIDTH, TOP + (double) y * CELL_HEIGHT,
+                                    CELL_WIDTH, CELL_HEIGHT, color);
+                            blocks++;
+                        }
+                    }
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Generates the level straight into a level file.
+     * @param path level file path
+     * @param binary whether to write the binary form, else the text form
+     * @return number of generated blocks
+     * @throws IOException if file couldn't be written
+     */
+    public long write(Path path, boolean binary) throws IOException {
+        try (LevelWriter writer = LevelWriter.create(path, this.getWidth(), this.getHeight(), binary)) {
+            return this.generate(writer);
+        }
+    }
+
+    /**
+     * Generates a level file.
+     * @param args command line options
+     * @throws IOException if file couldn't be written
+     */
+    public static void main(String[] args) throws IOException {
+        long seed = 42;
+        LevelPattern pattern = LevelPattern.NOISE;
+        int columns = 1000;
+        int rows = 1000;
+        double density = 0.5;
+        int balls = 35;
+        boolean binary = true;
+        boolean chunks = false;
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--pattern" -> pattern = LevelPattern.valueOf(args[++i]);
+                case "--cols" -> columns = Integer.parseInt(args[++i]);
+                case "--rows" -> rows = Integer.parseInt(args[++i]);
+                case "--density" -> density = Double.parseDouble(args[++i]);
+                case "--balls" -> balls = Integer.parseInt(args[++i]);
+                case "--text" -> binary = false;
+                case "--chunks" -> chunks = true;
+                case "--out" -> out = Paths.get(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Missing --out level file");
+        }
+
+        long start = System.nanoTime();
+        LevelGenerator generator = new LevelGenerator(seed, pattern, columns, rows, density, balls);
+        long blocks;
+        if (chunks) {
+            try (ChunkStore.Builder builder = ChunkStore.create(out, generator.getWidth(), generator.getHeight(),
+                    ChunkStore.DEFAULT_CAPACITY)) {
+                blocks = generator.generate(builder);
+            }
+        } else {
+            blocks = generator.write(out, binary);
+        }
+        System.out.printf("Generated %d blocks into %s in %.1f s%n", blocks, out, (System.nanoTime() - start) / 1e9);
+    }
+}
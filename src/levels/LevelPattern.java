@@ -0,0 +1,15 @@
+package levels;
+
+/**
+ * Represents a block field layout produced by the level generator.
+ */
+public enum LevelPattern {
+    // Staggered rows of three cells wide bricks, density is ignored
+    PATTERN,
+    // Every cell holds a block with a probability equal to density
+    DENSITY,
+    // Smooth value noise, cells below the density threshold hold blocks
+    NOISE,
+    // Maze walls, each chunk is a maze connected to its top and left neighbours
+    MAZE
+}
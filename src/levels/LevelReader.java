@@ -0,0 +1,77 @@
+package levels;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams a level file into a level sink, without holding the whole level in memory.
+ * The level size is read on opening, so a game can be constructed before its objects are read.
+ */
+public abstract class LevelReader implements Closeable {
+    static final int BUFFER_SIZE = 1 << 16;
+    private int width;
+    private int height;
+
+    /**
+     * Sets level size, called by subclasses once header is read.
+     * @param width level width
+     * @param height level height
+     */
+    void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Opens a level file, detecting whether it's in text or binary form.
+     * @param path level file path
+     * @return level reader positioned after level header
+     * @throws IOException if file couldn't be read or is malformed
+     */
+    public static LevelReader open(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        try {
+            in.mark(4);
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                magic = (magic << 8) | (in.read() & 0xFF);
+            }
+            in.reset();
+            if (magic == BinaryLevelReader.MAGIC) {
+                return new BinaryLevelReader(in);
+            }
+            return new TextLevelReader(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     *
+     * @return level width
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     *
+     * @return level height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Reads all remaining level objects, passing each one to given sink as soon as it's read.
+     * @param sink level sink
+     * @return number of objects read
+     * @throws IOException if file couldn't be read or is malformed
+     */
+    public abstract long readInto(LevelSink sink) throws IOException;
+}
@@ -0,0 +1,27 @@
+package levels;
+
+import java.awt.Color;
+
+/**
+ * Receives level objects one by one, as they are read or generated.
+ */
+public interface LevelSink {
+    /**
+     * Adds a ball to the level.
+     * @param x x value of ball's center
+     * @param y y value of ball's center
+     * @param dx ball velocity x delta
+     * @param dy ball velocity y delta
+     */
+    void addBall(double x, double y, double dx, double dy);
+
+    /**
+     * Adds a block to the level.
+     * @param x x value of block's top left corner
+     * @param y y value of block's top left corner
+     * @param width block width
+     * @param height block height
+     * @param color block color
+     */
+    void addBlock(double x, double y, double width, double height, Color color);
+}
@@ -0,0 +1,35 @@
+package levels;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Level sink which writes every object it receives to a level file, as soon as it's received.
+ * Write failures are thrown as UncheckedIOException, since level sinks don't throw checked exceptions.
+ */
+public abstract class LevelWriter implements LevelSink, Closeable {
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Creates a level file and writes its header.
+     * @param path level file path
+     * @param width level width
+     * @param height level height
+     * @param binary whether to write the binary form, else the text form
+     * @return level writer
+     * @throws IOException if file couldn't be created
+     */
+    public static LevelWriter create(Path path, int width, int height, boolean binary) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        try {
+            return binary ? new BinaryLevelWriter(out, width, height) : new TextLevelWriter(out, width, height);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package levels;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the line-oriented text form of a level.
+ * First line is "size width height", followed by "ball x y dx dy" and "block x y width height #RRGGBB" lines.
+ * Empty lines and lines starting with '#' are ignored.
+ */
+public class TextLevelReader extends LevelReader {
+    private static final int MAX_FIELDS = 6;
+    // Up to 15 digits, both mantissa and power of ten are exact doubles, so their quotient is correctly rounded
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+    };
+    private final BufferedReader reader;
+    private final ColorPalette palette;
+    // Fields of current line, as start and end offsets
+    private final int[] starts;
+    private final int[] ends;
+    private long lineNumber;
+
+    /**
+     * Constructs a text level reader and reads level header.
+     * @param in level input stream
+     * @throws IOException if header couldn't be read or is malformed
+     */
+    TextLevelReader(InputStream in) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.palette = new ColorPalette();
+        this.starts = new int[MAX_FIELDS];
+        this.ends = new int[MAX_FIELDS];
+        this.readHeader();
+    }
+
+    /**
+     * Reads the "size" line, skipping preceding comments.
+     * @throws IOException if there is no valid size line
+     */
+    private void readHeader() throws IOException {
+        String line;
+        int fields;
+        do {
+            line = this.reader.readLine();
+            this.lineNumber++;
+            if (line == null) {
+                throw new IOException("Level has no size line");
+            }
+            fields = this.split(line);
+        } while (fields == 0 || line.charAt(this.starts[0]) == '#');
+
+        if (fields != 3 || !this.is(line, 0, "size")) {
+            throw new IOException("Line " + this.lineNumber + ": expected \"size width height\"");
+        }
+        try {
+            this.setSize((int) number(line, 1), (int) number(line, 2));
+        } catch (NumberFormatException e) {
+            throw new IOException("Line " + this.lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits a line into whitespace separated fields.
+     * @param line line to split
+     * @return number of fields, up to one more than max fields
+     */
+    private int split(String line) {
+        int count = 0;
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            if (count == MAX_FIELDS) {
+                return count + 1;
+            }
+            this.starts[count] = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            this.ends[count] = i;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Parses a field as a number.
+     * Plain decimals are parsed in place, which is exact as long as their digits fit in a double mantissa,
+     * any other form falls back to Double.parseDouble.
+     * @param line current line
+     * @param field field index
+     * @return field as a number
+     */
+    private double number(String line, int field) {
+        int i = this.starts[field];
+        int end = this.ends[field];
+        boolean negative = i < end && line.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+
+        if (i != end || digits == 0 || digits > MAX_EXACT_DIGITS) {
+            return Double.parseDouble(line.substring(this.starts[field], end));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     *
+     * @param line current line
+     * @param field field index
+     * @param keyword expected keyword
+     * @return whether field equals given keyword
+     */
+    private boolean is(String line, int field, String keyword) {
+        int length = this.ends[field] - this.starts[field];
+        return length == keyword.length() && line.startsWith(keyword, this.starts[field]);
+    }
+
+    @Override
+    public long readInto(LevelSink sink) throws IOException {
+        long count = 0;
+        String line;
+        while ((line = this.reader.readLine()) != null) {
+            this.lineNumber++;
+            int fields = this.split(line);
+            if (fields == 0 || line.charAt(this.starts[0]) == '#') {
+                continue;
+            }
+
+            try {
+                if (fields == 5 && this.is(line, 0, "ball")) {
+                    sink.addBall(number(line, 1), number(line, 2), number(line, 3), number(line, 4));
+                } else if (fields == 6 && this.is(line, 0, "block") && line.charAt(this.starts[5]) == '#') {
+                    int rgb = Integer.parseInt(line.substring(this.starts[5] + 1, this.ends[5]), 16);
+                    sink.addBlock(number(line, 1), number(line, 2), number(line, 3), number(line, 4),
+                            this.palette.get(rgb));
+                } else {
+                    throw new IOException("Line " + this.lineNumber + ": unknown or malformed object");
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + this.lineNumber + ": " + e.getMessage(), e);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
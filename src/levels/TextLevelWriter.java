@@ -0,0 +1,87 @@
+package levels;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the line-oriented text form of a level, as read by TextLevelReader.
+ */
+public class TextLevelWriter extends LevelWriter {
+    private final Writer out;
+    private final StringBuilder line;
+
+    /**
+     * Constructs a text level writer and writes level header.
+     * @param out level output stream
+     * @param width level width
+     * @param height level height
+     * @throws IOException if header couldn't be written
+     */
+    TextLevelWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.line = new StringBuilder();
+        this.out.write("size " + width + " " + height + "\n");
+    }
+
+    /**
+     * Appends a number to current line, without a fraction if it's integral.
+     * @param value number to append
+     */
+    private void append(double value) {
+        this.line.append(' ');
+        if (value == (long) value) {
+            this.line.append((long) value);
+        } else {
+            this.line.append(value);
+        }
+    }
+
+    /**
+     * Writes current line and clears it.
+     */
+    private void flushLine() {
+        try {
+            this.line.append('\n');
+            this.out.append(this.line);
+            this.line.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void addBall(double x, double y, double dx, double dy) {
+        this.line.append("ball");
+        this.append(x);
+        this.append(y);
+        this.append(dx);
+        this.append(dy);
+        this.flushLine();
+    }
+
+    @Override
+    public void addBlock(double x, double y, double width, double height, Color color) {
+        this.line.append("block");
+        this.append(x);
+        this.append(y);
+        this.append(width);
+        this.append(height);
+        int rgb = color.getRGB() & 0xFFFFFF;
+        this.line.append(" #");
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            this.line.append(Character.toUpperCase(Character.forDigit((rgb >> shift) & 0xF, 16)));
+        }
+        this.flushLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+}
@@ -0,0 +1,211 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts collision engine work, published as a platform MBean named {@value #OBJECT_NAME}.
+ * Counters are shared by all game environments in the process.
+ */
+public final class CollisionMetrics implements CollisionMetricsMBean {
+    public static final String OBJECT_NAME = "arkanoid:type=CollisionMetrics";
+    private static final CollisionMetrics INSTANCE = new CollisionMetrics();
+    private static final long SAMPLE_WINDOW_NANOS = 1_000_000_000L;
+
+    // Counters indexes, used for rates sampling
+    private static final int QUERIES = 0;
+    private static final int CANDIDATES = 1;
+    private static final int NARROWPHASE = 2;
+    private static final int HITS = 3;
+    private static final int CLOSE_POINT = 4;
+    private static final int PADDLE_ESCAPES = 5;
+    private static final int SKIPPED = 6;
+
+    private final LongAdder[] counters;
+    private final long[] lastSample;
+    private final double[] rates;
+    private long lastSampleTime;
+    private boolean registered;
+
+    /**
+     * Constructs collision metrics with zeroed counters.
+     */
+    private CollisionMetrics() {
+        this.counters = new LongAdder[SKIPPED + 1];
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i] = new LongAdder();
+        }
+        this.lastSample = new long[this.counters.length];
+        this.rates = new double[this.counters.length];
+        this.lastSampleTime = System.nanoTime();
+    }
+
+    /**
+     *
+     * @return the process-wide collision metrics
+     */
+    public static CollisionMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers collision metrics with the platform MBean server, if not registered yet.
+     */
+    public static synchronized void registerMBean() {
+        if (INSTANCE.registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            INSTANCE.registered = true;
+        } catch (JMException e) {
+            System.err.println("Couldn't register collision metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a single closest collision query.
+     * @param candidates collidables considered by the broadphase
+     * @param narrowphaseTests segment tests made against collidable rectangles
+     * @param hit whether a collision was found
+     */
+    public void query(int candidates, int narrowphaseTests, boolean hit) {
+        this.counters[QUERIES].increment();
+        this.counters[CANDIDATES].add(candidates);
+        this.counters[NARROWPHASE].add(narrowphaseTests);
+        if (hit) {
+            this.counters[HITS].increment();
+        }
+    }
+
+    /**
+     * Records a follow-up query of a ball which bounced earlier in the same step.
+     */
+    public void closePointQuery() {
+        this.counters[CLOSE_POINT].increment();
+    }
+
+    /**
+     * Records a ball escaping from inside the paddle.
+     */
+    public void paddleEscape() {
+        this.counters[PADDLE_ESCAPES].increment();
+    }
+
+    /**
+     * Records a ball step which skipped the query of static collidables, as it moved within its clearance.
+     */
+    public void skippedQuery() {
+        this.counters[SKIPPED].increment();
+    }
+
+    /**
+     * Calculates rate of given counter, sampling all counters once a window has passed.
+     * @param index counter index
+     * @return counter's events per second
+     */
+    private synchronized double rate(int index) {
+        long now = System.nanoTime();
+        long elapsed = now - this.lastSampleTime;
+        if (elapsed >= SAMPLE_WINDOW_NANOS) {
+            double seconds = elapsed / 1e9;
+            for (int i = 0; i < this.counters.length; i++) {
+                long value = this.counters[i].sum();
+                this.rates[i] = (value - this.lastSample[i]) / seconds;
+                this.lastSample[i] = value;
+            }
+            this.lastSampleTime = now;
+        }
+        return this.rates[index];
+    }
+
+    @Override
+    public long getQueries() {
+        return this.counters[QUERIES].sum();
+    }
+
+    @Override
+    public long getBroadphaseCandidates() {
+        return this.counters[CANDIDATES].sum();
+    }
+
+    @Override
+    public long getNarrowphaseTests() {
+        return this.counters[NARROWPHASE].sum();
+    }
+
+    @Override
+    public long getHits() {
+        return this.counters[HITS].sum();
+    }
+
+    @Override
+    public long getClosePointQueries() {
+        return this.counters[CLOSE_POINT].sum();
+    }
+
+    @Override
+    public long getPaddleEscapes() {
+        return this.counters[PADDLE_ESCAPES].sum();
+    }
+
+    @Override
+    public long getSkippedQueries() {
+        return this.counters[SKIPPED].sum();
+    }
+
+    @Override
+    public double getQueriesPerSecond() {
+        return this.rate(QUERIES);
+    }
+
+    @Override
+    public double getBroadphaseCandidatesPerSecond() {
+        return this.rate(CANDIDATES);
+    }
+
+    @Override
+    public double getNarrowphaseTestsPerSecond() {
+        return this.rate(NARROWPHASE);
+    }
+
+    @Override
+    public double getHitsPerSecond() {
+        return this.rate(HITS);
+    }
+
+    @Override
+    public double getClosePointQueriesPerSecond() {
+        return this.rate(CLOSE_POINT);
+    }
+
+    @Override
+    public double getPaddleEscapesPerSecond() {
+        return this.rate(PADDLE_ESCAPES);
+    }
+
+    @Override
+    public double getSkippedQueriesPerSecond() {
+        return this.rate(SKIPPED);
+    }
+
+    @Override
+    public synchronized double getCandidatesPerQuery() {
+        double queries = this.rate(QUERIES);
+        return queries == 0 ? 0 : this.rate(CANDIDATES) / queries;
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i].reset();
+            this.lastSample[i] = 0;
+            this.rates[i] = 0;
+        }
+        this.lastSampleTime = System.nanoTime();
+    }
+}
@@ -0,0 +1,101 @@
+package metrics;
+
+/**
+ * Management interface of collision engine metrics.
+ */
+public interface CollisionMetricsMBean {
+    /**
+     *
+     * @return number of closest collision queries
+     */
+    long getQueries();
+
+    /**
+     *
+     * @return number of collidables considered by the broadphase of all queries
+     */
+    long getBroadphaseCandidates();
+
+    /**
+     *
+     * @return number of movement segment tests against collidable rectangles
+     */
+    long getNarrowphaseTests();
+
+    /**
+     *
+     * @return number of queries that found a collision
+     */
+    long getHits();
+
+    /**
+     *
+     * @return number of follow-up queries of balls which bounced earlier in the same step
+     */
+    long getClosePointQueries();
+
+    /**
+     *
+     * @return number of balls escaped from inside the paddle
+     */
+    long getPaddleEscapes();
+
+    /**
+     *
+     * @return number of ball steps which skipped the query of static collidables, moving within their clearance
+     */
+    long getSkippedQueries();
+
+    /**
+     *
+     * @return queries per second, measured over the last sampling window
+     */
+    double getQueriesPerSecond();
+
+    /**
+     *
+     * @return broadphase candidates per second, measured over the last sampling window
+     */
+    double getBroadphaseCandidatesPerSecond();
+
+    /**
+     *
+     * @return narrowphase tests per second, measured over the last sampling window
+     */
+    double getNarrowphaseTestsPerSecond();
+
+    /**
+     *
+     * @return hits per second, measured over the last sampling window
+     */
+    double getHitsPerSecond();
+
+    /**
+     *
+     * @return close point queries per second, measured over the last sampling window
+     */
+    double getClosePointQueriesPerSecond();
+
+    /**
+     *
+     * @return paddle escapes per second, measured over the last sampling window
+     */
+    double getPaddleEscapesPerSecond();
+
+    /**
+     *
+     * @return skipped queries per second, measured over the last sampling window
+     */
+    double getSkippedQueriesPerSecond();
+
+    /**
+     *
+     * @return average broadphase candidates per query, measured over the last sampling window
+     */
+    double getCandidatesPerQuery();
+
+    /**
+     * Resets all counters and rates to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,38 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning a single closest collision query.
+ * Queries are frequent, so only queries slower than the threshold are committed.
+ */
+@Name("arkanoid.CollisionQuery")
+@Label("Collision Query")
+@Category({"Arkanoid", "Collisions"})
+@Description("A closest collision query against the game environment")
+@StackTrace(false)
+@Threshold("20 us")
+public class CollisionQueryEvent extends Event {
+    @Label("Candidates")
+    @Description("Number of collidables tested by the query")
+    private int candidates;
+
+    @Label("Hit")
+    private boolean hit;
+
+    /**
+     * Sets event data.
+     * @param candidatesCount number of collidables tested
+     * @param isHit whether a collision was found
+     */
+    public void set(int candidatesCount, boolean isHit) {
+        this.candidates = candidatesCount;
+        this.hit = isHit;
+    }
+}
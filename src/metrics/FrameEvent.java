@@ -0,0 +1,34 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning a single iteration of the game loop.
+ */
+@Name("arkanoid.Frame")
+@Label("Frame")
+@Category({"Arkanoid", "Game Loop"})
+@Description("A single iteration of the game loop")
+@StackTrace(false)
+public class FrameEvent extends Event {
+    @Label("Frame Number")
+    private long frame;
+
+    @Label("Sprites")
+    private int sprites;
+
+    /**
+     * Sets event data.
+     * @param frameNumber number of frame since game start
+     * @param spritesCount number of sprites in game
+     */
+    public void set(long frameNumber, int spritesCount) {
+        this.frame = frameNumber;
+        this.sprites = spritesCount;
+    }
+}
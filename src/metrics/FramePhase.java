@@ -0,0 +1,29 @@
+package metrics;
+
+/**
+ * Represents a measured phase of a single game frame.
+ */
+public enum FramePhase {
+    INPUT("input"),
+    TIME_PASSED("timePassed"),
+    DRAW("draw"),
+    SHOW("show"),
+    CAPTURE("capture"),
+    SLEEP("sleep"),
+    FRAME("frame");
+
+    private final String label;
+
+    /**
+     * Constructs a frame phase.
+     * @param label phase label used in reports
+     */
+    FramePhase(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return this.label;
+    }
+}
@@ -0,0 +1,95 @@
+package metrics;
+
+/**
+ * Measures time spent in each phase of the game loop.
+ * Every phase is recorded in nanoseconds into its own histogram.
+ */
+public class FrameProfiler {
+    private final Histogram[] histograms;
+    private long frameStart;
+    private long lastMark;
+    private boolean frameOpen;
+
+    /**
+     * Constructs a frame profiler with empty histograms.
+     */
+    public FrameProfiler() {
+        FramePhase[] phases = FramePhase.values();
+        this.histograms = new Histogram[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            this.histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Marks the start of a new frame.
+     */
+    public void startFrame() {
+        this.frameStart = System.nanoTime();
+        this.lastMark = this.frameStart;
+        this.frameOpen = true;
+    }
+
+    /**
+     * Records time passed since last mark as given phase's duration.
+     * @param phase phase that just ended
+     */
+    public void mark(FramePhase phase) {
+        long now = System.nanoTime();
+        this.histograms[phase.ordinal()].record(now - this.lastMark);
+        this.lastMark = now;
+    }
+
+    /**
+     * Marks the end of current frame and records its total duration.
+     */
+    public void endFrame() {
+        this.lastMark = System.nanoTime();
+        this.histograms[FramePhase.FRAME.ordinal()].record(this.lastMark - this.frameStart);
+        this.frameOpen = false;
+    }
+
+    /**
+     *
+     * @return whether a frame was started and not yet ended
+     */
+    public boolean isFrameOpen() {
+        return this.frameOpen;
+    }
+
+    /**
+     *
+     * @param phase frame phase
+     * @return histogram of given phase durations, in nanoseconds
+     */
+    public Histogram getHistogram(FramePhase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    /**
+     * Clears all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i].reset();
+        }
+    }
+
+    /**
+     *
+     * @return a table of p50, p99, p99.9 and max of each phase, in microseconds
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-12s %10s %10s %10s %10s %10s%n", "phase (us)", "count", "p50", "p99", "p99.9",
+                "max"));
+        FramePhase[] phases = FramePhase.values();
+        for (int i = 0; i < phases.length; i++) {
+            Histogram h = this.histograms[i];
+            sb.append(String.format("%-12s %10d %10.1f %10.1f %10.1f %10.1f%n", phases[i], h.getCount(),
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getValueAtPercentile(99.9) / 1000.0, h.getMax() / 1000.0));
+        }
+        return sb.toString();
+    }
+}
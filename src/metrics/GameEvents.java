@@ -0,0 +1,59 @@
+package metrics;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Tracks whether a flight recording is running, so game events are only created while recording.
+ * When no recording is running, instrumented code pays a single volatile read and allocates nothing.
+ */
+public final class GameEvents {
+    private static volatile boolean recording = false;
+
+    static {
+        if (FlightRecorder.isAvailable()) {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recorderInitialized(FlightRecorder recorder) {
+                    update(recorder);
+                }
+
+                @Override
+                public void recordingStateChanged(Recording changed) {
+                    update(FlightRecorder.getFlightRecorder());
+                }
+            });
+        }
+    }
+
+    /**
+     * Prevents instantiation of utility class.
+     */
+    private GameEvents() {
+    }
+
+    /**
+     * Updates recording state according to recorder's recordings.
+     * @param recorder flight recorder
+     */
+    private static void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording r : recorder.getRecordings()) {
+            if (r.getState() == RecordingState.RUNNING) {
+                running = true;
+                break;
+            }
+        }
+        recording = running;
+    }
+
+    /**
+     *
+     * @return whether any flight recording is currently running
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+}
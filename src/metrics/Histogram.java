@@ -0,0 +1,158 @@
+package metrics;
+
+/**
+ * Represents a log-linear histogram of non-negative long values.
+ * Values are grouped into power-of-two ranges, each split into linear sub-buckets,
+ * so relative error stays below 1 / SUB_BUCKET_HALF across the whole range.
+ * Recording never allocates.
+ */
+public class Histogram {
+    // Number of bits used for linear sub-buckets, values below 2^SUB_BUCKET_BITS are exact
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKETS_LENGTH = indexOf(Long.MAX_VALUE) + 1;
+
+    private final long[] counts;
+    private long totalCount;
+    private long minValue;
+    private long maxValue;
+    private double sum;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public Histogram() {
+        this.counts = new long[BUCKETS_LENGTH];
+        this.reset();
+    }
+
+    /**
+     * Calculates the bucket index of given value.
+     * @param value non-negative value
+     * @return bucket index
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> shift);
+        return shift * SUB_BUCKET_HALF + subBucket;
+    }
+
+    /**
+     * Calculates the lowest value that falls into the given bucket.
+     * @param index bucket index
+     * @return lowest value of bucket
+     */
+    private static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long subBucket = index % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return subBucket << shift;
+    }
+
+    /**
+     * Calculates the highest value that falls into the given bucket.
+     * @param index bucket index
+     * @return highest value of bucket
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        return lowestValueAt(index) + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a single value, negative values are recorded as 0.
+     * @param value value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts[indexOf(value)]++;
+        this.totalCount++;
+        this.sum += value;
+        if (value < this.minValue) {
+            this.minValue = value;
+        }
+        if (value > this.maxValue) {
+            this.maxValue = value;
+        }
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = 0;
+        }
+        this.totalCount = 0;
+        this.minValue = Long.MAX_VALUE;
+        this.maxValue = 0;
+        this.sum = 0;
+    }
+
+    /**
+     * Calculates the value at given percentile.
+     * The result is the highest value of the matching bucket, capped by the recorded maximum.
+     * @param percentile percentile between 0 and 100
+     * @return value at percentile, or 0 if histogram is empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+
+        double clamped = Math.min(Math.max(percentile, 0), 100);
+        long target = Math.max(1, (long) Math.ceil(clamped / 100 * this.totalCount));
+        long accumulated = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            accumulated += this.counts[i];
+            if (accumulated >= target) {
+                return Math.min(highestValueAt(i), this.maxValue);
+            }
+        }
+        return this.maxValue;
+    }
+
+    /**
+     *
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return this.totalCount;
+    }
+
+    /**
+     *
+     * @return minimal recorded value, or 0 if histogram is empty
+     */
+    public long getMin() {
+        return this.totalCount == 0 ? 0 : this.minValue;
+    }
+
+    /**
+     *
+     * @return maximal recorded value, or 0 if histogram is empty
+     */
+    public long getMax() {
+        return this.maxValue;
+    }
+
+    /**
+     *
+     * @return mean of recorded values, or 0 if histogram is empty
+     */
+    public double getMean() {
+        return this.totalCount == 0 ? 0 : this.sum / this.totalCount;
+    }
+}
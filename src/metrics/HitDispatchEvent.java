@@ -0,0 +1,29 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning notification of a block's hit listeners.
+ */
+@Name("arkanoid.HitDispatch")
+@Label("Hit Dispatch")
+@Category({"Arkanoid", "Collisions"})
+@Description("Notification of all hit listeners of a hit block")
+@StackTrace(false)
+public class HitDispatchEvent extends Event {
+    @Label("Listeners")
+    private int listeners;
+
+    /**
+     * Sets event data.
+     * @param listenersCount number of notified listeners
+     */
+    public void set(int listenersCount) {
+        this.listeners = listenersCount;
+    }
+}
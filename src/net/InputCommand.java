@@ -0,0 +1,35 @@
+package net;
+
+/**
+ * Paddle input of a single client frame, numbered so the server can acknowledge it.
+ */
+public class InputCommand {
+    private final int sequence;
+    private final int input;
+
+    /**
+     * Constructs an input command.
+     * @param sequence input sequence number, increasing by one every client frame
+     * @param input input bits
+     */
+    public InputCommand(int sequence, int input) {
+        this.sequence = sequence;
+        this.input = input;
+    }
+
+    /**
+     *
+     * @return input sequence number
+     */
+    public int getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     *
+     * @return input bits
+     */
+    public int getInput() {
+        return this.input;
+    }
+}
@@ -0,0 +1,57 @@
+package net;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * Keyboard sensor replaying a player's input of current frame, given as bits, so a game can be driven by
+ * inputs received over the network exactly like by a local keyboard.
+ */
+public class InputKeyboard implements KeyboardSensor {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 2;
+
+    private int input;
+
+    /**
+     * Samples the keys a paddle reacts to into input bits.
+     * @param keyboard keyboard sensor
+     * @return input bits
+     */
+    public static int sample(KeyboardSensor keyboard) {
+        int input = 0;
+        if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
+            input |= LEFT;
+        }
+        if (keyboard.isPressed(KeyboardSensor.RIGHT_KEY)) {
+            input |= RIGHT;
+        }
+        return input;
+    }
+
+    /**
+     *
+     * @param input input bits of current frame
+     */
+    public void set(int input) {
+        this.input = input;
+    }
+
+    /**
+     *
+     * @return input bits of current frame
+     */
+    public int get() {
+        return this.input;
+    }
+
+    @Override
+    public boolean isPressed(String key) {
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return (this.input & LEFT) != 0;
+        }
+        if (KeyboardSensor.RIGHT_KEY.equals(key)) {
+            return (this.input & RIGHT) != 0;
+        }
+        return false;
+    }
+}
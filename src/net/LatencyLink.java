@@ -0,0 +1,88 @@
+package net;
+
+import java.util.ArrayDeque;
+
+/**
+ * In-process one-way link which delivers messages a fixed number of ticks after they're sent, in order,
+ * optionally losing some of them, so networked code can be tested deterministically without sockets.
+ * @param <T> message type
+ */
+public class LatencyLink<T> {
+    // Message in flight, with the tick it's delivered on
+    private static class Envelope<T> {
+        private final long deliverAt;
+        private final T message;
+
+        Envelope(long deliverAt, T message) {
+            this.deliverAt = deliverAt;
+            this.message = message;
+        }
+    }
+
+    private final int delay;
+    private final int dropEvery;
+    private final ArrayDeque<Envelope<T>> inFlight;
+    private long now;
+    private long sent;
+    private long dropped;
+
+    /**
+     * Constructs a link which loses no messages.
+     * @param delay ticks between sending and delivering a message
+     */
+    public LatencyLink(int delay) {
+        this(delay, 0);
+    }
+
+    /**
+     * Constructs a link.
+     * @param delay ticks between sending and delivering a message
+     * @param dropEvery every dropEvery-th message is lost, or none if not positive
+     */
+    public LatencyLink(int delay, int dropEvery) {
+        this.delay = delay;
+        this.dropEvery = dropEvery;
+        this.inFlight = new ArrayDeque<>();
+    }
+
+    /**
+     * Sends a message, which is delivered delay ticks from now unless it's lost.
+     * @param message message
+     */
+    public void send(T message) {
+        this.sent++;
+        if (this.dropEvery > 0 && this.sent % this.dropEvery == 0) {
+            this.dropped++;
+            return;
+        }
+        this.inFlight.addLast(new Envelope<>(this.now + this.delay, message));
+    }
+
+    /**
+     * Takes the next delivered message.
+     * @return next message whose delivery tick arrived, or null if there is none
+     */
+    public T poll() {
+        Envelope<T> next = this.inFlight.peekFirst();
+        if (next == null || next.deliverAt > this.now) {
+            return null;
+        }
+        this.inFlight.removeFirst();
+        return next.message;
+    }
+
+    /**
+     * Advances link time by one tick.
+     */
+    public void tick() {
+        this.now++;
+    }
+
+    /**
+     *
+     * @return number of messages lost so far
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+}
@@ -0,0 +1,277 @@
+package net;
+
+import game.Game;
+import game.StateHash;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+
+/**
+ * One side of a two player lockstep game over UDP. Both peers run the same deterministic game, and a frame is
+ * played only once both players' inputs for it are known, so games stay identical without sending any state.
+ * Local input is scheduled delay frames ahead, which hides the round trip as long as it's shorter than the
+ * delay. Every packet repeats all local inputs the other peer hasn't acknowledged, so a lost packet is covered
+ * by the next one, and carries the low bits of a recent state hash, so a desync is detected on the frame it
+ * happened. Frames before the delay have no input.
+ * Packet layout: acknowledged remote frames (int), first input frame (int), inputs count (byte), an input
+ * byte per frame, hashed frame (int, -1 if none) and its hash (int).
+ */
+public class LockstepPeer implements Closeable {
+    public static final int PLAYERS = 2;
+    // Frames of inputs and hashes kept in rings, which bounds delay and inputs sent per packet
+    private static final int WINDOW = 256;
+    private static final int MAX_INPUTS = 255;
+    private static final int HEADER_SIZE = 17;
+    private static final int MAX_PACKET = HEADER_SIZE + MAX_INPUTS;
+
+    private final DatagramChannel channel;
+    private final int player;
+    private final int delay;
+    private final InputKeyboard[] keyboards;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(MAX_PACKET);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(MAX_PACKET);
+    private Game game;
+
+    // Next frame to play
+    private int frame;
+    private final byte[] localInputs = new byte[WINDOW];
+    // Next frame to schedule local input for
+    private int localNext;
+    // Frames of local input the other peer received
+    private int localAcked;
+    private final byte[] remoteInputs = new byte[WINDOW];
+    // Next frame whose remote input wasn't received yet
+    private int remoteNext;
+    // Hashes received from other peer, each stamped with its frame
+    private final int[] remoteHashes = new int[WINDOW];
+    private final int[] remoteHashFrames = new int[WINDOW];
+    private int desyncFrame = -1;
+
+    private long bytesSent;
+    private long packetsSent;
+    private long stalls;
+
+    /**
+     * Constructs a peer.
+     * @param channel datagram channel connected to the other peer, which is made non-blocking
+     * @param player local player index, 0 or 1
+     * @param delay frames between sampling local input and playing it, less than WINDOW
+     * @throws IOException if channel couldn't be made non-blocking
+     */
+    public LockstepPeer(DatagramChannel channel, int player, int delay) throws IOException {
+        if (player < 0 || player >= PLAYERS) {
+            throw new IllegalArgumentException("Player must be 0 or 1");
+        }
+        if (delay < 0 || delay >= WINDOW) {
+            throw new IllegalArgumentException("Input delay must be between 0 and " + (WINDOW - 1));
+        }
+        this.channel = channel;
+        this.channel.configureBlocking(false);
+        this.player = player;
+        this.delay = delay;
+        this.keyboards = new InputKeyboard[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            this.keyboards[i] = new InputKeyboard();
+        }
+        this.localNext = delay;
+        this.remoteNext = delay;
+        Arrays.fill(this.remoteHashFrames, -1);
+    }
+
+    /**
+     * Starts an initialized game with a paddle per player, each controlled by its player's inputs.
+     * The game is then played only through advance, in the same way by both peers.
+     * @param game initialized game, identical to the other peer's
+     */
+    public void start(Game game) {
+        this.game = game;
+        game.start(this.keyboards);
+    }
+
+    /**
+     * Schedules local input, exchanges inputs with the other peer and plays the next frame if both inputs
+     * for it are known. Meant to be called once per frame, and keeps sending while waiting for the other peer.
+     * @param localInput local player's input bits, sampled now, which are ignored if an input was already
+     *                   scheduled delay frames ahead
+     * @return whether a frame was played
+     * @throws IOException if channel failed
+     */
+    public boolean advance(int localInput) throws IOException {
+        if (this.localNext <= this.frame + this.delay) {
+            this.localInputs[this.localNext % WINDOW] = (byte) localInput;
+            this.localNext++;
+        }
+        this.send();
+        this.receiveAll();
+
+        if (this.remoteNext <= this.frame) {
+            this.stalls++;
+            return false;
+        }
+        int slot = this.frame % WINDOW;
+        this.keyboards[this.player].set(this.localInputs[slot]);
+        this.keyboards[1 - this.player].set(this.remoteInputs[slot]);
+        this.game.tick();
+        this.checkHash(this.frame);
+        this.frame++;
+        return true;
+    }
+
+    /**
+     * Sends local inputs not yet acknowledged, with hash of last played frame.
+     * @throws IOException if channel failed
+     */
+    private void send() throws IOException {
+        int first = Math.max(this.localAcked, this.localNext - MAX_INPUTS);
+        int count = this.localNext - first;
+        this.out.clear();
+        this.out.putInt(this.remoteNext).putInt(first).put((byte) count);
+        for (int f = first; f < this.localNext; f++) {
+            this.out.put(this.localInputs[f % WINDOW]);
+        }
+        int hashed = this.frame - 1;
+        this.out.putInt(hashed).putInt(hashed < 0 ? 0 : (int) this.game.getStateHash().getHash(hashed));
+        this.out.flip();
+        try {
+            this.bytesSent += this.channel.write(this.out);
+            this.packetsSent++;
+        } catch (PortUnreachableException e) {
+            // Other peer isn't listening yet, which is handled like a lost packet
+        }
+    }
+
+    /**
+     * Reads all packets waiting on channel.
+     * @throws IOException if channel failed
+     */
+    private void receiveAll() throws IOException {
+        while (true) {
+            this.in.clear();
+            try {
+                if (this.channel.receive(this.in) == null) {
+                    return;
+                }
+            } catch (PortUnreachableException e) {
+                return;
+            }
+            this.in.flip();
+            if (this.in.remaining() >= HEADER_SIZE) {
+                this.read(this.in);
+            }
+        }
+    }
+
+    /**
+     * Reads a packet, keeping remote inputs that continue the ones already received.
+     * @param packet received packet
+     */
+    private void read(ByteBuffer packet) {
+        int acked = packet.getInt();
+        int first = packet.getInt();
+        int count = packet.get() & 0xff;
+        if (packet.remaining() != count + 8) {
+            return;
+        }
+        if (acked > this.localAcked && acked <= this.localNext) {
+            this.localAcked = acked;
+        }
+        for (int f = first; f < first + count; f++) {
+            byte input = packet.get();
+            // Inputs past the window would overwrite inputs of frames not played yet
+            if (f == this.remoteNext && f < this.frame + WINDOW) {
+                this.remoteInputs[f % WINDOW] = input;
+                this.remoteNext++;
+            }
+        }
+        int hashed = packet.getInt();
+        int hash = packet.getInt();
+        if (hashed >= 0 && hashed < this.frame) {
+            this.compareHash(hashed, hash);
+        } else if (hashed >= this.frame && hashed < this.frame + WINDOW) {
+            // Other peer is ahead, so hash is compared once frame is played
+            this.remoteHashes[hashed % WINDOW] = hash;
+            this.remoteHashFrames[hashed % WINDOW] = hashed;
+        }
+    }
+
+    /**
+     * Compares hash of a just played frame to the one received for it, if any.
+     * @param played frame number
+     */
+    private void checkHash(int played) {
+        int slot = played % WINDOW;
+        if (this.remoteHashFrames[slot] == played) {
+            this.compareHash(played, this.remoteHashes[slot]);
+        }
+    }
+
+    /**
+     * Compares a received hash to the local hash of its frame, if still kept, and records a mismatch.
+     * @param hashed frame number
+     * @param hash low bits of other peer's hash
+     */
+    private void compareHash(int hashed, int hash) {
+        StateHash local = this.game.getStateHash();
+        if (local.hasHash(hashed) && (int) local.getHash(hashed) != hash
+                && (this.desyncFrame < 0 || hashed < this.desyncFrame)) {
+            this.desyncFrame = hashed;
+        }
+    }
+
+    /**
+     *
+     * @return next frame to play, which is also number of frames played
+     */
+    public int getFrame() {
+        return this.frame;
+    }
+
+    /**
+     *
+     * @return local player index
+     */
+    public int getPlayer() {
+        return this.player;
+    }
+
+    /**
+     *
+     * @return first frame whose hash differs from other peer's, or -1 if none was found
+     */
+    public int getDesyncFrame() {
+        return this.desyncFrame;
+    }
+
+    /**
+     *
+     * @return bytes sent so far, excluding UDP and IP headers
+     */
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    /**
+     *
+     * @return packets sent so far
+     */
+    public long getPacketsSent() {
+        return this.packetsSent;
+    }
+
+    /**
+     *
+     * @return number of advance calls which waited for other peer's input
+     */
+    public long getStalls() {
+        return this.stalls;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,117 @@
+package net;
+
+import objects.Paddle;
+
+import java.util.ArrayDeque;
+
+/**
+ * Client side of a remotely controlled paddle, which moves a local replica of the paddle as soon as input is
+ * sampled instead of waiting a round trip for the server.
+ * Every input is numbered and kept until the server acknowledges it. When a snapshot arrives, the replica is
+ * rewound to the snapshot's authoritative position and the inputs the server didn't apply yet are replayed on
+ * top of it, so the replica only deviates from the server when the server applied inputs differently.
+ * Only the paddle is predicted, not the whole game. The client keeps no balls or blocks, and snapshots carry
+ * only the paddle's position and the score, so a ball bouncing off the predicted paddle isn't predicted with it.
+ * A client showing balls has to take them from the server's state, a round trip behind the predicted paddle.
+ */
+public class PaddlePredictor {
+    private final LatencyLink<InputCommand> inputs;
+    private final LatencyLink<PaddleSnapshot> snapshots;
+    private final InputKeyboard keyboard;
+    private final Paddle paddle;
+    private final ArrayDeque<InputCommand> unacknowledged;
+    private int nextSequence;
+    private PaddleSnapshot lastSnapshot;
+    private long corrections;
+
+    /**
+     * Constructs a predictor of a paddle.
+     * @param paddle authoritative paddle, which is replicated as it is now
+     * @param inputs link inputs are sent on
+     * @param snapshots link snapshots are received from
+     */
+    public PaddlePredictor(Paddle paddle, LatencyLink<InputCommand> inputs,
+                           LatencyLink<PaddleSnapshot> snapshots) {
+        this.inputs = inputs;
+        this.snapshots = snapshots;
+        this.keyboard = new InputKeyboard();
+        this.paddle = paddle.replicate(this.keyboard);
+        this.unacknowledged = new ArrayDeque<>();
+    }
+
+    /**
+     * Reconciles with snapshots received since last frame, then sends a frame's input and applies it to the
+     * replica right away.
+     * @param input input bits sampled this frame
+     */
+    public void update(int input) {
+        this.reconcile();
+
+        InputCommand command = new InputCommand(this.nextSequence++, input);
+        this.unacknowledged.addLast(command);
+        this.inputs.send(command);
+        this.keyboard.set(input);
+        this.paddle.timePassed();
+    }
+
+    /**
+     * Rewinds replica to latest received snapshot and replays unacknowledged inputs on it.
+     */
+    private void reconcile() {
+        PaddleSnapshot latest = null;
+        PaddleSnapshot snapshot;
+        while ((snapshot = this.snapshots.poll()) != null) {
+            latest = snapshot;
+        }
+        if (latest == null) {
+            return;
+        }
+        this.lastSnapshot = latest;
+        while (!this.unacknowledged.isEmpty()
+                && this.unacknowledged.peekFirst().getSequence() <= latest.getAcknowledged()) {
+            this.unacknowledged.removeFirst();
+        }
+
+        double predictedX = this.paddle.getMinX();
+        this.paddle.setOrigin(latest.getX(), latest.getY());
+        for (InputCommand command : this.unacknowledged) {
+            this.keyboard.set(command.getInput());
+            this.paddle.timePassed();
+        }
+        if (this.paddle.getMinX() != predictedX) {
+            this.corrections++;
+        }
+    }
+
+    /**
+     *
+     * @return locally predicted paddle, which may be drawn
+     */
+    public Paddle getPaddle() {
+        return this.paddle;
+    }
+
+    /**
+     *
+     * @return latest snapshot received, or null if none was
+     */
+    public PaddleSnapshot getLastSnapshot() {
+        return this.lastSnapshot;
+    }
+
+    /**
+     *
+     * @return number of inputs sent and not yet acknowledged
+     */
+    public int getUnacknowledgedCount() {
+        return this.unacknowledged.size();
+    }
+
+    /**
+     *
+     * @return number of reconciliations which moved the replica away from its prediction
+     */
+    public long getCorrections() {
+        return this.corrections;
+    }
+}
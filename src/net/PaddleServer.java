@@ -0,0 +1,86 @@
+package net;
+
+import game.Game;
+import objects.Paddle;
+
+import java.util.ArrayDeque;
+
+/**
+ * Server side of a remotely controlled paddle - plays the authoritative game, applying each input received
+ * from the client on exactly one tick, and sends a snapshot of the paddle after every tick.
+ * Inputs are applied in the order they were sampled. A tick with no input waiting moves the paddle by none,
+ * so the client can replay its unacknowledged inputs exactly as they will be applied.
+ */
+public class PaddleServer {
+    private final LatencyLink<InputCommand> inputs;
+    private final LatencyLink<PaddleSnapshot> snapshots;
+    private final InputKeyboard keyboard;
+    private final ArrayDeque<InputCommand> waiting;
+    private Game game;
+    private int acknowledged = -1;
+    private long idleTicks;
+
+    /**
+     * Constructs a server.
+     * @param inputs link inputs are received from
+     * @param snapshots link snapshots are sent on
+     */
+    public PaddleServer(LatencyLink<InputCommand> inputs, LatencyLink<PaddleSnapshot> snapshots) {
+        this.inputs = inputs;
+        this.snapshots = snapshots;
+        this.keyboard = new InputKeyboard();
+        this.waiting = new ArrayDeque<>();
+    }
+
+    /**
+     * Starts an initialized game, with its only paddle controlled by the remote client.
+     * @param game initialized game
+     */
+    public void start(Game game) {
+        this.game = game;
+        game.start(this.keyboard);
+    }
+
+    /**
+     * Plays a tick with the next waiting input, and sends a snapshot of its end.
+     */
+    public void tick() {
+        InputCommand command;
+        while ((command = this.inputs.poll()) != null) {
+            // Inputs arrive in order, so only inputs lost on the way are skipped
+            if (command.getSequence() > this.acknowledged) {
+                this.waiting.addLast(command);
+            }
+        }
+
+        command = this.waiting.pollFirst();
+        if (command == null) {
+            this.keyboard.set(0);
+            this.idleTicks++;
+        } else {
+            this.keyboard.set(command.getInput());
+            this.acknowledged = command.getSequence();
+        }
+        this.game.tick();
+
+        Paddle paddle = this.game.getPaddle(0);
+        this.snapshots.send(new PaddleSnapshot(this.game.getStateHash().getTick(), this.acknowledged,
+                paddle.getMinX(), paddle.getMinY(), this.game.getScore()));
+    }
+
+    /**
+     *
+     * @return authoritative game
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     *
+     * @return number of ticks played with no input waiting
+     */
+    public long getIdleTicks() {
+        return this.idleTicks;
+    }
+}
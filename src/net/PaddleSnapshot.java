@@ -0,0 +1,69 @@
+package net;
+
+/**
+ * Authoritative state of a remotely controlled paddle, taken by the server at the end of a tick.
+ * It holds no ball or block state, so only the paddle can be predicted from it.
+ */
+public class PaddleSnapshot {
+    private final long tick;
+    private final int acknowledged;
+    private final double x;
+    private final double y;
+    private final int score;
+
+    /**
+     * Constructs a snapshot.
+     * @param tick server tick the snapshot was taken on
+     * @param acknowledged sequence number of last input applied, or -1 if none was
+     * @param x paddle's top left corner x value
+     * @param y paddle's top left corner y value
+     * @param score game score
+     */
+    public PaddleSnapshot(long tick, int acknowledged, double x, double y, int score) {
+        this.tick = tick;
+        this.acknowledged = acknowledged;
+        this.x = x;
+        this.y = y;
+        this.score = score;
+    }
+
+    /**
+     *
+     * @return server tick the snapshot was taken on
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     *
+     * @return sequence number of last input applied, or -1 if none was
+     */
+    public int getAcknowledged() {
+        return this.acknowledged;
+    }
+
+    /**
+     *
+     * @return paddle's top left corner x value
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     *
+     * @return paddle's top left corner y value
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     *
+     * @return game score
+     */
+    public int getScore() {
+        return this.score;
+    }
+}
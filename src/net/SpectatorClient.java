@@ -0,0 +1,248 @@
+package net;
+
+import game.FrameEncoder;
+import geometry.Point;
+import objects.Block;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Watches a game broadcast by a spectator server, keeping a copy of its state which is updated frame by frame.
+ * Deltas received before the first keyframe are ignored.
+ */
+public class SpectatorClient implements Closeable {
+    private final SocketChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(FrameEncoder.HEADER_SIZE);
+    private ByteBuffer body = ByteBuffer.allocate(4096);
+
+    private boolean synced;
+    private int tick;
+    private int score;
+    private float[] paddles = new float[0];
+    private float[] balls = new float[0];
+    private final Map<Integer, Block> blocks = new HashMap<>();
+    private long keyframes;
+
+    /**
+     * Constructs a client reading from a connected channel.
+     * @param channel blocking channel connected to a spectator server
+     */
+    public SpectatorClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Connects to a spectator server.
+     * @param address server address
+     * @return connected client
+     * @throws IOException if connection failed
+     */
+    public static SpectatorClient connect(InetSocketAddress address) throws IOException {
+        return new SpectatorClient(SocketChannel.open(address));
+    }
+
+    /**
+     * Reads a whole frame and applies it, waiting until it arrives.
+     * @return type of frame read
+     * @throws IOException if connection failed or was closed
+     */
+    public byte readFrame() throws IOException {
+        this.header.clear();
+        this.readFully(this.header);
+        int length = this.header.getInt();
+        byte type = this.header.get();
+        int frameTick = this.header.getInt();
+        int frameScore = this.header.getInt();
+        if (this.body.capacity() < length) {
+            this.body = ByteBuffer.allocate(Math.max(length, 2 * this.body.capacity()));
+        }
+        this.body.clear().limit(length);
+        this.readFully(this.body);
+
+        if (type == FrameEncoder.KEYFRAME) {
+            this.readKeyframe(this.body);
+        } else if (type == FrameEncoder.DELTA && this.synced) {
+            this.readDelta(this.body);
+        } else {
+            return type;
+        }
+        this.tick = frameTick;
+        this.score = frameScore;
+        return type;
+    }
+
+    /**
+     * Reads from channel until buffer is full.
+     * @param buffer buffer
+     * @throws IOException if connection failed or was closed
+     */
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer) < 0) {
+                throw new EOFException("Spectator server closed connection");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Replaces state with a keyframe's.
+     * @param frame keyframe body
+     */
+    private void readKeyframe(ByteBuffer frame) {
+        this.readPaddles(frame);
+        int count = frame.getInt();
+        this.balls = new float[2 * count];
+        for (int i = 0; i < 2 * count; i++) {
+            this.balls[i] = frame.getFloat();
+        }
+        this.blocks.clear();
+        this.readBlocks(frame);
+        this.synced = true;
+        this.keyframes++;
+    }
+
+    /**
+     * Applies a delta to state.
+     * @param frame delta body
+     */
+    private void readDelta(ByteBuffer frame) {
+        this.readPaddles(frame);
+        int moved = frame.getInt();
+        for (int i = 0; i < moved; i++) {
+            int index = frame.getInt();
+            if (2 * index >= this.balls.length) {
+                int old = this.balls.length;
+                this.balls = Arrays.copyOf(this.balls, 2 * index + 2);
+                Arrays.fill(this.balls, old, this.balls.length, Float.NaN);
+            }
+            this.balls[2 * index] = frame.getFloat();
+            this.balls[2 * index + 1] = frame.getFloat();
+        }
+        int removed = frame.getInt();
+        for (int i = 0; i < removed; i++) {
+            this.blocks.remove(frame.getInt());
+        }
+        this.readBlocks(frame);
+    }
+
+    /**
+     * Reads all paddles positions.
+     * @param frame frame body
+     */
+    private void readPaddles(ByteBuffer frame) {
+        int count = frame.getInt();
+        if (this.paddles.length != 2 * count) {
+            this.paddles = new float[2 * count];
+        }
+        for (int i = 0; i < 2 * count; i++) {
+            this.paddles[i] = frame.getFloat();
+        }
+    }
+
+    /**
+     * Reads blocks count and blocks, and adds them.
+     * @param frame frame body
+     */
+    private void readBlocks(ByteBuffer frame) {
+        int count = frame.getInt();
+        for (int i = 0; i < count; i++) {
+            int id = frame.getInt();
+            Block block = new Block(new Point(frame.getFloat(), frame.getFloat()), frame.getFloat(), frame.getFloat());
+            block.setColor(new Color(frame.getInt()));
+            this.blocks.put(id, block);
+        }
+    }
+
+    /**
+     *
+     * @return whether a keyframe was read, so state is known
+     */
+    public boolean isSynced() {
+        return this.synced;
+    }
+
+    /**
+     *
+     * @return number of keyframes read
+     */
+    public long getKeyframes() {
+        return this.keyframes;
+    }
+
+    /**
+     *
+     * @return tick of last applied frame
+     */
+    public int getTick() {
+        return this.tick;
+    }
+
+    /**
+     *
+     * @return score on last applied frame
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     *
+     * @return number of paddles
+     */
+    public int getPaddleCount() {
+        return this.paddles.length / 2;
+    }
+
+    /**
+     * Returns a paddle's position.
+     * @param i paddle index
+     * @return paddle's top left corner
+     */
+    public Point getPaddle(int i) {
+        return new Point(this.paddles[2 * i], this.paddles[2 * i + 1]);
+    }
+
+    /**
+     *
+     * @return number of balls, including balls which left the game
+     */
+    public int getBallCount() {
+        return this.balls.length / 2;
+    }
+
+    /**
+     * Returns a ball's center.
+     * @param i ball index
+     * @return ball center, or null if ball left the game
+     */
+    public Point getBall(int i) {
+        if (Float.isNaN(this.balls[2 * i])) {
+            return null;
+        }
+        return new Point(this.balls[2 * i], this.balls[2 * i + 1]);
+    }
+
+    /**
+     *
+     * @return live blocks, which may be drawn
+     */
+    public Collection<Block> getBlocks() {
+        return this.blocks.values();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,253 @@
+package net;
+
+import game.FrameEncoder;
+import game.Game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts a game to spectators over TCP, without ever blocking the game loop.
+ * Game state is encoded once per tick by a frame encoder, and the same buffers are written to every spectator
+ * with a gathering write. A new spectator gets a keyframe first and deltas afterwards. A spectator whose socket
+ * buffer is full keeps the unsent tail of its frame and skips the following ticks until it's sent, then skips
+ * ahead to a keyframe. A spectator which stays behind for more than MAX_SKIPS ticks is dropped.
+ */
+public class SpectatorServer implements Closeable {
+    public static final int MAX_SKIPS = 60;
+    // Send buffer of each spectator socket, which bounds memory per spectator and how long a slow one goes unseen
+    private static final int SEND_BUFFER = 64 * 1024;
+    private static final int BACKLOG = 1024;
+
+    // Spectator connection, with the unsent tail of its last frame
+    private static class Spectator {
+        private final SocketChannel channel;
+        private ByteBuffer pending;
+        private boolean needsKeyframe = true;
+        private int skips;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final FrameEncoder encoder;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Spectator> spectators;
+    private final Consumer<SelectionKey> keyHandler = this::handle;
+    // Reads and discards whatever spectators send, so closed connections are noticed
+    private final ByteBuffer discard = ByteBuffer.allocateDirect(256);
+
+    private long bytesSent;
+    private long skipped;
+    private long dropped;
+
+    /**
+     * Constructs a server listening for spectators.
+     * @param game game to broadcast, whose block changes are followed from now on
+     * @param address address to listen on, with port 0 for any free port
+     * @throws IOException if server couldn't listen on address
+     */
+    public SpectatorServer(Game game, InetSocketAddress address) throws IOException {
+        this.encoder = new FrameEncoder(game);
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(address, BACKLOG);
+        this.server.configureBlocking(false);
+        this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+        this.spectators = new ArrayList<>();
+    }
+
+    /**
+     *
+     * @return address server listens on
+     * @throws IOException if server is closed
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) this.server.getLocalAddress();
+    }
+
+    /**
+     * Accepts new spectators, encodes the tick just played and sends it to every spectator that can take it.
+     * Meant to be called after every game tick, and never waits for a spectator.
+     * @throws IOException if selector failed
+     */
+    public void broadcast() throws IOException {
+        try {
+            this.selector.selectNow(this.keyHandler);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        this.encoder.encode();
+
+        int kept = 0;
+        for (int i = 0; i < this.spectators.size(); i++) {
+            Spectator spectator = this.spectators.get(i);
+            if (this.send(spectator)) {
+                this.spectators.set(kept++, spectator);
+            } else {
+                this.drop(spectator);
+            }
+        }
+        while (this.spectators.size() > kept) {
+            this.spectators.remove(this.spectators.size() - 1);
+        }
+    }
+
+    /**
+     * Sends current tick to a spectator, or skips it if spectator didn't take its last frame yet.
+     * @param spectator spectator
+     * @return whether spectator is kept
+     */
+    private boolean send(Spectator spectator) {
+        try {
+            if (spectator.pending != null && spectator.pending.hasRemaining()) {
+                this.bytesSent += spectator.channel.write(spectator.pending);
+                if (spectator.pending.hasRemaining()) {
+                    // Deltas missed from now on are replaced by a keyframe once spectator catches up
+                    this.skipped++;
+                    spectator.needsKeyframe = true;
+                    return ++spectator.skips <= MAX_SKIPS;
+                }
+            }
+            spectator.skips = 0;
+
+            ByteBuffer[] frame = spectator.needsKeyframe ? this.encoder.getKeyframe() : this.encoder.getDelta();
+            spectator.needsKeyframe = false;
+            this.bytesSent += spectator.channel.write(frame);
+            if (frame[1].hasRemaining()) {
+                this.keepTail(spectator, frame);
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies the unsent tail of a frame, so it's sent before spectator gets another frame.
+     * @param spectator spectator
+     * @param frame partially written header and body buffers
+     */
+    private void keepTail(Spectator spectator, ByteBuffer[] frame) {
+        int size = frame[0].remaining() + frame[1].remaining();
+        if (spectator.pending == null || spectator.pending.capacity() < size) {
+            spectator.pending = ByteBuffer.allocate(Math.max(size, FrameEncoder.HEADER_SIZE + 4096));
+        }
+        spectator.pending.clear();
+        spectator.pending.put(frame[0]).put(frame[1]);
+        spectator.pending.flip();
+    }
+
+    /**
+     * Handles a ready key - accepts pending spectators, or notices a spectator which closed its connection.
+     * @param key selected key
+     */
+    private void handle(SelectionKey key) {
+        if (key.isAcceptable()) {
+            try {
+                SocketChannel channel;
+                while ((channel = this.server.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    channel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER);
+                    Spectator spectator = new Spectator(channel);
+                    channel.register(this.selector, SelectionKey.OP_READ, spectator);
+                    this.spectators.add(spectator);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else if (key.isReadable()) {
+            Spectator spectator = (Spectator) key.attachment();
+            try {
+                int read;
+                do {
+                    this.discard.clear();
+                    read = spectator.channel.read(this.discard);
+                } while (read > 0);
+                if (read < 0) {
+                    spectator.channel.close();
+                }
+            } catch (IOException e) {
+                // Closed channels fail their next write, which drops them
+                closeQuietly(spectator.channel);
+            }
+        }
+    }
+
+    /**
+     * Closes a spectator's connection and counts it as dropped.
+     * @param spectator spectator
+     */
+    private void drop(Spectator spectator) {
+        closeQuietly(spectator.channel);
+        this.dropped++;
+    }
+
+    /**
+     * Closes a channel, ignoring failures since it's discarded anyway.
+     * @param channel channel
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Channel is discarded anyway
+        }
+    }
+
+    /**
+     *
+     * @return number of connected spectators
+     */
+    public int getSpectatorCount() {
+        return this.spectators.size();
+    }
+
+    /**
+     *
+     * @return bytes written to all spectators so far
+     */
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    /**
+     *
+     * @return number of frames skipped for spectators which were behind
+     */
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    /**
+     *
+     * @return number of spectators dropped, either for being behind or for closing their connection
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < this.spectators.size(); i++) {
+            closeQuietly(this.spectators.get(i).channel);
+        }
+        this.spectators.clear();
+        this.server.close();
+        this.selector.close();
+    }
+}
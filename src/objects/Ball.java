@@ -1,14 +1,17 @@
 package objects;
 
+import collisions.CollisionArena;
 import collisions.CollisionEdge;
 import collisions.CollisionInfo;
 import game.Game;
 import game.GameEnvironment;
 import game.Sprite;
+import geometry.GeometryArena;
 import geometry.Line;
 import geometry.Point;
 import geometry.Rectangle;
 import geometry.Velocity;
+import metrics.CollisionMetrics;
 
 import biuoop.DrawSurface;
 
@@ -18,13 +21,25 @@ import java.awt.Color;
  * Represents a moving circle.
  */
 public class Ball implements Sprite {
-    private Point center;
+    // Bounces handled in a single step, bounding work of a ball trapped between collidables
+    private static final int MAX_BOUNCES = 8;
+    private static final Rectangle[] NO_PADDLES = new Rectangle[0];
+    private final Point center;
     private int radius;
     private Color color;
     private Velocity velocity;
     private GameEnvironment environment;
-    // Saving paddle in order to validate no unexpected collision happens
-    private Rectangle paddle;
+    // Saving paddles in order to validate no unexpected collision happens
+    private Rectangle[] paddles;
+    private boolean inGame;
+    // Whether ball is moved by an event engine, rather than on time passed
+    private boolean scheduled;
+    // Distance ball can move in any direction without touching a static collidable, valid as long as
+    // no collidable was added to environment since it was measured
+    private double clearance;
+    private long clearanceAdditions;
+    // Whether environment was created for this ball alone, so no game takes back its arena temporaries
+    private boolean ownsEnvironment;
 
     /**
      * Constructor with center point, radius and color.
@@ -33,12 +48,14 @@ public class Ball implements Sprite {
      * @param color circle color
      */
     public Ball(Point center, int r, Color color) {
-        this.center = center;
+        // Center is moved in place, so it's copied rather than shared with caller
+        this.center = new Point(center.getX(), center.getY());
         this.radius = r;
         this.color = color;
         this.velocity = new Velocity(0, 0);
         this.environment = new GameEnvironment();
-        this.paddle = null;
+        this.ownsEnvironment = true;
+        this.paddles = NO_PADDLES;
     }
 
     /**
@@ -57,7 +74,15 @@ public class Ball implements Sprite {
      * @param paddle game paddle
      */
     public void setPaddle(Rectangle paddle) {
-        this.paddle = paddle;
+        this.paddles = new Rectangle[] {paddle};
+    }
+
+    /**
+     * Sets the paddles of all players.
+     * @param paddles game paddles, which are shared with caller
+     */
+    public void setPaddles(Rectangle[] paddles) {
+        this.paddles = paddles;
     }
 
     /**
@@ -66,6 +91,8 @@ public class Ball implements Sprite {
      */
     public void setEnvironment(GameEnvironment environment) {
         this.environment = environment;
+        this.ownsEnvironment = false;
+        this.clearance = 0;
     }
 
     /**
@@ -84,6 +111,14 @@ public class Ball implements Sprite {
         return (int) this.center.getY();
     }
 
+    /**
+     *
+     * @return ball's center, which is moved in place as ball moves
+     */
+    public Point getCenter() {
+        return this.center;
+    }
+
     /**
      *
      * @return ball size (radius)
@@ -117,17 +152,37 @@ public class Ball implements Sprite {
 
     @Override
     public void timePassed() {
-        this.moveOneStep();
+        if (!this.scheduled) {
+            this.moveOneStep();
+        }
     }
 
     @Override
     public void addToGame(Game game) {
         game.addSprite(this);
+        this.inGame = true;
     }
 
     @Override
     public void removeFromGame(Game game) {
         game.removeSprite(this);
+        this.inGame = false;
+    }
+
+    /**
+     *
+     * @return whether ball was added to a game and not removed from it since
+     */
+    public boolean isInGame() {
+        return this.inGame;
+    }
+
+    /**
+     * Sets whether ball is moved by an event engine, in which case time passing doesn't move it.
+     * @param scheduled whether ball is moved by an event engine
+     */
+    public void setScheduled(boolean scheduled) {
+        this.scheduled = scheduled;
     }
 
     /**
@@ -157,6 +212,9 @@ public class Ball implements Sprite {
 
     /**
      * Checks whether paddle is colliding ball, and handles it if colliding.
+     * @param paddle paddle
+     * @param diameter line of current tick, which is set to ball diameter on x-axis
+     * @param cp point of current tick, which is set to collision point on paddle
      * @return whether movement was handled by this method
      * @implNote Through the process there are some safety guards to validate scenario:
      * 1. Ball must be inside paddle borders
@@ -164,95 +222,205 @@ public class Ball implements Sprite {
      * 3. Collision edge on paddle is horizontal
      * If one of those guards is false, ball is not colliding paddle.
      */
-    private boolean collidingPaddle() {
+    private boolean collidingPaddle(Rectangle paddle, Line diameter, Point cp) {
         // Validate ball is inside paddle borders
-        if (!this.paddle.isBallInside(this.center, this.radius)) {
+        if (!paddle.isBallInside(this.center, this.radius)) {
             return false;
         }
 
         // Get collision point on paddle borders by ball diameter on x-axis
-        Line diameter = new Line(this.center.getX() - radius, this.center.getY(),
+        diameter.set(this.center.getX() - radius, this.center.getY(),
                 this.center.getX() + radius, this.center.getY());
-        Point cp = diameter.closestIntersectionToStartOfLine(this.paddle);
         // Validate there is a collision
-        if (cp == null) {
+        if (!diameter.closestIntersectionToStartOfLine(paddle, cp)) {
             return false;
         }
 
-        CollisionEdge edge = this.paddle.getCollisionEdge(cp);
+        // Ball is moved without a sweep, so its clearance no longer holds
+        this.clearance = 0;
+        CollisionEdge edge = paddle.getCollisionEdge(cp);
         double escapeAngle = 15;
         double escapeSpeed = 10;
         if (edge == CollisionEdge.LEFT) {
             escapeAngle = 360 - escapeAngle;
         } else if (edge != CollisionEdge.RIGHT) {
             // Collision edge is not horizontal
-            this.center = this.velocity.applyToPoint(this.center);
+            this.velocity.moveInPlace(this.center);
             return false;
         }
 
         // Escape collision by accelerating out of paddle
-        this.velocity = this.velocity.accelerate(0, escapeSpeed);
-        this.center = this.velocity.applyToPoint(this.center);
-        this.velocity = this.velocity.accelerate(escapeAngle, -escapeSpeed);
+        CollisionMetrics.getInstance().paddleEscape();
+        this.velocity.accelerateInPlace(0, escapeSpeed);
+        this.velocity.moveInPlace(this.center);
+        this.velocity.accelerateInPlace(escapeAngle, -escapeSpeed);
         return true;
     }
 
     /**
-     * Calculates next ball movement collision info.
-     * @param dest ball movement destination
-     * @return collision info or null if there is no collision
+     * Sets the point on collided object which is passed to its hit, so its edge matches impact normal.
+     * A corner impact is moved onto the edge whose velocity flip sends ball away from the corner,
+     * preferring the edge facing the normal's dominant axis.
+     * @param info impact information
+     * @param out point which is set to hit point
      */
-    private CollisionInfo getClosestCollision(Point dest) {
-        Line closestMovement = new Line(this.center, dest);
-        return this.environment.getClosestCollision(closestMovement);
-    }
+    private void getHitPoint(CollisionInfo info, Point out) {
+        Point p = info.getPoint();
+        if (info.getEdge() != CollisionEdge.CORNER) {
+            out.setLocation(p.getX(), p.getY());
+            return;
+        }
 
-    /**
-     * Calculates a reasonable close point to a collision point.
-     * @param info information about collision point and edge
-     * @return closest point to collision
-     */
-    private Point getCollisionClosePoint(CollisionInfo info) {
-        double newX = info.getPoint().getX(), newY = info.getPoint().getY();
-        double threshold = GameEnvironment.COLLISION_THRESHOLD;
-        if (CollisionEdge.isHorizontal(info.getEdge())) {
-            newX += this.velocity.isRight() ? -threshold : threshold;
+        double nx = info.getNormalX(), ny = info.getNormalY();
+        double dx = this.velocity.getDx(), dy = this.velocity.getDy();
+        boolean xLeaves = -dx * nx + dy * ny >= 0;
+        boolean yLeaves = dx * nx - dy * ny >= 0;
+        boolean flipX = xLeaves && (Math.abs(nx) >= Math.abs(ny) || !yLeaves);
+
+        // Step from corner along chosen edge, toward rectangle's inside
+        Rectangle rectangle = info.getObject().getCollisionRectangle();
+        double margin = Rectangle.CORNER_MARGIN;
+        if (flipX) {
+            out.setLocation(p.getX(), p.getY() + (p.getY() == rectangle.getOrigin().getY() ? margin : -margin));
         } else {
-            newY += this.velocity.isBottom() ? -threshold : threshold;
+            out.setLocation(p.getX() + (p.getX() == rectangle.getOrigin().getX() ? margin : -margin), p.getY());
         }
-        return new Point(newX, newY);
     }
 
     /**
      * Moves ball one step with its velocity.
+     * Ball is swept as a circle, bouncing off every collidable it hits until its movement of this step is used,
+     * up to MAX_BOUNCES times. Movement left after the last allowed bounce is dropped.
+     * Temporaries are taken from the environment arena, which the environment owner resets at the end of tick.
+     * A ball whose environment was created for it alone resets the arena itself, after every step.
      */
     public void moveOneStep() {
-        // Handle paddle movement that causes collision with this ball
-        if (this.paddle != null && this.collidingPaddle()) {
-            return;
+        this.step();
+        if (this.ownsEnvironment) {
+            this.environment.getArena().reset();
         }
+    }
 
-        Line movement = new Line(this.center, this.velocity.applyToPoint(this.center));
-        CollisionInfo info = this.environment.getClosestCollision(movement);
+    /**
+     * Moves ball one step with its velocity, taking temporaries from the environment arena.
+     */
+    private void step() {
+        // Same temporaries are taken on every step, so arena size is constant from first tick on
+        CollisionArena arena = this.environment.getArena();
+        GeometryArena geometry = arena.geometry();
+        Line diameter = geometry.line(0, 0, 0, 0);
+        Point cp = geometry.point(0, 0);
+        CollisionInfo info = arena.collisionInfo();
 
-        // If no collision, simply move
-        if (info == null) {
-            this.center = this.velocity.applyToPoint(this.center);
+        // Handle paddle movement that causes collision with this ball
+        for (int i = 0; i < this.paddles.length; i++) {
+            if (this.collidingPaddle(this.paddles[i], diameter, cp)) {
+                return;
+            }
+        }
+
+        // Within clearance only moving collidables may be hit, so static ones aren't queried
+        double length = Math.sqrt(this.velocity.getDx() * this.velocity.getDx()
+                + this.velocity.getDy() * this.velocity.getDy());
+        if (length < this.clearance && this.clearanceAdditions == this.environment.getAdditions()
+                && !this.environment.getEarliestMovingImpact(this.center.getX(), this.center.getY(),
+                        this.velocity.getDx(), this.velocity.getDy(), this.radius, info)) {
+            CollisionMetrics.getInstance().skippedQuery();
+            this.velocity.moveInPlace(this.center);
+            this.clearance -= length;
             return;
         }
 
-        // Move ball close to collided object and make sure current dest doesn't collide again
-        Point dest = getCollisionClosePoint(info);
-        CollisionInfo newInfo = this.getClosestCollision(dest);
-        // Assuming max of 2 close point
-        if (newInfo != null) {
-            dest = getCollisionClosePoint(newInfo);
-            info = newInfo;
+        // Fraction of this step's movement not used yet
+        double remaining = 1;
+        for (int bounce = 0; bounce < MAX_BOUNCES; bounce++) {
+            double dx = this.velocity.getDx() * remaining, dy = this.velocity.getDy() * remaining;
+            if (bounce > 0) {
+                CollisionMetrics.getInstance().closePointQuery();
+            }
+            boolean hit = this.environment.getEarliestImpact(this.center.getX(), this.center.getY(),
+                    dx, dy, this.radius, info);
+            if (bounce == 0) {
+                // Ball that bounces is too close to something for its clearance to be of use
+                this.clearance = hit ? 0 : this.environment.getLastClearance() - length;
+                this.clearanceAdditions = this.environment.getAdditions();
+            }
+
+            // If no impact, simply move
+            if (!hit) {
+                this.center.setLocation(this.center.getX() + dx, this.center.getY() + dy);
+                return;
+            }
+
+            // Move ball to impact and bounce off collided object
+            double t = info.getTime();
+            this.center.setLocation(this.center.getX() + t * dx, this.center.getY() + t * dy);
+            remaining *= 1 - t;
+            this.resolveImpact(info, cp);
         }
+    }
+
+    /**
+     * Moves ball center to given coordinates, without checking for collisions.
+     * @param x center x value
+     * @param y center y value
+     */
+    public void setCenter(double x, double y) {
+        this.center.setLocation(x, y);
+        this.clearance = 0;
+    }
+
+    /**
+     * Moves ball by a fraction of its velocity, without checking for collisions.
+     * @param fraction fraction of velocity to move by
+     */
+    public void advance(double fraction) {
+        double dx = fraction * this.velocity.getDx(), dy = fraction * this.velocity.getDy();
+        this.center.setLocation(this.center.getX() + dx, this.center.getY() + dy);
+        this.clearance -= Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Bounces ball off a collided object, assuming ball was moved to the impact.
+     * @param info impact information, of a swept query
+     */
+    public void resolveImpact(CollisionInfo info) {
+        this.resolveImpact(info, this.environment.getArena().geometry().point(0, 0));
+    }
+
+    /**
+     * Bounces ball off a collided object, assuming ball was moved to the impact.
+     * Ball is kept threshold distance away from collided object along impact normal, then the object is hit.
+     * @param info impact information, of a swept query
+     * @param cp point which is set to hit point
+     */
+    private void resolveImpact(CollisionInfo info, Point cp) {
+        this.clearance = 0;
+        double x = this.center.getX(), y = this.center.getY();
+        double nx = info.getNormalX(), ny = info.getNormalY();
+        double distance = (x - info.getPoint().getX()) * nx + (y - info.getPoint().getY()) * ny;
+        double gap = this.radius + GameEnvironment.COLLISION_THRESHOLD - distance;
+        this.center.setLocation(x + gap * nx, y + gap * ny);
 
-        // Set ball's new center and velocity to match collision info
-        this.center = dest;
         // Perform the object hit and change velocity accordingly
-        this.velocity = info.getObject().hit(this, info.getPoint(), this.velocity);
+        this.hit(info, cp);
+    }
+
+    /**
+     * Hits the collided object of an impact and changes velocity accordingly, without moving ball.
+     * @param info impact information, of a swept query
+     */
+    public void hit(CollisionInfo info) {
+        this.hit(info, this.environment.getArena().geometry().point(0, 0));
+    }
+
+    /**
+     * Hits the collided object of an impact and changes velocity accordingly, without moving ball.
+     * @param info impact information, of a swept query
+     * @param cp point which is set to hit point
+     */
+    private void hit(CollisionInfo info, Point cp) {
+        this.getHitPoint(info, cp);
+        this.velocity = info.getObject().hit(this, cp, this.velocity);
     }
 }
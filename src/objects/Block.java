@@ -9,10 +9,11 @@ import geometry.Rectangle;
 
 import biuoop.DrawSurface;
 import geometry.Velocity;
+import metrics.GameEvents;
+import metrics.HitDispatchEvent;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Represents a block in the game.
@@ -21,7 +22,10 @@ public class Block extends Rectangle implements Sprite, HitNotifier {
     private Color color;
     private boolean passiveColor;
     private boolean drawBorders;
-    private List<HitListener> hitListeners;
+    // Listeners removed while notifying are nulled, and compacted once notifying is done
+    private HitListener[] hitListeners;
+    private int listenersCount;
+    private boolean notifying;
 
     /**
      * Constructor for block.
@@ -32,7 +36,8 @@ public class Block extends Rectangle implements Sprite, HitNotifier {
     public Block(Point origin, double width, double height) {
         super(origin, width, height);
         this.color = Color.BLACK;
-        this.hitListeners = new ArrayList<>();
+        this.hitListeners = new HitListener[2];
+        this.listenersCount = 0;
         this.passiveColor = false;
         this.drawBorders = true;
     }
@@ -76,12 +81,23 @@ public class Block extends Rectangle implements Sprite, HitNotifier {
 
     @Override
     public void addHitListener(HitListener hl) {
-        this.hitListeners.add(hl);
+        if (this.listenersCount == this.hitListeners.length) {
+            this.hitListeners = Arrays.copyOf(this.hitListeners, 2 * this.listenersCount);
+        }
+        this.hitListeners[this.listenersCount++] = hl;
     }
 
     @Override
     public void removeHitListener(HitListener hl) {
-        this.hitListeners.remove(hl);
+        for (int i = 0; i < this.listenersCount; i++) {
+            if (this.hitListeners[i] == hl) {
+                this.hitListeners[i] = null;
+                break;
+            }
+        }
+        if (!this.notifying) {
+            this.compactListeners();
+        }
     }
 
     @Override
@@ -96,6 +112,14 @@ public class Block extends Rectangle implements Sprite, HitNotifier {
         return v;
     }
 
+    /**
+     *
+     * @return block color
+     */
+    public Color getColor() {
+        return this.color;
+    }
+
     /**
      * Sets this block to be color passive, meaning it won't change its hitter color.
      */
@@ -115,11 +139,44 @@ public class Block extends Rectangle implements Sprite, HitNotifier {
      * @param hitter hitter object
      */
     private void notifyHit(Ball hitter) {
-        List<HitListener> listeners = new ArrayList<>(this.hitListeners);
+        HitDispatchEvent event = null;
+        if (GameEvents.isRecording()) {
+            event = new HitDispatchEvent();
+            event.begin();
+        }
 
-        for (HitListener hl : listeners) {
-            hl.hitEvent(this, hitter);
+        // Listeners added while notifying aren't notified of current hit
+        int count = this.listenersCount;
+        this.notifying = true;
+        for (int i = 0; i < count; i++) {
+            HitListener hl = this.hitListeners[i];
+            if (hl != null) {
+                hl.hitEvent(this, hitter);
+            }
+        }
+        this.notifying = false;
+        this.compactListeners();
+
+        if (event != null) {
+            event.set(count);
+            event.commit();
+        }
+    }
+
+    /**
+     * Removes nulled listeners, keeping remaining listeners order.
+     */
+    private void compactListeners() {
+        int kept = 0;
+        for (int i = 0; i < this.listenersCount; i++) {
+            if (this.hitListeners[i] != null) {
+                this.hitListeners[kept++] = this.hitListeners[i];
+            }
+        }
+        for (int i = kept; i < this.listenersCount; i++) {
+            this.hitListeners[i] = null;
         }
+        this.listenersCount = kept;
     }
 
     /**
@@ -32,6 +32,8 @@ public class Paddle extends Block {
         this.keyboard = keyboard;
         this.minWidth = -1;
         this.maxWidth = -1;
+        // Edges are intersected whenever paddle pushes a ball, so they're created before play
+        this.edges();
     }
 
     /**
@@ -44,6 +46,18 @@ public class Paddle extends Block {
         this.maxWidth = max;
     }
 
+    /**
+     * Creates a paddle with this paddle's position, size, bounds and color, controlled by another keyboard.
+     * @param keyboard keyboard sensor for moving the new paddle
+     * @return new paddle
+     */
+    public Paddle replicate(KeyboardSensor keyboard) {
+        Paddle paddle = new Paddle(keyboard, this.getOrigin(), this.getWidth(), this.getHeight());
+        paddle.setXBounds(this.minWidth, this.maxWidth);
+        paddle.setColor(this.getColor());
+        return paddle;
+    }
+
     /**
      *
      * @return whether paddle has been given an X bound.
@@ -52,15 +66,31 @@ public class Paddle extends Block {
         return this.maxWidth != -1 && this.minWidth != -1;
     }
 
+    /**
+     *
+     * @return whether moving left keeps the paddle within its bounds, rather than wrapping it around
+     */
+    public boolean canMoveLeft() {
+        return !hasXBounds() || this.getOrigin().getX() - MOVEMENT_STEPS >= this.minWidth;
+    }
+
+    /**
+     *
+     * @return whether moving right keeps the paddle within its bounds, rather than wrapping it around
+     */
+    public boolean canMoveRight() {
+        return !hasXBounds() || this.getOrigin().getX() + this.getWidth() + MOVEMENT_STEPS < this.maxWidth;
+    }
+
     /**
      * Moves the paddle to the left.
      */
     public void moveLeft() {
         Point origin = this.getOrigin();
         if (hasXBounds() && origin.getX() - MOVEMENT_STEPS < this.minWidth) {
-            this.setOrigin(new Point(this.maxWidth - this.getWidth(), origin.getY()));
+            this.setOrigin(this.maxWidth - this.getWidth(), origin.getY());
         } else {
-            this.setOrigin(new Point(origin.getX() - MOVEMENT_STEPS, origin.getY()));
+            this.setOrigin(origin.getX() - MOVEMENT_STEPS, origin.getY());
         }
     }
 
@@ -70,9 +100,9 @@ public class Paddle extends Block {
     public void moveRight() {
         Point origin = this.getOrigin();
         if (hasXBounds() && origin.getX() + this.getWidth() + MOVEMENT_STEPS >= this.maxWidth) {
-            this.setOrigin(new Point(this.minWidth, origin.getY()));
+            this.setOrigin(this.minWidth, origin.getY());
         } else {
-            this.setOrigin(new Point(origin.getX() + MOVEMENT_STEPS, origin.getY()));
+            this.setOrigin(origin.getX() + MOVEMENT_STEPS, origin.getY());
         }
     }
 
@@ -102,7 +132,7 @@ public class Paddle extends Block {
         double newOriginX = this.centerPoint.getX() - this.getWidth() / 2 + movement;
         double newOriginY = this.centerPoint.getY() - this.getHeight() / 2 - 2;
 
-        this.setOrigin(new Point(newOriginX, newOriginY));
+        this.setOrigin(newOriginX, newOriginY);
         updateCenterPoint();
     }
 
@@ -207,6 +237,7 @@ public class Paddle extends Block {
             default: // Including valid region 3
                 return super.hit(hitter, cp, velocity);
         }
-        return velocity.accelerate(angle, 0);
+        velocity.accelerateInPlace(angle, 0);
+        return velocity;
     }
 }
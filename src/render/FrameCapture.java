@@ -0,0 +1,339 @@
+package render;
+
+import metrics.Histogram;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Captures rendered frames to an image sequence on disk, without ever making the game thread wait for disk.
+ * The game thread copies each captured frame's pixels into a buffer from a fixed pool and queues it, and a
+ * pool of workers encodes queued frames to files named by frame number. A game asks wantsFrame before drawing
+ * a frame for capture, so frames which would be skipped or dropped are never drawn.
+ * If no buffer is free the frame is dropped and capture rate is halved, down to one of every MAX_STRIDE frames,
+ * and once enough frames were captured in a row without a drop the rate is doubled back.
+ * Time the game thread spends in capture is recorded, and reported along with captured and dropped frames.
+ */
+public class FrameCapture implements Closeable {
+    public static final int MAX_STRIDE = 16;
+    // Frames captured in a row without a drop, after which capture rate is doubled
+    private static final int RECOVERY = 60;
+
+    /**
+     * File format frames are encoded to.
+     */
+    public enum Format {
+        // Lossless PNG image
+        PNG("png"),
+        // Big endian ARGB ints, row by row, with no header
+        RAW("raw");
+
+        private final String extension;
+
+        /**
+         * Constructs a format.
+         * @param extension file extension
+         */
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Pooled pixel buffer, holding a frame from its capture until it is encoded.
+     */
+    private static final class Frame {
+        private final int[] pixels;
+        private long number;
+
+        /**
+         * Constructs a buffer.
+         * @param size number of pixels, or 0 for the marker that stops a worker
+         */
+        private Frame(int size) {
+            this.pixels = new int[size];
+        }
+    }
+
+    private static final Frame END = new Frame(0);
+
+    private final Path directory;
+    private final Format format;
+    private final int width;
+    private final int height;
+    private final BlockingQueue<Frame> free;
+    private final BlockingQueue<Frame> queue;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final Histogram cost;
+    private final AtomicLong written;
+    private final AtomicLong errors;
+    private volatile IOException failure;
+    // Buffer taken for the current frame by wantsFrame, null if none is taken
+    private Frame reserved;
+    private long frame;
+    private long captured;
+    private long dropped;
+    private long skipped;
+    private int stride;
+    private int streak;
+    private boolean closed;
+
+    /**
+     * Constructs a capture, writing into a directory which is created if needed.
+     * @param directory directory frames are written into
+     * @param format file format of frames
+     * @param width frame width
+     * @param height frame height
+     * @param workers number of encoding threads
+     * @param capacity number of frames which may wait for a worker
+     * @throws IOException if directory couldn't be created
+     */
+    public FrameCapture(Path directory, Format format, int width, int height, int workers, int capacity)
+            throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        // A waiting frame holds a buffer, which workers free as soon as they copied it
+        this.free = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.free.add(new Frame(width * height));
+        }
+        // Room for every buffer and for the end marker of every worker
+        this.queue = new ArrayBlockingQueue<>(capacity + workers);
+        this.cost = new Histogram();
+        this.written = new AtomicLong();
+        this.errors = new AtomicLong();
+        this.stride = 1;
+
+        this.workerCount = workers;
+        this.workers = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "frame-capture");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            this.workers.execute(this::encodeFrames);
+        }
+    }
+
+    /**
+     * Starts the next frame, and tells whether it will be captured, so a frame which won't be is never drawn.
+     * A frame is captured if it's within current capture rate and a buffer is free, and otherwise it's counted
+     * as skipped or dropped, adapting capture rate. Asking again before the frame is captured tells the same.
+     * @return whether next captured pixels will be queued to be written
+     */
+    public boolean wantsFrame() {
+        if (this.reserved != null) {
+            return true;
+        }
+        long number = this.frame++;
+        if (this.closed || number % this.stride != 0) {
+            this.skipped++;
+            return false;
+        }
+        Frame buffer = this.free.poll();
+        if (buffer == null) {
+            this.dropped++;
+            this.stride = Math.min(2 * this.stride, MAX_STRIDE);
+            this.streak = 0;
+            return false;
+        }
+        buffer.number = number;
+        this.reserved = buffer;
+        return true;
+    }
+
+    /**
+     * Offers a rendered frame for capture, returning right away whether or not it is captured.
+     * Unless wantsFrame was asked for this frame, it's asked first.
+     * @param pixels frame pixels, row by row, as ARGB values
+     * @return whether frame was queued to be written
+     */
+    public boolean capture(int[] pixels) {
+        long start = System.nanoTime();
+        boolean queued = this.wantsFrame() && this.queueFrame(pixels);
+        this.cost.record(System.nanoTime() - start);
+        return queued;
+    }
+
+    /**
+     * Queues a frame into the buffer taken for it, adapting capture rate.
+     * @param pixels frame pixels
+     * @return whether frame was queued, which it isn't if capture was closed since the buffer was taken
+     */
+    private boolean queueFrame(int[] pixels) {
+        Frame buffer = this.reserved;
+        this.reserved = null;
+        if (this.closed) {
+            this.free.add(buffer);
+            this.skipped++;
+            return false;
+        }
+        System.arraycopy(pixels, 0, buffer.pixels, 0, buffer.pixels.length);
+        this.queue.add(buffer);
+        this.captured++;
+        if (++this.streak >= RECOVERY && this.stride > 1) {
+            this.stride /= 2;
+            this.streak = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Encodes queued frames until the end marker is taken, run by every worker.
+     */
+    private void encodeFrames() {
+        // Each worker reuses its own image or byte buffer for all of its frames
+        BufferedImage image = null;
+        ByteBuffer bytes = null;
+        if (this.format == Format.PNG) {
+            image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+        } else {
+            bytes = ByteBuffer.allocateDirect(4 * this.width * this.height);
+        }
+        try {
+            while (true) {
+                Frame buffer = this.queue.take();
+                if (buffer == END) {
+                    return;
+                }
+                try {
+                    Path path = this.directory.resolve(String.format("frame-%06d.%s", buffer.number,
+                            this.format.extension));
+                    if (image != null) {
+                        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                        System.arraycopy(buffer.pixels, 0, data, 0, data.length);
+                        this.free.add(buffer);
+                        ImageIO.write(image, this.format.extension, path.toFile());
+                    } else {
+                        bytes.clear();
+                        bytes.asIntBuffer().put(buffer.pixels);
+                        this.free.add(buffer);
+                        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                            while (bytes.hasRemaining()) {
+                                channel.write(bytes);
+                            }
+                        }
+                    }
+                    this.written.incrementAndGet();
+                } catch (IOException e) {
+                    this.errors.incrementAndGet();
+                    this.failure = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops capturing, and waits for all queued frames to be written.
+     * @throws IOException if a frame couldn't be written, or waiting was interrupted
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            this.workers.shutdown();
+            try {
+                for (int i = 0; i < this.workerCount; i++) {
+                    this.queue.put(END);
+                }
+                this.workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing captured frames", e);
+            }
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     *
+     * @return number of frames queued to be written
+     */
+    public long getCaptured() {
+        return this.captured;
+    }
+
+    /**
+     *
+     * @return number of frames written to disk
+     */
+    public long getWritten() {
+        return this.written.get();
+    }
+
+    /**
+     *
+     * @return number of frames dropped since no buffer was free
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    /**
+     *
+     * @return number of frames skipped by a reduced capture rate, or after capture was closed
+     */
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    /**
+     *
+     * @return number of frames which couldn't be written
+     */
+    public long getErrors() {
+        return this.errors.get();
+    }
+
+    /**
+     *
+     * @return current capture rate, as one of every this many frames
+     */
+    public int getStride() {
+        return this.stride;
+    }
+
+    /**
+     *
+     * @return histogram of time spent capturing a frame on the game thread, in nanoseconds
+     */
+    public Histogram getCost() {
+        return this.cost;
+    }
+
+    /**
+     *
+     * @return a summary of captured frames and of game thread capture time, in microseconds
+     */
+    public String report() {
+        return String.format("capture: %d captured, %d written, %d dropped, %d skipped, %d errors, 1/%d rate%n"
+                        + "capture cost (us): p50 %.1f, p99 %.1f, max %.1f%n", this.captured, this.written.get(),
+                this.dropped, this.skipped, this.errors.get(), this.stride,
+                this.cost.getValueAtPercentile(50) / 1000.0, this.cost.getValueAtPercentile(99) / 1000.0,
+                this.cost.getMax() / 1000.0);
+    }
+}
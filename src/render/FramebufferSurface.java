@@ -0,0 +1,400 @@
+package render;
+
+import biuoop.AlphaChannelNotSupportedException;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Draw surface which rasterizes into an int array of ARGB pixels, row by row, without Java2D, so frames can be
+ * rendered headless and read back directly.
+ * Shapes are clipped to the surface and filled a row span at a time. A pixel is covered by a filled shape if its
+ * center is inside the shape, and outlines follow Java2D's convention of covering one extra row and column.
+ * Text is drawn with a built-in 5x7 bitmap font scaled to the font size, with lowercase letters drawn as
+ * uppercase and unknown characters left blank.
+ */
+public class FramebufferSurface implements DrawSurface {
+    // Glyph rows, top to bottom, 5 bits each with the leftmost pixel highest, for characters from ' ' on
+    private static final int[][] GLYPHS = new int[96][];
+    static final int GLYPH_WIDTH = 5;
+    static final int GLYPH_HEIGHT = 7;
+
+    static {
+        glyph(' ', 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00);
+        glyph('!', 0x04, 0x04, 0x04, 0x04, 0x04, 0x00, 0x04);
+        glyph('%', 0x18, 0x19, 0x02, 0x04, 0x08, 0x13, 0x03);
+        glyph('(', 0x02, 0x04, 0x08, 0x08, 0x08, 0x04, 0x02);
+        glyph(')', 0x08, 0x04, 0x02, 0x02, 0x02, 0x04, 0x08);
+        glyph('+', 0x00, 0x04, 0x04, 0x1F, 0x04, 0x04, 0x00);
+        glyph(',', 0x00, 0x00, 0x00, 0x00, 0x0C, 0x04, 0x08);
+        glyph('-', 0x00, 0x00, 0x00, 0x1F, 0x00, 0x00, 0x00);
+        glyph('.', 0x00, 0x00, 0x00, 0x00, 0x00, 0x0C, 0x0C);
+        glyph('/', 0x00, 0x01, 0x02, 0x04, 0x08, 0x10, 0x00);
+        glyph('0', 0x0E, 0x11, 0x13, 0x15, 0x19, 0x11, 0x0E);
+        glyph('1', 0x04, 0x0C, 0x04, 0x04, 0x04, 0x04, 0x0E);
+        glyph('2', 0x0E, 0x11, 0x01, 0x02, 0x04, 0x08, 0x1F);
+        glyph('3', 0x1F, 0x02, 0x04, 0x02, 0x01, 0x11, 0x0E);
+        glyph('4', 0x02, 0x06, 0x0A, 0x12, 0x1F, 0x02, 0x02);
+        glyph('5', 0x1F, 0x10, 0x1E, 0x01, 0x01, 0x11, 0x0E);
+        glyph('6', 0x06, 0x08, 0x10, 0x1E, 0x11, 0x11, 0x0E);
+        glyph('7', 0x1F, 0x01, 0x02, 0x04, 0x08, 0x08, 0x08);
+        glyph('8', 0x0E, 0x11, 0x11, 0x0E, 0x11, 0x11, 0x0E);
+        glyph('9', 0x0E, 0x11, 0x11, 0x0F, 0x01, 0x02, 0x0C);
+        glyph(':', 0x00, 0x0C, 0x0C, 0x00, 0x0C, 0x0C, 0x00);
+        glyph('=', 0x00, 0x00, 0x1F, 0x00, 0x1F, 0x00, 0x00);
+        glyph('?', 0x0E, 0x11, 0x01, 0x02, 0x04, 0x00, 0x04);
+        glyph('A', 0x0E, 0x11, 0x11, 0x11, 0x1F, 0x11, 0x11);
+        glyph('B', 0x1E, 0x11, 0x11, 0x1E, 0x11, 0x11, 0x1E);
+        glyph('C', 0x0E, 0x11, 0x10, 0x10, 0x10, 0x11, 0x0E);
+        glyph('D', 0x1C, 0x12, 0x11, 0x11, 0x11, 0x12, 0x1C);
+        glyph('E', 0x1F, 0x10, 0x10, 0x1E, 0x10, 0x10, 0x1F);
+        glyph('F', 0x1F, 0x10, 0x10, 0x1E, 0x10, 0x10, 0x10);
+        glyph('G', 0x0E, 0x11, 0x10, 0x17, 0x11, 0x11, 0x0F);
+        glyph('H', 0x11, 0x11, 0x11, 0x1F, 0x11, 0x11, 0x11);
+        glyph('I', 0x0E, 0x04, 0x04, 0x04, 0x04, 0x04, 0x0E);
+        glyph('J', 0x07, 0x02, 0x02, 0x02, 0x02, 0x12, 0x0C);
+        glyph('K', 0x11, 0x12, 0x14, 0x18, 0x14, 0x12, 0x11);
+        glyph('L', 0x10, 0x10, 0x10, 0x10, 0x10, 0x10, 0x1F);
+        glyph('M', 0x11, 0x1B, 0x15, 0x15, 0x11, 0x11, 0x11);
+        glyph('N', 0x11, 0x11, 0x19, 0x15, 0x13, 0x11, 0x11);
+        glyph('O', 0x0E, 0x11, 0x11, 0x11, 0x11, 0x11, 0x0E);
+        glyph('P', 0x1E, 0x11, 0x11, 0x1E, 0x10, 0x10, 0x10);
+        glyph('Q', 0x0E, 0x11, 0x11, 0x11, 0x15, 0x12, 0x0D);
+        glyph('R', 0x1E, 0x11, 0x11, 0x1E, 0x14, 0x12, 0x11);
+        glyph('S', 0x0F, 0x10, 0x10, 0x0E, 0x01, 0x01, 0x1E);
+        glyph('T', 0x1F, 0x04, 0x04, 0x04, 0x04, 0x04, 0x04);
+        glyph('U', 0x11, 0x11, 0x11, 0x11, 0x11, 0x11, 0x0E);
+        glyph('V', 0x11, 0x11, 0x11, 0x11, 0x11, 0x0A, 0x04);
+        glyph('W', 0x11, 0x11, 0x11, 0x15, 0x15, 0x15, 0x0A);
+        glyph('X', 0x11, 0x11, 0x0A, 0x04, 0x0A, 0x11, 0x11);
+        glyph('Y', 0x11, 0x11, 0x11, 0x0A, 0x04, 0x04, 0x04);
+        glyph('Z', 0x1F, 0x01, 0x02, 0x04, 0x08, 0x10, 0x1F);
+    }
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private int color;
+    // Drawing is clipped to [clipLeft, clipRight) x [clipTop, clipBottom)
+    private int clipLeft;
+    private int clipTop;
+    private int clipRight;
+    private int clipBottom;
+    // Polygon edge crossings of the current row, reused across polygons
+    private double[] crossings;
+
+    /**
+     * Constructs a surface with all pixels opaque black.
+     * @param width surface width
+     * @param height surface height
+     */
+    public FramebufferSurface(int width, int height) {
+        this(width, height, new int[width * height]);
+        Arrays.fill(this.pixels, this.color);
+    }
+
+    /**
+     * Constructs a surface drawing into given pixels, so several surfaces can draw disjoint parts of a frame.
+     * @param width surface width
+     * @param height surface height
+     * @param pixels pixels, row by row, of size width * height
+     */
+    FramebufferSurface(int width, int height, int[] pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.color = 0xFF000000;
+        this.crossings = new double[16];
+        this.setClip(0, 0, width, height);
+    }
+
+    /**
+     * Registers a glyph of the built-in font.
+     * @param c character
+     * @param rows glyph rows, top to bottom
+     */
+    private static void glyph(char c, int... rows) {
+        GLYPHS[c - ' '] = rows;
+    }
+
+    /**
+     *
+     * @return pixels, row by row, as ARGB values
+     */
+    public int[] getPixels() {
+        return this.pixels;
+    }
+
+    /**
+     * Returns a single pixel.
+     * @param x pixel x value
+     * @param y pixel y value
+     * @return ARGB value of pixel
+     */
+    public int getPixel(int x, int y) {
+        return this.pixels[y * this.width + x];
+    }
+
+    /**
+     * Clips all further drawing to a rectangle, which must be within the surface.
+     * @param left first x value
+     * @param top first y value
+     * @param right x value after the last one
+     * @param bottom y value after the last one
+     */
+    void setClip(int left, int top, int right, int bottom) {
+        this.clipLeft = left;
+        this.clipTop = top;
+        this.clipRight = right;
+        this.clipBottom = bottom;
+    }
+
+    /**
+     * Sets current color without checking it.
+     * @param argb opaque ARGB value
+     */
+    void setArgb(int argb) {
+        this.color = argb;
+    }
+
+    /**
+     * Calculates how many pixels wide a font pixel is, for text of a font size.
+     * @param fontSize font size
+     * @return font pixel size
+     */
+    static int textScale(int fontSize) {
+        return Math.max(1, Math.round(fontSize / 10f));
+    }
+
+    /**
+     * Fills the whole surface with a color.
+     * @param c opaque color
+     */
+    public void clear(Color c) {
+        this.setColor(c);
+        Arrays.fill(this.pixels, this.color);
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public void setColor(Color c) {
+        if (c.getAlpha() != 255) {
+            throw new AlphaChannelNotSupportedException("Framebuffer surface draws opaque colors only");
+        }
+        this.color = c.getRGB();
+    }
+
+    /**
+     * Fills a row span, clipped to the clip rectangle.
+     * @param y row
+     * @param from first x value
+     * @param to x value after the last one
+     */
+    private void span(int y, int from, int to) {
+        if (y < this.clipTop || y >= this.clipBottom) {
+            return;
+        }
+        from = Math.max(from, this.clipLeft);
+        to = Math.min(to, this.clipRight);
+        if (from < to) {
+            int row = y * this.width;
+            Arrays.fill(this.pixels, row + from, row + to, this.color);
+        }
+    }
+
+    /**
+     * Sets a pixel, if it's within the clip rectangle.
+     * @param x pixel x value
+     * @param y pixel y value
+     */
+    private void plot(int x, int y) {
+        if (x >= this.clipLeft && x < this.clipRight && y >= this.clipTop && y < this.clipBottom) {
+            this.pixels[y * this.width + x] = this.color;
+        }
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        int top = Math.max(y, this.clipTop);
+        int bottom = Math.min(y + h, this.clipBottom);
+        for (int row = top; row < bottom; row++) {
+            this.span(row, x, x + w);
+        }
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        if (w < 0 || h < 0) {
+            return;
+        }
+        this.span(y, x, x + w + 1);
+        this.span(y + h, x, x + w + 1);
+        int top = Math.max(y + 1, this.clipTop);
+        int bottom = Math.min(y + h, this.clipBottom);
+        for (int row = top; row < bottom; row++) {
+            this.plot(x, row);
+            this.plot(x + w, row);
+        }
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        // Bresenham, over the major axis
+        int dx = Math.abs(x2 - x1), dy = -Math.abs(y2 - y1);
+        int sx = x1 < x2 ? 1 : -1, sy = y1 < y2 ? 1 : -1;
+        int error = dx + dy;
+        while (true) {
+            this.plot(x1, y1);
+            if (x1 == x2 && y1 == y2) {
+                return;
+            }
+            int e2 = 2 * error;
+            if (e2 >= dy) {
+                error += dy;
+                x1 += sx;
+            }
+            if (e2 <= dx) {
+                error += dx;
+                y1 += sy;
+            }
+        }
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        double cx = x + w / 2.0, cy = y + h / 2.0, a = w / 2.0, b = h / 2.0;
+        int top = Math.max(y, this.clipTop);
+        int bottom = Math.min(y + h, this.clipBottom);
+        for (int row = top; row < bottom; row++) {
+            // Half width of the ellipse at the row's pixel centers
+            double t = (row + 0.5 - cy) / b;
+            double half = a * Math.sqrt(Math.max(0, 1 - t * t));
+            this.span(row, (int) Math.ceil(cx - half - 0.5), (int) Math.ceil(cx + half - 0.5));
+        }
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        if (w < 0 || h < 0) {
+            return;
+        }
+        // Outline covers w + 1 by h + 1 pixels, and is traced by rows and by columns so steep parts have no gaps
+        double cx = x + w / 2.0, cy = y + h / 2.0, a = w / 2.0, b = h / 2.0;
+        for (int row = y; row <= y + h; row++) {
+            double t = b == 0 ? 0 : (row - cy) / b;
+            double half = a * Math.sqrt(Math.max(0, 1 - t * t));
+            this.plot((int) Math.round(cx - half), row);
+            this.plot((int) Math.round(cx + half), row);
+        }
+        for (int col = x; col <= x + w; col++) {
+            double t = a == 0 ? 0 : (col - cx) / a;
+            double half = b * Math.sqrt(Math.max(0, 1 - t * t));
+            this.plot(col, (int) Math.round(cy - half));
+            this.plot(col, (int) Math.round(cy + half));
+        }
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        this.fillOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        this.drawOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        int n = p.npoints;
+        if (n < 3) {
+            return;
+        }
+        if (this.crossings.length < n) {
+            this.crossings = new double[n];
+        }
+        Rectangle bounds = p.getBounds();
+        int top = Math.max(bounds.y, this.clipTop);
+        int bottom = Math.min(bounds.y + bounds.height, this.clipBottom);
+        for (int row = top; row < bottom; row++) {
+            // Even-odd rule, sampled at the row's pixel centers
+            double sampleY = row + 0.5;
+            int count = 0;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                double y0 = p.ypoints[j], y1 = p.ypoints[i];
+                if ((y0 <= sampleY) != (y1 <= sampleY)) {
+                    double x0 = p.xpoints[j], x1 = p.xpoints[i];
+                    this.crossings[count++] = x0 + (sampleY - y0) * (x1 - x0) / (y1 - y0);
+                }
+            }
+            Arrays.sort(this.crossings, 0, count);
+            for (int k = 0; k + 1 < count; k += 2) {
+                this.span(row, (int) Math.ceil(this.crossings[k] - 0.5), (int) Math.ceil(this.crossings[k + 1] - 0.5));
+            }
+        }
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        for (int i = 0, j = p.npoints - 1; i < p.npoints; j = i++) {
+            this.drawLine(p.xpoints[j], p.ypoints[j], p.xpoints[i], p.ypoints[i]);
+        }
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+        // Glyphs stand on the baseline, about as tall as capital letters of the font size
+        int scale = textScale(fontSize);
+        int top = y - GLYPH_HEIGHT * scale;
+        for (int i = 0; i < s.length(); i++) {
+            char c = Character.toUpperCase(s.charAt(i));
+            int[] rows = c >= ' ' && c - ' ' < GLYPHS.length ? GLYPHS[c - ' '] : null;
+            int left = x + i * (GLYPH_WIDTH + 1) * scale;
+            for (int r = 0; rows != null && r < GLYPH_HEIGHT; r++) {
+                for (int col = 0; col < GLYPH_WIDTH; col++) {
+                    if ((rows[r] & (1 << (GLYPH_WIDTH - 1 - col))) != 0) {
+                        this.fillRectangle(left + col * scale, top + r * scale, scale, scale);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        // Only images whose pixels can be read without drawing them are supported
+        if (!(image instanceof BufferedImage)) {
+            return;
+        }
+        BufferedImage buffered = (BufferedImage) image;
+        int left = Math.max(x, this.clipLeft), top = Math.max(y, this.clipTop);
+        int right = Math.min(x + buffered.getWidth(), this.clipRight);
+        int bottom = Math.min(y + buffered.getHeight(), this.clipBottom);
+        for (int row = top; row < bottom; row++) {
+            for (int col = left; col < right; col++) {
+                int argb = buffered.getRGB(col - x, row - y);
+                // Translucent pixels are drawn if mostly opaque, since surface has no alpha blending
+                if ((argb >>> 24) >= 128) {
+                    this.pixels[row * this.width + col] = argb | 0xFF000000;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package render;
+
+import biuoop.AlphaChannelNotSupportedException;
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draw surface which records a frame's draw commands, and rasterizes them in parallel by screen tiles.
+ * Every command is binned into the tiles its bounding box overlaps, and render rasterizes all tiles on a fork
+ * join pool, each through a framebuffer surface clipped to the tile. Tiles cover disjoint pixels and replay
+ * their commands in the order they were drawn, so a frame comes out the same as drawn on a single framebuffer.
+ */
+public class TiledSurface implements DrawSurface {
+    // Tiles are wide, since pixels are stored row by row and long row spans fill fastest
+    public static final int DEFAULT_TILE_WIDTH = 1024;
+    public static final int DEFAULT_TILE_HEIGHT = 64;
+    // Command codes, each followed in command data by its color and arguments
+    private static final int FILL_RECTANGLE = 0;
+    private static final int DRAW_RECTANGLE = 1;
+    private static final int DRAW_LINE = 2;
+    private static final int FILL_OVAL = 3;
+    private static final int DRAW_OVAL = 4;
+    private static final int FILL_POLYGON = 5;
+    private static final int DRAW_POLYGON = 6;
+    private static final int DRAW_TEXT = 7;
+    private static final int DRAW_IMAGE = 8;
+
+    private final int width;
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int tilesX;
+    private final int[] pixels;
+    private final ForkJoinPool pool;
+    // Surface of each tile, clipped to the tile
+    private final FramebufferSurface[] tiles;
+    // Commands overlapping each tile, as offsets into command data
+    private final int[][] bins;
+    private final int[] binSizes;
+    private int[] data;
+    private int size;
+    // Polygons, strings and images commands refer to by index
+    private final List<Object> objects;
+    private int color;
+
+    /**
+     * Constructs a surface with all pixels opaque black, rendering by default size tiles on the common pool.
+     * @param width surface width
+     * @param height surface height
+     */
+    public TiledSurface(int width, int height) {
+        this(width, height, DEFAULT_TILE_WIDTH, DEFAULT_TILE_HEIGHT, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a surface with all pixels opaque black.
+     * @param width surface width
+     * @param height surface height
+     * @param tileWidth width of tiles
+     * @param tileHeight height of tiles
+     * @param pool pool tiles are rasterized on
+     */
+    public TiledSurface(int width, int height, int tileWidth, int tileHeight, ForkJoinPool pool) {
+        this.width = width;
+        this.height = height;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.pool = pool;
+        this.pixels = new int[width * height];
+        this.color = 0xFF000000;
+        Arrays.fill(this.pixels, this.color);
+
+        this.tilesX = (width + tileWidth - 1) / tileWidth;
+        int tilesY = (height + tileHeight - 1) / tileHeight;
+        this.tiles = new FramebufferSurface[this.tilesX * tilesY];
+        this.bins = new int[this.tiles.length][];
+        this.binSizes = new int[this.tiles.length];
+        for (int i = 0; i < this.tiles.length; i++) {
+            int left = (i % this.tilesX) * tileWidth, top = (i / this.tilesX) * tileHeight;
+            this.tiles[i] = new FramebufferSurface(width, height, this.pixels);
+            this.tiles[i].setClip(left, top, Math.min(left + tileWidth, width), Math.min(top + tileHeight, height));
+            this.bins[i] = new int[16];
+        }
+        this.data = new int[256];
+        this.objects = new ArrayList<>();
+    }
+
+    /**
+     * Rasterizes all commands drawn since last render, and clears them.
+     */
+    public void render() {
+        this.pool.invoke(new TileRange(0, this.tiles.length));
+        Arrays.fill(this.binSizes, 0);
+        this.size = 0;
+        this.objects.clear();
+    }
+
+    /**
+     *
+     * @return pixels, row by row, as ARGB values, as of last render
+     */
+    public int[] getPixels() {
+        return this.pixels;
+    }
+
+    /**
+     * Returns a single pixel, as of last render.
+     * @param x pixel x value
+     * @param y pixel y value
+     * @return ARGB value of pixel
+     */
+    public int getPixel(int x, int y) {
+        return this.pixels[y * this.width + x];
+    }
+
+    /**
+     * Rasterizes a range of tiles, splitting it in halves until single tiles are left.
+     */
+    private final class TileRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a tile range.
+         * @param from first tile index
+         * @param to tile index after the last one
+         */
+        private TileRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new TileRange(this.from, middle), new TileRange(middle, this.to));
+            } else if (this.to > this.from) {
+                rasterize(this.from);
+            }
+        }
+    }
+
+    /**
+     * Replays a tile's commands, in drawing order, on its clipped surface.
+     * @param tile tile index
+     */
+    private void rasterize(int tile) {
+        FramebufferSurface surface = this.tiles[tile];
+        int[] bin = this.bins[tile];
+        int[] d = this.data;
+        for (int i = 0; i < this.binSizes[tile]; i++) {
+            int at = bin[i];
+            surface.setArgb(d[at + 1]);
+            switch (d[at]) {
+                case FILL_RECTANGLE:
+                    surface.fillRectangle(d[at + 2], d[at + 3], d[at + 4], d[at + 5]);
+                    break;
+                case DRAW_RECTANGLE:
+                    surface.drawRectangle(d[at + 2], d[at + 3], d[at + 4], d[at + 5]);
+                    break;
+                case DRAW_LINE:
+                    surface.drawLine(d[at + 2], d[at + 3], d[at + 4], d[at + 5]);
+                    break;
+                case FILL_OVAL:
+                    surface.fillOval(d[at + 2], d[at + 3], d[at + 4], d[at + 5]);
+                    break;
+                case DRAW_OVAL:
+                    surface.drawOval(d[at + 2], d[at + 3], d[at + 4], d[at + 5]);
+                    break;
+                case FILL_POLYGON:
+                    surface.fillPolygon((Polygon) this.objects.get(d[at + 2]));
+                    break;
+                case DRAW_POLYGON:
+                    surface.drawPolygon((Polygon) this.objects.get(d[at + 2]));
+                    break;
+                case DRAW_TEXT:
+                    surface.drawText(d[at + 2], d[at + 3], (String) this.objects.get(d[at + 5]), d[at + 4]);
+                    break;
+                default:
+                    surface.drawImage(d[at + 2], d[at + 3], (Image) this.objects.get(d[at + 4]));
+            }
+        }
+    }
+
+    /**
+     * Records a command with four arguments, and bins it by its bounding box.
+     * @param op command code
+     * @param a first argument
+     * @param b second argument
+     * @param c third argument
+     * @param e fourth argument
+     * @param left bounding box first x value
+     * @param top bounding box first y value
+     * @param right bounding box x value after the last one
+     * @param bottom bounding box y value after the last one
+     */
+    private void record(int op, int a, int b, int c, int e, int left, int top, int right, int bottom) {
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, this.width);
+        bottom = Math.min(bottom, this.height);
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        if (this.size + 6 > this.data.length) {
+            this.data = Arrays.copyOf(this.data, 2 * this.data.length);
+        }
+        int at = this.size;
+        this.data[at] = op;
+        this.data[at + 1] = this.color;
+        this.data[at + 2] = a;
+        this.data[at + 3] = b;
+        this.data[at + 4] = c;
+        this.data[at + 5] = e;
+        this.size += 6;
+
+        for (int ty = top / this.tileHeight; ty <= (bottom - 1) / this.tileHeight; ty++) {
+            for (int tx = left / this.tileWidth; tx <= (right - 1) / this.tileWidth; tx++) {
+                int tile = ty * this.tilesX + tx;
+                if (this.binSizes[tile] == this.bins[tile].length) {
+                    this.bins[tile] = Arrays.copyOf(this.bins[tile], 2 * this.bins[tile].length);
+                }
+                this.bins[tile][this.binSizes[tile]++] = at;
+            }
+        }
+    }
+
+    /**
+     * Keeps an object a command refers to until next render.
+     * @param o polygon, string or image
+     * @return object index
+     */
+    private int keep(Object o) {
+        this.objects.add(o);
+        return this.objects.size() - 1;
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public void setColor(Color c) {
+        if (c.getAlpha() != 255) {
+            throw new AlphaChannelNotSupportedException("Tiled surface draws opaque colors only");
+        }
+        this.color = c.getRGB();
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        this.record(FILL_RECTANGLE, x, y, w, h, x, y, x + w, y + h);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        this.record(DRAW_RECTANGLE, x, y, w, h, x, y, x + w + 1, y + h + 1);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        this.record(DRAW_LINE, x1, y1, x2, y2, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2) + 1,
+                Math.max(y1, y2) + 1);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        this.record(FILL_OVAL, x, y, w, h, x, y, x + w, y + h);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        this.record(DRAW_OVAL, x, y, w, h, x, y, x + w + 1, y + h + 1);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        this.fillOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        this.drawOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        // Points are copied, since callers may change a polygon after drawing it
+        Rectangle b = p.getBounds();
+        this.record(FILL_POLYGON, this.keep(new Polygon(p.xpoints, p.ypoints, p.npoints)), 0, 0, 0,
+                b.x, b.y, b.x + b.width, b.y + b.height);
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        Rectangle b = p.getBounds();
+        this.record(DRAW_POLYGON, this.keep(new Polygon(p.xpoints, p.ypoints, p.npoints)), 0, 0, 0,
+                b.x, b.y, b.x + b.width + 1, b.y + b.height + 1);
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+        int scale = FramebufferSurface.textScale(fontSize);
+        this.record(DRAW_TEXT, x, y, fontSize, this.keep(s), x, y - FramebufferSurface.GLYPH_HEIGHT * scale,
+                x + s.length() * (FramebufferSurface.GLYPH_WIDTH + 1) * scale, y);
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        int w = image.getWidth(null), h = image.getHeight(null);
+        if (w > 0 && h > 0) {
+            this.record(DRAW_IMAGE, x, y, this.keep(image), 0, x, y, x + w, y + h);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package rl;
+
+import game.BlockListener;
+import game.Game;
+import geometry.Velocity;
+import net.InputKeyboard;
+import objects.Ball;
+import objects.Block;
+import objects.Paddle;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Reinforcement learning environment over a headless game, where an agent controls the paddle.
+ * Every reset and step writes the observation into a byte buffer with absolute puts, so a trainer can read
+ * it in place. Observation layout, in the buffer's byte order:
+ * reward (float), done (int, 1 if episode is over), score (int), steps (int), paddle x, y (floats),
+ * then for each of the configured balls its x, y, dx, dy and 1 if in game or 0 if not (floats),
+ * then a bitmap of live blocks in order of creation (longs, 8 bytes aligned).
+ * Reward is score gained on the step, less BALL_LOST_PENALTY for every ball lost on it.
+ */
+public class GameEnv implements BlockListener {
+    public static final int NOOP = 0;
+    public static final int LEFT = InputKeyboard.LEFT;
+    public static final int RIGHT = InputKeyboard.RIGHT;
+    public static final float BALL_LOST_PENALTY = 10;
+    private static final int HEADER_SIZE = 24;
+    private static final int BALL_SIZE = 20;
+    private static final double BALL_SPEED = 6;
+    private static final int BORDER = 30;
+
+    private final int width;
+    private final int height;
+    private final int balls;
+    private final int rows;
+    private final int cols;
+    private final int maxSteps;
+    private final int bitmapOffset;
+    private final int observationSize;
+    private ByteBuffer observation;
+
+    private final InputKeyboard keyboard;
+    private final Map<Block, Integer> blockIndexes;
+    private final long[] bitmap;
+    private Game game;
+    private int steps;
+    private int score;
+    private int remainingBalls;
+    private boolean done;
+
+    /**
+     * Constructs an environment writing observations into its own direct buffer, in native byte order.
+     * @param width arena width
+     * @param height arena height
+     * @param balls number of balls
+     * @param rows number of block rows
+     * @param cols number of blocks in top row
+     * @param maxSteps steps after which an episode is over, even if game isn't
+     */
+    public GameEnv(int width, int height, int balls, int rows, int cols, int maxSteps) {
+        this.width = width;
+        this.height = height;
+        this.balls = balls;
+        this.rows = rows;
+        this.cols = cols;
+        this.maxSteps = maxSteps;
+        this.bitmapOffset = (HEADER_SIZE + BALL_SIZE * balls + 7) & ~7;
+        this.observationSize = this.bitmapOffset + 8 * ((blocksCount(rows, cols) + 63) / 64);
+        this.observation = ByteBuffer.allocateDirect(this.observationSize).order(ByteOrder.nativeOrder());
+        this.keyboard = new InputKeyboard();
+        this.blockIndexes = new IdentityHashMap<>();
+        this.bitmap = new long[(blocksCount(rows, cols) + 63) / 64];
+    }
+
+    /**
+     * Calculates number of blocks a game initialized with given rows and columns has.
+     * @param rows number of block rows
+     * @param cols number of blocks in top row
+     * @return number of blocks
+     */
+    private static int blocksCount(int rows, int cols) {
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            count += Math.max(1, cols - i);
+        }
+        return count;
+    }
+
+    /**
+     *
+     * @return size of an observation in bytes, a multiple of 8
+     */
+    public int getObservationSize() {
+        return this.observationSize;
+    }
+
+    /**
+     * Sets the buffer observations are written into, from its position 0.
+     * @param buffer buffer of at least observation size, whose byte order is used
+     */
+    public void setObservationBuffer(ByteBuffer buffer) {
+        this.observation = buffer;
+    }
+
+    /**
+     *
+     * @return buffer observations are written into
+     */
+    public ByteBuffer getObservationBuffer() {
+        return this.observation;
+    }
+
+    /**
+     * Starts a new episode, with balls placed and aimed upward at random, and writes its first observation.
+     * @param seed seed of balls placement, so equal seeds start equal episodes
+     */
+    public void reset(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        this.game = new Game(this.width, this.height, 0);
+        this.game.initialize(this.rows, this.cols);
+        for (int i = 0; i < this.balls; i++) {
+            double x = BORDER + 50 + random.nextDouble() * (this.width - 2 * BORDER - 100);
+            double y = this.height - 100 - random.nextDouble() * 100;
+            Velocity v = Velocity.fromAngleAndSpeed(random.nextDouble(-60, 60), BALL_SPEED);
+            this.game.addBall(x, y, v.getDx(), v.getDy());
+        }
+        this.game.start(this.keyboard);
+
+        this.blockIndexes.clear();
+        Arrays.fill(this.bitmap, 0);
+        this.game.addBlockListener(this);
+        this.steps = 0;
+        this.score = 0;
+        this.remainingBalls = this.game.getRemainingBalls();
+        this.done = false;
+        this.write(0);
+    }
+
+    /**
+     * Plays a tick with the paddle moved by an action, and writes the observation of its end.
+     * @param action NOOP, LEFT or RIGHT
+     * @return step reward
+     */
+    public float step(int action) {
+        this.keyboard.set(action);
+        this.game.tick();
+        this.steps++;
+
+        int gained = this.game.getScore() - this.score;
+        int lost = this.remainingBalls - this.game.getRemainingBalls();
+        this.score = this.game.getScore();
+        this.remainingBalls = this.game.getRemainingBalls();
+        this.done = this.game.isOver() || this.steps >= this.maxSteps;
+        float reward = gained - BALL_LOST_PENALTY * lost;
+        this.write(reward);
+        return reward;
+    }
+
+    /**
+     *
+     * @return whether episode is over
+     */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     *
+     * @return game of current episode
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    @Override
+    public void blockAdded(Block block) {
+        int index = this.blockIndexes.size();
+        if (index < 64 * this.bitmap.length) {
+            this.blockIndexes.put(block, index);
+            this.bitmap[index >>> 6] |= 1L << index;
+        }
+    }
+
+    @Override
+    public void blockRemoved(Block block) {
+        Integer index = this.blockIndexes.get(block);
+        if (index != null) {
+            this.bitmap[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Writes current observation.
+     * @param reward reward of last step
+     */
+    private void write(float reward) {
+        ByteBuffer out = this.observation;
+        out.putFloat(0, reward);
+        out.putInt(4, this.done ? 1 : 0);
+        out.putInt(8, this.score);
+        out.putInt(12, this.steps);
+        Paddle paddle = this.game.getPaddle(0);
+        out.putFloat(16, (float) paddle.getMinX());
+        out.putFloat(20, (float) paddle.getMinY());
+
+        int count = Math.min(this.balls, this.game.getBallCount());
+        int at = HEADER_SIZE;
+        for (int i = 0; i < this.balls; i++, at += BALL_SIZE) {
+            Ball ball = i < count ? this.game.getBall(i) : null;
+            boolean live = ball != null && ball.isInGame();
+            out.putFloat(at, live ? (float) ball.getCenter().getX() : 0);
+            out.putFloat(at + 4, live ? (float) ball.getCenter().getY() : 0);
+            out.putFloat(at + 8, live ? (float) ball.getVelocity().getDx() : 0);
+            out.putFloat(at + 12, live ? (float) ball.getVelocity().getDy() : 0);
+            out.putFloat(at + 16, live ? 1 : 0);
+        }
+
+        for (int i = 0; i < this.bitmap.length; i++) {
+            out.putLong(this.bitmapOffset + 8 * i, this.bitmap[i]);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package rl;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.function.Supplier;
+
+/**
+ * Steps many environments per call, split into contiguous ranges which are stepped in parallel by a fixed
+ * thread pool. All observations live in a single direct buffer in native byte order, environment i's at
+ * offset i * stride, so a trainer reads the whole batch without copying.
+ * An environment whose episode is over is reset on its next step, with the next seed of its own sequence,
+ * and the step's action is then applied to the new episode. Sequences are interleaved, so no two environments
+ * ever play an episode with the same seed.
+ */
+public class VectorEnv implements Closeable {
+    private final GameEnv[] envs;
+    private final int stride;
+    private final ByteBuffer observations;
+    private final ExecutorService pool;
+    private final Runnable[] ranges;
+    private final Phaser phaser;
+    private final long[] seeds;
+    private final float[] rewards;
+    private int[] actions;
+    private volatile Throwable failure;
+
+    /**
+     * Constructs a vectorized environment.
+     * @param count number of environments
+     * @param threads number of threads stepping environments
+     * @param factory creates each environment, all with the same observation size
+     */
+    public VectorEnv(int count, int threads, Supplier<GameEnv> factory) {
+        this.envs = new GameEnv[count];
+        for (int i = 0; i < count; i++) {
+            this.envs[i] = factory.get();
+        }
+        this.stride = this.envs[0].getObservationSize();
+        this.observations = ByteBuffer.allocateDirect(count * this.stride).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < count; i++) {
+            this.envs[i].setObservationBuffer(
+                    this.observations.slice(i * this.stride, this.stride).order(ByteOrder.nativeOrder()));
+        }
+        this.seeds = new long[count];
+        this.rewards = new float[count];
+
+        int parts = Math.max(1, Math.min(threads, count));
+        this.pool = Executors.newFixedThreadPool(parts, r -> {
+            Thread thread = new Thread(r, "rl-step");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ranges = new Runnable[parts];
+        for (int p = 0; p < parts; p++) {
+            int from = count * p / parts;
+            int to = count * (p + 1) / parts;
+            this.ranges[p] = () -> this.stepRange(from, to);
+        }
+        // Caller and every range arrive once per step
+        this.phaser = new Phaser(parts + 1);
+    }
+
+    /**
+     * Steps a range of environments with the current actions.
+     * @param from first environment index
+     * @param to environment index after the last one
+     */
+    private void stepRange(int from, int to) {
+        try {
+            for (int i = from; i < to; i++) {
+                if (this.envs[i].isDone()) {
+                    this.envs[i].reset(this.seeds[i]);
+                    this.seeds[i] += this.envs.length;
+                }
+                this.rewards[i] = this.envs[i].step(this.actions[i]);
+            }
+        } catch (Throwable t) {
+            this.failure = t;
+        } finally {
+            this.phaser.arrive();
+        }
+    }
+
+    /**
+     * Starts new episodes in all environments, environment i with seed + i, and writes their first observations.
+     * Later resets of environment i advance its seed by the number of environments.
+     * @param seed base seed
+     */
+    public void reset(long seed) {
+        for (int i = 0; i < this.envs.length; i++) {
+            this.envs[i].reset(seed + i);
+            this.seeds[i] = seed + i + this.envs.length;
+        }
+    }
+
+    /**
+     * Steps all environments in parallel, and returns once all observations are written.
+     * @param actions action of each environment
+     * @return reward of each environment, which is reused by the next step
+     */
+    public float[] step(int[] actions) {
+        this.actions = actions;
+        for (int p = 0; p < this.ranges.length; p++) {
+            this.pool.execute(this.ranges[p]);
+        }
+        this.phaser.arriveAndAwaitAdvance();
+        Throwable t = this.failure;
+        if (t != null) {
+            this.failure = null;
+            throw new IllegalStateException("Environment step failed", t);
+        }
+        return this.rewards;
+    }
+
+    /**
+     *
+     * @return observations of all environments, environment i's at offset i * stride
+     */
+    public ByteBuffer getObservations() {
+        return this.observations;
+    }
+
+    /**
+     *
+     * @return size in bytes of each environment's observation
+     */
+    public int getStride() {
+        return this.stride;
+    }
+
+    /**
+     *
+     * @return number of environments
+     */
+    public int size() {
+        return this.envs.length;
+    }
+
+    /**
+     * Returns a single environment.
+     * @param i environment index
+     * @return environment
+     */
+    public GameEnv get(int i) {
+        return this.envs[i];
+    }
+
+    @Override
+    public void close() {
+        this.pool.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import collisions.CollisionArena;
+import collisions.CollisionInfo;
+import geometry.GeometryArena;
+import geometry.Line;
+import geometry.Point;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Test class for GeometryArena and CollisionArena.
+ */
+public class ArenaTest {
+
+    @Test
+    public void testPointsAreReusedAfterReset() {
+        GeometryArena arena = new GeometryArena();
+        Point first = arena.point(1, 2);
+        Point second = arena.point(3, 4);
+        assertNotSame(first, second);
+        assertEquals(new Point(1, 2), first);
+        assertEquals(2, arena.size());
+
+        arena.reset();
+        assertEquals(0, arena.size());
+        assertSame(first, arena.point(5, 6));
+        assertSame(second, arena.point(7, 8));
+        assertEquals(new Point(5, 6), first);
+    }
+
+    @Test
+    public void testLinesAreReusedAfterReset() {
+        GeometryArena arena = new GeometryArena();
+        Line line = arena.line(0, 0, 10, 0);
+        assertEquals(10, line.length(), 0.0001);
+
+        arena.reset();
+        assertSame(line, arena.line(0, 0, 0, 5));
+        assertEquals(5, line.length(), 0.0001);
+    }
+
+    @Test
+    public void testArenaGrowsBeyondInitialCapacity() {
+        GeometryArena arena = new GeometryArena();
+        Point[] points = new Point[100];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = arena.point(i, i);
+        }
+        for (int i = 0; i < points.length; i++) {
+            assertEquals(new Point(i, i), points[i]);
+        }
+        assertEquals(100, arena.size());
+    }
+
+    @Test
+    public void testEscapedObjectsAreNotLive() {
+        GeometryArena arena = new GeometryArena();
+        Point point = arena.point(1, 1);
+        Line line = arena.line(0, 0, 1, 1);
+        assertTrue(arena.isLive(point));
+        assertTrue(arena.isLive(line));
+
+        arena.reset();
+        assertFalse(arena.isLive(point));
+        assertFalse(arena.isLive(line));
+
+        // Handed out again in the new tick
+        arena.point(2, 2);
+        assertTrue(arena.isLive(point));
+
+        // Objects not handed out by arena are always live
+        assertTrue(arena.isLive(new Point(0, 0)));
+        assertTrue(new GeometryArena().isLive(point));
+    }
+
+    /**
+     * Checks that invoking an accessor fails an assertion.
+     * @param accessor accessor to invoke
+     * @param target object to invoke accessor on
+     */
+    private static void assertAccessFails(Method accessor, Object target) {
+        InvocationTargetException e = assertThrows(InvocationTargetException.class, () -> accessor.invoke(target));
+        assertInstanceOf(AssertionError.class, e.getCause(), accessor.getName());
+    }
+
+    @Test
+    public void testReadingEscapedObjectsFailsAssertions() throws Exception {
+        // Arena classes are loaded again with assertions enabled, whether or not this test run enables them
+        URL classes = CollisionArena.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes}, ClassLoader.getPlatformClassLoader())) {
+            loader.setDefaultAssertionStatus(true);
+            Class<?> arenaType = loader.loadClass(CollisionArena.class.getName());
+            Object arena = arenaType.getConstructor().newInstance();
+            Object geometry = arenaType.getMethod("geometry").invoke(arena);
+            Method point = geometry.getClass().getMethod("point", double.class, double.class);
+            Method line = geometry.getClass().getMethod("line", double.class, double.class, double.class, double.class);
+            Object info = arenaType.getMethod("collisionInfo").invoke(arena);
+            Object p = point.invoke(geometry, 1.0, 2.0);
+            Object l = line.invoke(geometry, 0.0, 0.0, 3.0, 4.0);
+            Method getX = loader.loadClass(Point.class.getName()).getMethod("getX");
+            Method length = loader.loadClass(Line.class.getName()).getMethod("length");
+            Method getTime = loader.loadClass(CollisionInfo.class.getName()).getMethod("getTime");
+            assertEquals(1.0, getX.invoke(p));
+            assertEquals(5.0, (double) length.invoke(l), 0.0001);
+            getTime.invoke(info);
+
+            arenaType.getMethod("reset").invoke(arena);
+            assertAccessFails(getX, p);
+            assertAccessFails(length, l);
+            assertAccessFails(getTime, info);
+
+            // Handed out again in the new tick
+            point.invoke(geometry, 5.0, 6.0);
+            assertEquals(5.0, getX.invoke(p));
+        }
+    }
+
+    @Test
+    public void testCollisionArenaResetsGeometry() {
+        CollisionArena arena = new CollisionArena();
+        CollisionInfo info = arena.collisionInfo();
+        Point point = arena.geometry().point(1, 1);
+        assertEquals(1, arena.size());
+        assertTrue(arena.isLive(info));
+
+        arena.reset();
+        assertEquals(0, arena.size());
+        assertEquals(0, arena.geometry().size());
+        assertFalse(arena.isLive(info));
+        assertFalse(arena.geometry().isLive(point));
+        assertSame(info, arena.collisionInfo());
+        assertTrue(arena.isLive(info));
+    }
+}
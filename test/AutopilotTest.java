@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Autopilot;
+import game.Game;
+
+/**
+ * Test class for Autopilot.
+ */
+public class AutopilotTest {
+
+    @Test
+    public void testAutopilotKeepsBallsInGame() {
+        Game idle = new Game(800, 600, 3);
+        idle.initialize(12, 24);
+        idle.start(key -> false);
+        Game piloted = new Game(800, 600, 3);
+        piloted.initialize(12, 24);
+        piloted.start(new Autopilot(piloted));
+
+        for (int i = 0; i < 3000; i++) {
+            if (!idle.isOver()) {
+                idle.tick();
+            }
+            piloted.tick();
+        }
+        assertEquals(0, idle.getRemainingBalls());
+        assertTrue(piloted.getRemainingBalls() > 0);
+        assertTrue(piloted.getScore() > idle.getScore());
+    }
+
+    @Test
+    public void testPredictionsAreCachedUntilVelocityChanges() {
+        Game game = TestGames.create();
+        Autopilot autopilot = new Autopilot(game);
+        game.start(autopilot);
+
+        int ticks = 1000;
+        long descendingBallTicks = 0;
+        for (int i = 0; i < ticks && !game.isOver(); i++) {
+            game.tick();
+            for (int b = 0; b < game.getBallCount(); b++) {
+                if (game.getBall(b).isInGame() && game.getBall(b).getVelocity().getDy() > 0) {
+                    descendingBallTicks++;
+                }
+            }
+        }
+        assertTrue(autopilot.getPredictions() > 0);
+        // Most ticks of a descending ball reuse its prediction
+        assertTrue(autopilot.getPredictions() * 4 < descendingBallTicks,
+                autopilot.getPredictions() + " predictions over " + descendingBallTicks + " ball ticks");
+    }
+}
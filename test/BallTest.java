@@ -354,6 +354,74 @@ public class BallTest {
         assertTrue(ball.getX() < 100); // Should not pass through the collidables
     }
 
+    @Test
+    public void testFastBallDoesNotTunnelThroughThinBlock() {
+        GameEnvironment gameEnv = new GameEnvironment();
+        gameEnv.addCollidable(new Rectangle(new Point(100, 0), 2, 200));
+
+        // Ball center would jump from left of block to far right of it in a single step
+        Ball ball = new Ball(new Point(50, 100), 5, Color.BLACK);
+        ball.setVelocity(100, 0);
+        ball.setEnvironment(gameEnv);
+
+        ball.moveOneStep();
+
+        assertTrue(ball.getX() < 100);
+        assertTrue(ball.getVelocity().getDx() < 0);
+    }
+
+    @Test
+    public void testRadiusIsUsedForCollision() {
+        GameEnvironment gameEnv = new GameEnvironment();
+        gameEnv.addCollidable(new Rectangle(new Point(100, 0), 50, 200));
+
+        // Ball center stops short of the block, but its edge doesn't
+        Ball ball = new Ball(new Point(80, 100), 10, Color.BLACK);
+        ball.setVelocity(15, 0);
+        ball.setEnvironment(gameEnv);
+
+        ball.moveOneStep();
+
+        assertTrue(ball.getX() + ball.getSize() < 100);
+        assertTrue(ball.getVelocity().getDx() < 0);
+    }
+
+    @Test
+    public void testMultipleBouncesInOneStep() {
+        GameEnvironment gameEnv = new GameEnvironment();
+        gameEnv.addCollidable(new Rectangle(new Point(0, 0), 10, 200));
+        gameEnv.addCollidable(new Rectangle(new Point(40, 0), 10, 200));
+
+        // Ball bounces off both corridor walls in this step, ending up moving right again
+        Ball ball = new Ball(new Point(25, 100), 5, Color.BLACK);
+        ball.setVelocity(30, 0);
+        ball.setEnvironment(gameEnv);
+
+        ball.moveOneStep();
+
+        assertTrue(ball.getX() > 10 && ball.getX() < 40);
+        assertTrue(ball.getVelocity().getDx() > 0);
+    }
+
+    @Test
+    public void testCornerHitSendsBallAway() {
+        GameEnvironment gameEnv = new GameEnvironment();
+        Rectangle collidable = new Rectangle(new Point(100, 100), 50, 50);
+        gameEnv.addCollidable(collidable);
+
+        // Ball moves diagonally toward the top left corner
+        Ball ball = new Ball(new Point(90, 90), 5, Color.BLACK);
+        ball.setVelocity(10, 10);
+        ball.setEnvironment(gameEnv);
+
+        ball.moveOneStep();
+        for (int i = 0; i < 10; i++) {
+            ball.moveOneStep();
+            assertFalse(collidable.isBallInside(new Point(ball.getX(), ball.getY()), ball.getSize() - 1));
+        }
+        assertTrue(ball.getVelocity().getDx() < 0 || ball.getVelocity().getDy() < 0);
+    }
+
     @Test
     public void testSetColor() {
         Ball ball = new Ball(50, 50, 10, Color.RED);
@@ -0,0 +1,153 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import biuoop.KeyboardSensor;
+import game.ChunkedWorld;
+import game.Game;
+import levels.ChunkStore;
+import levels.LevelGenerator;
+import levels.LevelPattern;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Test class for ChunkStore and ChunkedWorld.
+ */
+public class ChunkedWorldTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testStoreKeepsAllGeneratedBlocks() throws IOException {
+        LevelGenerator generator = new LevelGenerator(11, LevelPattern.DENSITY, 300, 200, 0.5, 4);
+        Path path = dir.resolve("world.chunks");
+        long blocks;
+        try (ChunkStore.Builder builder = ChunkStore.create(path, generator.getWidth(), generator.getHeight(),
+                ChunkStore.DEFAULT_CAPACITY)) {
+            blocks = generator.generate(builder);
+        }
+
+        try (ChunkStore store = new ChunkStore(path)) {
+            assertEquals(generator.getWidth(), store.getWidth());
+            assertEquals(blocks, store.getAliveBlocks());
+            long stored = 0;
+            float[] bounds = new float[4 * store.getCapacity()];
+            int[] colors = new int[store.getCapacity()];
+            long[] alive = new long[store.getCapacity() / 64];
+            for (int i = 0; i < store.getChunks(); i++) {
+                int count = store.readChunk(i, bounds, colors, alive);
+                for (int j = 0; j < count; j++) {
+                    // Every block is stored in the chunk containing its top left corner
+                    assertEquals(i, store.chunkAt(bounds[4 * j], bounds[4 * j + 1]));
+                }
+                stored += count;
+            }
+            assertEquals(blocks, stored);
+        }
+    }
+
+    @Test
+    public void testFullChunkThrows() throws IOException {
+        try (ChunkStore.Builder builder = ChunkStore.create(dir.resolve("full.chunks"), 800, 600, 64)) {
+            for (int i = 0; i < 64; i++) {
+                builder.addBlock(i, 0, 1, 1, Color.RED);
+            }
+            assertThrows(java.io.UncheckedIOException.class, () -> builder.addBlock(0, 0, 1, 1, Color.RED));
+        }
+    }
+
+    @Test
+    public void testOnlyChunksNearBallsAndPaddleAreLoaded() throws IOException {
+        // Wide level, with a block in the top of every chunk and a single ball flying sideways below them
+        int columns = 20;
+        int width = columns * ChunkStore.CHUNK_WIDTH;
+        int height = 2 * ChunkStore.CHUNK_HEIGHT;
+        Path path = dir.resolve("wide.chunks");
+        try (ChunkStore.Builder builder = ChunkStore.create(path, width, height, ChunkStore.DEFAULT_CAPACITY)) {
+            builder.addBall(100, ChunkStore.CHUNK_HEIGHT + 100, 40, 0);
+            for (int i = 0; i < columns; i++) {
+                builder.addBlock(i * ChunkStore.CHUNK_WIDTH + 100, 60, 20, 10, Color.RED);
+            }
+        }
+
+        Game game = Game.loadChunked(path);
+        KeyboardSensor idle = key -> false;
+        game.start(idle);
+        ChunkedWorld world = game.getWorld();
+        assertEquals(columns, game.getRemainingBlocks());
+        for (int i = 0; i < 1000; i++) {
+            game.tick();
+            // Ball and paddle neighbourhoods, each of at most 5x2 chunks
+            assertTrue(world.getLoadedChunks() <= 2 * 5 * 2);
+        }
+        assertTrue(world.getUnloads() > 0);
+        assertTrue(world.getLoads() > columns);
+        assertEquals(columns, game.getRemainingBlocks());
+        world.close();
+    }
+
+    @Test
+    public void testChunksNearLostBallsAreUnloaded() throws IOException {
+        // Wide level, with a ball falling straight down at the far side from the paddle
+        int columns = 20;
+        int width = columns * ChunkStore.CHUNK_WIDTH;
+        int height = 2 * ChunkStore.CHUNK_HEIGHT;
+        Path path = dir.resolve("lost.chunks");
+        try (ChunkStore.Builder builder = ChunkStore.create(path, width, height, ChunkStore.DEFAULT_CAPACITY)) {
+            builder.addBall(100, ChunkStore.CHUNK_HEIGHT, 0, 20);
+            for (int i = 0; i < columns; i++) {
+                builder.addBlock(i * ChunkStore.CHUNK_WIDTH + 100, 60, 20, 10, Color.RED);
+            }
+        }
+
+        Game game = Game.loadChunked(path);
+        KeyboardSensor idle = key -> false;
+        game.start(idle);
+        ChunkedWorld world = game.getWorld();
+        for (int i = 0; i < 10; i++) {
+            world.update();
+        }
+        int withBall = world.getLoadedChunks();
+        for (int i = 0; i < 1000 && game.getRemainingBalls() > 0; i++) {
+            game.tick();
+        }
+        assertEquals(0, game.getRemainingBalls());
+        for (int i = 0; i < 10; i++) {
+            world.update();
+        }
+        // Only the paddle neighbourhood is left
+        assertTrue(world.getLoadedChunks() < withBall);
+        assertTrue(world.getLoadedChunks() <= 5 * 2);
+        world.close();
+    }
+
+    @Test
+    public void testDestroyedBlocksAreWrittenBack() throws IOException {
+        LevelGenerator generator = new LevelGenerator(5, LevelPattern.PATTERN, 37, 12, 0, 35);
+        Path path = dir.resolve("default.chunks");
+        long blocks;
+        try (ChunkStore.Builder builder = ChunkStore.create(path, generator.getWidth(), generator.getHeight(),
+                ChunkStore.DEFAULT_CAPACITY)) {
+            blocks = generator.generate(builder);
+        }
+
+        Game game = Game.loadChunked(path);
+        game.start(key -> false);
+        for (int i = 0; i < 2000 && !game.isOver(); i++) {
+            game.tick();
+        }
+        assertTrue(game.getRemainingBlocks() < blocks);
+        game.getWorld().close();
+
+        try (ChunkStore store = new ChunkStore(path)) {
+            assertEquals(game.getRemainingBlocks(), store.getAliveBlocks());
+        }
+        Game reloaded = Game.loadChunked(path);
+        assertEquals(game.getRemainingBlocks(), reloaded.getRemainingBlocks());
+        reloaded.getWorld().close();
+    }
+}
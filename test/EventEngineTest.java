@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Game;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for EventEngine.
+ */
+public class EventEngineTest {
+
+    // Draw surface that records filled circles (balls) only
+    private static class BallsDrawSurface implements DrawSurface {
+        private final List<int[]> circles = new ArrayList<>();
+
+        @Override public void fillCircle(int x, int y, int radius) { circles.add(new int[]{x, y}); }
+        @Override public void setColor(Color c) {}
+        @Override public void fillPolygon(Polygon p) {}
+        @Override public void drawPolygon(Polygon p) {}
+        @Override public void drawText(int x, int y, String a, int b) {}
+        @Override public void drawImage(int x, int y, Image img) {}
+        @Override public void drawCircle(int x, int y, int radius) {}
+        @Override public void drawRectangle(int x, int y, int width, int height) {}
+        @Override public void fillRectangle(int x, int y, int width, int height) {}
+        @Override public void fillOval(int x, int y, int width, int height) {}
+        @Override public void drawOval(int x, int y, int width, int height) {}
+        @Override public void drawLine(int x1, int y1, int x2, int y2) {}
+        @Override public int getWidth() { return 800; }
+        @Override public int getHeight() { return 600; }
+    }
+
+    /**
+     * Creates and starts a game with a single ball and a single block.
+     * @param eventDriven whether balls are moved by an event engine
+     * @return started game
+     */
+    private static Game createSparseGame(boolean eventDriven) {
+        Game game = new Game(800, 600, 1);
+        game.initialize(1, 1);
+        game.setEventDriven(eventDriven);
+        game.start(TestGames.IDLE);
+        return game;
+    }
+
+    /**
+     * Draws a game and returns its balls positions.
+     * @param game game to draw
+     * @return drawn balls positions
+     */
+    private static List<int[]> drawBalls(Game game) {
+        BallsDrawSurface d = new BallsDrawSurface();
+        game.drawOn(d);
+        return d.circles;
+    }
+
+    @Test
+    public void testBallMovesAsTickByTick() {
+        Game ticked = createSparseGame(false);
+        Game scheduled = createSparseGame(true);
+        assertNull(ticked.getEngine());
+        assertNotNull(scheduled.getEngine());
+
+        for (int i = 0; i < 500; i++) {
+            ticked.tick();
+            scheduled.tick();
+            List<int[]> expected = drawBalls(ticked);
+            List<int[]> actual = drawBalls(scheduled);
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++) {
+                // Impacts happen at the same times, but positions may be rounded differently
+                assertEquals(expected.get(j)[0], actual.get(j)[0], 1, "Tick " + i);
+                assertEquals(expected.get(j)[1], actual.get(j)[1], 1, "Tick " + i);
+            }
+        }
+        assertEquals(ticked.getScore(), scheduled.getScore());
+        assertEquals(ticked.getRemainingBalls(), scheduled.getRemainingBalls());
+    }
+
+    @Test
+    public void testSparseSceneCostsPerEvent() {
+        Game game = createSparseGame(true);
+        for (int i = 0; i < 1000; i++) {
+            game.tick();
+        }
+
+        // A single ball crosses the screen in tens of ticks, so most ticks have no event
+        assertEquals(1000, game.getEngine().getTime());
+        assertTrue(game.getEngine().getEvents() < 300, "Events: " + game.getEngine().getEvents());
+    }
+
+    @Test
+    public void testFullGameKeepsBallsInsideBorders() {
+        Game game = TestGames.create();
+        game.setEventDriven(true);
+        game.start(TestGames.IDLE);
+
+        for (int i = 0; i < 3000 && !game.isOver(); i++) {
+            game.tick();
+            for (int[] ball : drawBalls(game)) {
+                assertTrue(ball[0] > 0 && ball[0] < 800 && ball[1] > 0 && ball[1] < 600, "Tick " + i);
+            }
+        }
+        assertTrue(game.getScore() > 0);
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.FixedPointEngine;
+import game.Game;
+import geometry.Fixed;
+
+/**
+ * Test class for Fixed and FixedPointEngine.
+ */
+public class FixedPointEngineTest {
+
+    /**
+     * Creates and starts a default game, with balls moved in fixed point.
+     * @return started game
+     */
+    private static Game createFixedPointGame() {
+        Game game = TestGames.create();
+        game.setFixedPoint(true);
+        game.start(new TestGames.SwayingKeyboard());
+        return game;
+    }
+
+    @Test
+    public void testArithmetic() {
+        assertEquals(Fixed.ONE, Fixed.of(1));
+        assertEquals(Fixed.of(1.5), Fixed.ONE + Fixed.HALF);
+        assertEquals(-2.25, Fixed.toDouble(Fixed.of(-2.25)));
+        assertEquals(Fixed.of(3.75), Fixed.mul(Fixed.of(2.5), Fixed.of(1.5)));
+        assertEquals(Fixed.of(-2.5), Fixed.div(Fixed.of(5), Fixed.of(-2)));
+        assertEquals(Fixed.of(5), Fixed.hypot(Fixed.of(3), Fixed.of(-4)));
+        assertEquals(1L << 30, Fixed.sqrt(1L << 60));
+        assertEquals((1L << 30) - 1, Fixed.sqrt((1L << 60) - 1));
+        assertEquals(0, Fixed.sqrt(0));
+        assertEquals(2, Fixed.sqrt(8));
+    }
+
+    @Test
+    public void testTrigonometry() {
+        assertEquals(0, Fixed.sin(0));
+        assertEquals(Fixed.ONE, Fixed.sin(Fixed.of(90)));
+        assertEquals(-Fixed.ONE, Fixed.cos(Fixed.of(180)));
+        assertEquals(-Fixed.ONE, Fixed.sin(Fixed.of(-90)));
+        assertEquals(Fixed.sin(Fixed.of(30)), Fixed.sin(Fixed.of(390)));
+        assertEquals(Fixed.HALF, Fixed.sin(Fixed.of(30)), 1);
+        assertEquals(Fixed.HALF, Fixed.cos(Fixed.of(60)), 1);
+    }
+
+    @Test
+    public void testGamesPlayIdentically() {
+        Game first = createFixedPointGame();
+        Game second = createFixedPointGame();
+        FixedPointEngine firstEngine = first.getFixedPointEngine();
+        FixedPointEngine secondEngine = second.getFixedPointEngine();
+        assertNotNull(firstEngine);
+
+        for (int i = 0; i < 2000 && !first.isOver(); i++) {
+            first.tick();
+            second.tick();
+            assertEquals(firstEngine.getCount(), secondEngine.getCount(), "Tick " + i);
+            for (int j = 0; j < firstEngine.getCount(); j++) {
+                assertEquals(firstEngine.getX(j), secondEngine.getX(j), "Tick " + i);
+                assertEquals(firstEngine.getY(j), secondEngine.getY(j), "Tick " + i);
+            }
+        }
+        assertEquals(first.getScore(), second.getScore());
+        assertTrue(first.getScore() > 0);
+    }
+
+    @Test
+    public void testBallsStayInsideBorders() {
+        Game game = createFixedPointGame();
+        FixedPointEngine engine = game.getFixedPointEngine();
+        for (int i = 0; i < 3000 && !game.isOver(); i++) {
+            game.tick();
+            for (int j = 0; j < engine.getCount(); j++) {
+                assertTrue(engine.getX(j) > 0 && engine.getX(j) < Fixed.of(800), "Tick " + i);
+                assertTrue(engine.getY(j) > 0 && engine.getY(j) < Fixed.of(600), "Tick " + i);
+            }
+        }
+    }
+}
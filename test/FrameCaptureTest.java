@@ -0,0 +1,113 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Game;
+import render.FrameCapture;
+import render.FramebufferSurface;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Test class for FrameCapture.
+ */
+public class FrameCaptureTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testPngFramesMatchRenderedFrames() throws IOException {
+        Game game = TestGames.start(TestGames.IDLE);
+        FramebufferSurface surface = new FramebufferSurface(800, 600);
+        int[][] expected = new int[5][];
+        try (FrameCapture capture = new FrameCapture(this.dir, FrameCapture.Format.PNG, 800, 600, 2, 8)) {
+            for (int i = 0; i < 5; i++) {
+                game.tick();
+                game.drawOn(surface);
+                assertTrue(capture.capture(surface.getPixels()));
+                expected[i] = surface.getPixels().clone();
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            BufferedImage image = ImageIO.read(this.dir.resolve(String.format("frame-%06d.png", i)).toFile());
+            int[] actual = image.getRGB(0, 0, 800, 600, null, 0, 800);
+            assertArrayEquals(expected[i], actual, "Frame " + i);
+        }
+    }
+
+    @Test
+    public void testRawFrames() throws IOException {
+        FramebufferSurface surface = new FramebufferSurface(40, 30);
+        try (FrameCapture capture = new FrameCapture(this.dir, FrameCapture.Format.RAW, 40, 30, 1, 4)) {
+            surface.fillRectangle(5, 5, 10, 10);
+            capture.capture(surface.getPixels());
+            assertEquals(1, capture.getCaptured());
+        }
+        byte[] bytes = Files.readAllBytes(this.dir.resolve("frame-000000.raw"));
+        assertEquals(4 * 40 * 30, bytes.length);
+        int[] actual = new int[40 * 30];
+        IntBuffer ints = ByteBuffer.wrap(bytes).asIntBuffer();
+        ints.get(actual);
+        assertArrayEquals(surface.getPixels(), actual);
+    }
+
+    @Test
+    public void testOnlyWantedFramesAreCaptured() throws IOException {
+        FramebufferSurface surface = new FramebufferSurface(800, 600);
+        int frames = 300;
+        int drawn = 0;
+        FrameCapture capture = new FrameCapture(this.dir, FrameCapture.Format.PNG, 800, 600, 1, 2);
+        try {
+            for (int i = 0; i < frames; i++) {
+                // Only frames the capture wants are drawn, and each of them is queued
+                if (capture.wantsFrame()) {
+                    assertTrue(capture.wantsFrame());
+                    surface.fillRectangle(0, 0, i, 10);
+                    drawn++;
+                    assertTrue(capture.capture(surface.getPixels()));
+                }
+            }
+            assertTrue(capture.getDropped() > 0);
+            assertTrue(capture.getSkipped() > 0);
+            assertEquals(drawn, capture.getCaptured());
+            assertEquals(frames, capture.getCaptured() + capture.getDropped() + capture.getSkipped());
+        } finally {
+            capture.close();
+        }
+        assertFalse(capture.wantsFrame());
+        assertEquals(drawn, capture.getWritten());
+    }
+
+    @Test
+    public void testSlowEncodingDropsFramesAndReducesRate() throws IOException {
+        Game game = TestGames.start(TestGames.IDLE);
+        FramebufferSurface surface = new FramebufferSurface(800, 600);
+        game.drawOn(surface);
+        int frames = 300;
+        FrameCapture capture = new FrameCapture(this.dir, FrameCapture.Format.PNG, 800, 600, 1, 2);
+        try {
+            // Frames are offered far faster than a single worker encodes them
+            for (int i = 0; i < frames; i++) {
+                capture.capture(surface.getPixels());
+            }
+            assertTrue(capture.getDropped() > 0);
+            assertTrue(capture.getStride() > 1);
+            assertEquals(frames, capture.getCaptured() + capture.getDropped() + capture.getSkipped());
+            assertEquals(frames, capture.getCost().getCount());
+            assertTrue(capture.report().contains(capture.getDropped() + " dropped"));
+        } finally {
+            capture.close();
+        }
+        assertEquals(capture.getCaptured(), capture.getWritten());
+        try (Stream<Path> files = Files.list(this.dir)) {
+            assertEquals(capture.getWritten(), files.count());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import biuoop.AlphaChannelNotSupportedException;
+import game.Game;
+import render.FramebufferSurface;
+
+import java.awt.Color;
+import java.awt.Polygon;
+
+/**
+ * Test class for FramebufferSurface.
+ */
+public class FramebufferSurfaceTest {
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    /**
+     * Counts pixels of a color.
+     * @param surface surface
+     * @param argb color
+     * @return number of pixels of color
+     */
+    private static int count(FramebufferSurface surface, int argb) {
+        int count = 0;
+        for (int pixel : surface.getPixels()) {
+            if (pixel == argb) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testFillRectangle() {
+        FramebufferSurface surface = new FramebufferSurface(20, 10);
+        surface.setColor(Color.WHITE);
+        surface.fillRectangle(2, 3, 5, 4);
+        assertEquals(20, count(surface, WHITE));
+        assertEquals(WHITE, surface.getPixel(2, 3));
+        assertEquals(WHITE, surface.getPixel(6, 6));
+        assertEquals(BLACK, surface.getPixel(7, 6));
+        assertEquals(BLACK, surface.getPixel(6, 7));
+    }
+
+    @Test
+    public void testShapesAreClipped() {
+        FramebufferSurface surface = new FramebufferSurface(20, 10);
+        surface.setColor(Color.WHITE);
+        surface.fillRectangle(-5, -5, 10, 10);
+        assertEquals(25, count(surface, WHITE));
+
+        surface.clear(Color.BLACK);
+        surface.setColor(Color.WHITE);
+        surface.fillCircle(19, 9, 30);
+        surface.drawLine(-100, -100, 100, 100);
+        surface.drawText(-50, 200, "CLIPPED", 40);
+        assertEquals(200, count(surface, WHITE));
+    }
+
+    @Test
+    public void testDrawRectangle() {
+        FramebufferSurface surface = new FramebufferSurface(20, 10);
+        surface.setColor(Color.WHITE);
+        surface.drawRectangle(2, 2, 4, 3);
+        // Outline of a 5 by 4 pixels area
+        assertEquals(14, count(surface, WHITE));
+        assertEquals(WHITE, surface.getPixel(6, 5));
+        assertEquals(BLACK, surface.getPixel(3, 3));
+    }
+
+    @Test
+    public void testFillCircle() {
+        FramebufferSurface surface = new FramebufferSurface(200, 200);
+        surface.setColor(Color.WHITE);
+        surface.fillCircle(100, 100, 40);
+        assertEquals(Math.PI * 40 * 40, count(surface, WHITE), Math.PI * 40 * 40 * 0.02);
+        assertEquals(WHITE, surface.getPixel(100, 100));
+        assertEquals(BLACK, surface.getPixel(141, 100));
+        assertEquals(BLACK, surface.getPixel(130, 130));
+    }
+
+    @Test
+    public void testDrawCircleHasNoGaps() {
+        FramebufferSurface surface = new FramebufferSurface(200, 200);
+        surface.setColor(Color.WHITE);
+        surface.drawCircle(100, 100, 40);
+        // Every point of the circle is next to an outline pixel
+        for (int angle = 0; angle < 360; angle++) {
+            int x = (int) Math.round(100 + 40 * Math.cos(Math.toRadians(angle)));
+            int y = (int) Math.round(100 + 40 * Math.sin(Math.toRadians(angle)));
+            boolean near = false;
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    near |= surface.getPixel(x + i, y + j) == WHITE;
+                }
+            }
+            assertTrue(near, "Angle " + angle);
+        }
+        assertEquals(BLACK, surface.getPixel(100, 100));
+    }
+
+    @Test
+    public void testFillPolygon() {
+        FramebufferSurface surface = new FramebufferSurface(200, 200);
+        surface.setColor(Color.WHITE);
+        surface.fillPolygon(new Polygon(new int[] {10, 110, 10}, new int[] {10, 10, 110}, 3));
+        assertEquals(5000, count(surface, WHITE), 100);
+        assertEquals(WHITE, surface.getPixel(20, 20));
+        assertEquals(BLACK, surface.getPixel(100, 100));
+    }
+
+    @Test
+    public void testDrawText() {
+        FramebufferSurface surface = new FramebufferSurface(200, 50);
+        surface.setColor(Color.WHITE);
+        surface.drawText(10, 30, "Score: 10", 20);
+        assertTrue(count(surface, WHITE) > 0);
+        // Text stands on the baseline, within its advance
+        for (int y = 0; y < 50; y++) {
+            for (int x = 0; x < 200; x++) {
+                if (surface.getPixel(x, y) == WHITE) {
+                    assertTrue(y < 30 && y >= 30 - 14 && x >= 10 && x < 10 + 9 * 12, x + ", " + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTranslucentColorThrows() {
+        FramebufferSurface surface = new FramebufferSurface(10, 10);
+        assertThrows(AlphaChannelNotSupportedException.class, () -> surface.setColor(new Color(0, 0, 0, 100)));
+    }
+
+    @Test
+    public void testDrawsGame() {
+        Game game = TestGames.start(TestGames.IDLE);
+        FramebufferSurface surface = new FramebufferSurface(800, 600);
+        for (int i = 0; i < 10; i++) {
+            game.tick();
+            game.drawOn(surface);
+        }
+        // Ball is drawn over the background, at its center
+        int x = (int) game.getBall(0).getCenter().getX(), y = (int) game.getBall(0).getCenter().getY();
+        assertEquals(game.getBall(0).getColor().getRGB(), surface.getPixel(x, y));
+    }
+}
@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Game;
+
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Validates that a steady-state game tick doesn't allocate, including ticks in which blocks are hit and balls
+ * are lost.
+ */
+public class GameAllocationTest {
+
+    // Draw surface that discards all drawing
+    private static class NullDrawSurface implements DrawSurface {
+        @Override public void setColor(Color c) {}
+        @Override public void fillCircle(int x, int y, int radius) {}
+        @Override public void fillPolygon(Polygon p) {}
+        @Override public void drawPolygon(Polygon p) {}
+        @Override public void drawText(int x, int y, String a, int b) {}
+        @Override public void drawImage(int x, int y, Image img) {}
+        @Override public void drawCircle(int x, int y, int radius) {}
+        @Override public void drawRectangle(int x, int y, int width, int height) {}
+        @Override public void fillRectangle(int x, int y, int width, int height) {}
+        @Override public void fillOval(int x, int y, int width, int height) {}
+        @Override public void drawOval(int x, int y, int width, int height) {}
+        @Override public void drawLine(int x1, int y1, int x2, int y2) {}
+        @Override public int getWidth() { return 800; }
+        @Override public int getHeight() { return 600; }
+    }
+
+    /**
+     * Creates and starts a default game.
+     * @param moving whether paddle keeps moving
+     * @return started game
+     */
+    private static Game startGame(boolean moving) {
+        return TestGames.start(moving ? new TestGames.SwayingKeyboard() : TestGames.IDLE);
+    }
+
+    /**
+     * Plays a fresh game and checks every tick for allocations.
+     * @param threads thread bean measuring allocations
+     * @param d draw surface
+     * @param moving whether paddle keeps moving
+     * @return description of first allocating tick, or of no block being hit, or null if no tick allocated
+     */
+    private static String findAllocatingTick(com.sun.management.ThreadMXBean threads, DrawSurface d,
+                                             boolean moving) {
+        // Lets lazily created objects of measured game be created
+        Game game = startGame(moving);
+        for (int i = 0; i < 50; i++) {
+            game.tick();
+            game.drawOn(d);
+        }
+
+        // Measurement overhead itself
+        long overheadStart = threads.getCurrentThreadAllocatedBytes();
+        long overhead = threads.getCurrentThreadAllocatedBytes() - overheadStart;
+
+        // Ticks in which score changes are checked too, so hit dispatch and score text are covered
+        int startScore = game.getScore();
+        for (int i = 0; i < 1000; i++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            game.tick();
+            game.drawOn(d);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before - overhead;
+            if (allocated != 0) {
+                return "Allocated " + allocated + " bytes on tick " + i;
+            }
+        }
+        return game.getScore() == startScore ? "No block was hit" : null;
+    }
+
+    /**
+     * Checks that steady-state ticks of a fresh game don't allocate.
+     * @param moving whether paddle keeps moving
+     */
+    private static void assertTicksAllocateNothing(boolean moving) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        DrawSurface d = new NullDrawSurface();
+
+        // Warmup on separate games, so the JIT settles before measuring
+        for (int g = 0; g < 3; g++) {
+            Game warmup = startGame(moving);
+            for (int i = 0; i < 2000 && !warmup.isOver(); i++) {
+                warmup.tick();
+                warmup.drawOn(d);
+            }
+        }
+
+        // A JIT deoptimization may allocate on behalf of a tick once, so a few fresh games are allowed,
+        // while an allocation made by the tick itself fails every one of them
+        String failure = null;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            failure = findAllocatingTick(threads, d, moving);
+            if (failure == null) {
+                break;
+            }
+        }
+        assertNull(failure);
+    }
+
+    @Test
+    public void testSteadyStateTickAllocatesNothing() {
+        assertTicksAllocateNothing(false);
+    }
+
+    @Test
+    public void testMovingPaddleTickAllocatesNothing() {
+        assertTicksAllocateNothing(true);
+    }
+}
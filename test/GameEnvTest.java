@@ -0,0 +1,147 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import rl.GameEnv;
+import rl.VectorEnv;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Test class for GameEnv and VectorEnv.
+ */
+public class GameEnvTest {
+
+    /**
+     * Creates a small environment.
+     * @return environment
+     */
+    private static GameEnv createEnv() {
+        return new GameEnv(800, 600, 8, 6, 12, 2000);
+    }
+
+    /**
+     * Copies an observation, so it can be compared after buffer changes.
+     * @param buffer observation buffer
+     * @param offset observation offset
+     * @param size observation size
+     * @return observation bytes
+     */
+    private static byte[] copy(ByteBuffer buffer, int offset, int size) {
+        byte[] bytes = new byte[size];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    /**
+     * Scripted action of a step.
+     * @param env environment index
+     * @param step step number
+     * @return action
+     */
+    private static int action(int env, int step) {
+        return (step / (20 + env)) % 3;
+    }
+
+    @Test
+    public void testSeedsDetermineEpisodes() {
+        GameEnv first = createEnv();
+        GameEnv second = createEnv();
+        int size = first.getObservationSize();
+        first.reset(7);
+        second.reset(7);
+        for (int i = 0; i < 300; i++) {
+            assertEquals(first.step(action(0, i)), second.step(action(0, i)));
+        }
+        assertArrayEquals(copy(first.getObservationBuffer(), 0, size), copy(second.getObservationBuffer(), 0, size));
+
+        second.reset(8);
+        first.reset(7);
+        assertFalse(Arrays.equals(copy(first.getObservationBuffer(), 0, size),
+                copy(second.getObservationBuffer(), 0, size)));
+    }
+
+    @Test
+    public void testObservationMatchesGame() {
+        GameEnv env = createEnv();
+        env.reset(3);
+        ByteBuffer obs = env.getObservationBuffer();
+        assertEquals(0, obs.getInt(4));
+        assertEquals(0, obs.getInt(12));
+
+        float rewards = 0;
+        int steps = 0;
+        while (!env.isDone()) {
+            rewards += env.step(GameEnv.NOOP);
+            steps++;
+        }
+        assertEquals(1, obs.getInt(4));
+        assertEquals(steps, obs.getInt(12));
+        assertEquals(env.getGame().getScore(), obs.getInt(8));
+        // Score gained less a penalty for each lost ball
+        int lost = 8 - env.getGame().getRemainingBalls();
+        assertEquals(env.getGame().getScore() - GameEnv.BALL_LOST_PENALTY * lost, rewards, 1e-3);
+
+        // Bitmap holds a bit per live block
+        int live = 0;
+        int bitmapOffset = (24 + 20 * 8 + 7) & ~7;
+        for (int at = bitmapOffset; at < env.getObservationSize(); at += 8) {
+            live += Long.bitCount(obs.getLong(at));
+        }
+        assertEquals(env.getGame().getRemainingBlocks(), live);
+        assertEquals(env.getGame().getPaddle(0).getMinX(), obs.getFloat(16), 1e-3);
+    }
+
+    @Test
+    public void testVectorStepsMatchSingleEnvironments() {
+        int count = 12;
+        try (VectorEnv vector = new VectorEnv(count, 4, GameEnvTest::createEnv)) {
+            GameEnv[] singles = new GameEnv[count];
+            long[] seeds = new long[count];
+            for (int i = 0; i < count; i++) {
+                singles[i] = createEnv();
+                seeds[i] = 100 + i;
+                singles[i].reset(seeds[i]);
+            }
+            vector.reset(100);
+
+            int[] actions = new int[count];
+            for (int s = 0; s < 1000; s++) {
+                for (int i = 0; i < count; i++) {
+                    actions[i] = action(i, s);
+                }
+                float[] rewards = vector.step(actions);
+                for (int i = 0; i < count; i++) {
+                    // Finished episodes are reset with the next seed, like the vector does
+                    if (singles[i].isDone()) {
+                        seeds[i] += count;
+                        singles[i].reset(seeds[i]);
+                    }
+                    assertEquals(singles[i].step(actions[i]), rewards[i]);
+                }
+            }
+            int stride = vector.getStride();
+            for (int i = 0; i < count; i++) {
+                assertArrayEquals(copy(singles[i].getObservationBuffer(), 0, stride),
+                        copy(vector.getObservations(), i * stride, stride), "Environment " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testVectorResetsFinishedEpisodes() {
+        try (VectorEnv vector = new VectorEnv(3, 2, () -> new GameEnv(800, 600, 4, 6, 12, 50))) {
+            vector.reset(1);
+            int[] actions = new int[3];
+            for (int s = 0; s < 50; s++) {
+                vector.step(actions);
+            }
+            assertTrue(vector.get(0).isDone());
+            assertEquals(1, vector.getObservations().getInt(4));
+
+            vector.step(actions);
+            assertFalse(vector.get(0).isDone());
+            assertEquals(1, vector.getObservations().getInt(12));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import collisions.CollisionInfo;
+import game.GameEnvironment;
+import geometry.Line;
+import geometry.Point;
+import geometry.Rectangle;
+import metrics.CollisionMetrics;
+import objects.Ball;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Test class for GameEnvironment.
+ */
+public class GameEnvironmentTest {
+
+    /**
+     * Fills environments with the same random blocks.
+     * @param random random source
+     * @param environments environments to fill
+     */
+    private static void addRandomBlocks(Random random, GameEnvironment... environments) {
+        for (int i = 0; i < 300; i++) {
+            Rectangle block = new Rectangle(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000),
+                    5 + random.nextDouble() * 40, 5 + random.nextDouble() * 20);
+            for (GameEnvironment environment : environments) {
+                environment.addCollidable(block);
+            }
+        }
+    }
+
+    @Test
+    public void testGridFindsSameImpactsAsLinear() {
+        Random random = new Random(7);
+        GameEnvironment linear = new GameEnvironment();
+        GameEnvironment grid = new GameEnvironment(64);
+        addRandomBlocks(random, linear, grid);
+
+        CollisionInfo expected = new CollisionInfo();
+        CollisionInfo actual = new CollisionInfo();
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000;
+            double length = i % 2 == 0 ? 8 : 400;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double dx = length * Math.cos(angle), dy = length * Math.sin(angle);
+
+            boolean found = linear.getEarliestImpact(x, y, dx, dy, 5, expected);
+            assertEquals(found, grid.getEarliestImpact(x, y, dx, dy, 5, actual), "Query " + i);
+            if (found) {
+                assertEquals(expected.getTime(), actual.getTime(), 1e-9, "Query " + i);
+            }
+            // Grid measures clearance within the cells around the circle only
+            assertTrue(grid.getLastClearance() <= linear.getLastClearance() + 1e-9, "Query " + i);
+        }
+    }
+
+    @Test
+    public void testGridFindsClosestIntersection() {
+        GameEnvironment grid = new GameEnvironment(64);
+        Rectangle far = new Rectangle(new Point(300, 90), 20, 20);
+        Rectangle near = new Rectangle(new Point(100, 90), 20, 20);
+        grid.addCollidable(far);
+        grid.addCollidable(near);
+
+        CollisionInfo info = grid.getClosestCollision(new Line(0, 100, 500, 100));
+        assertNotNull(info);
+        assertSame(near, info.getObject());
+        assertEquals(100, info.getPoint().getX(), 1e-9);
+
+        grid.removeCollidable(near);
+        info = grid.getClosestCollision(new Line(0, 100, 500, 100));
+        assertSame(far, info.getObject());
+    }
+
+    @Test
+    public void testClearanceIsLowerBound() {
+        Random random = new Random(11);
+        GameEnvironment grid = new GameEnvironment(64);
+        addRandomBlocks(random, grid);
+
+        CollisionInfo info = new CollisionInfo();
+        for (int i = 0; i < 500; i++) {
+            double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000;
+            grid.getEarliestImpact(x, y, 1, 1, 5, info);
+            double clearance = 0.999 * grid.getLastClearance();
+            // Moving less than clearance in any direction doesn't touch a block
+            for (int j = 0; j < 16 && clearance > 0; j++) {
+                double angle = j * Math.PI / 8;
+                assertFalse(grid.getEarliestImpact(x, y, clearance * Math.cos(angle), clearance * Math.sin(angle),
+                        5, info), "Query " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testGridTestsFewerCollidablesThanItsCandidates() {
+        Random random = new Random(13);
+        GameEnvironment linear = new GameEnvironment();
+        GameEnvironment grid = new GameEnvironment(64);
+        addRandomBlocks(random, linear, grid);
+        CollisionMetrics metrics = CollisionMetrics.getInstance();
+        CollisionInfo info = new CollisionInfo();
+
+        // Without a broadphase every candidate is tested
+        long candidates = metrics.getBroadphaseCandidates(), tests = metrics.getNarrowphaseTests();
+        linear.getEarliestImpact(500, 500, 3, 2, 5, info);
+        assertEquals(metrics.getBroadphaseCandidates() - candidates, metrics.getNarrowphaseTests() - tests);
+
+        // Short movements test only candidates near them
+        candidates = metrics.getBroadphaseCandidates();
+        tests = metrics.getNarrowphaseTests();
+        for (int i = 0; i < 200; i++) {
+            grid.getEarliestImpact(random.nextDouble() * 1000, random.nextDouble() * 1000, 3, 2, 5, info);
+        }
+        assertTrue(metrics.getNarrowphaseTests() - tests < metrics.getBroadphaseCandidates() - candidates);
+    }
+
+    @Test
+    public void testBallInOpenSpaceSkipsQueries() {
+        GameEnvironment environment = new GameEnvironment(64);
+        environment.addCollidable(new Rectangle(new Point(900, 0), 50, 1000));
+        Ball ball = new Ball(new Point(100, 500), 5, Color.BLACK);
+        ball.setVelocity(3, 0);
+        ball.setEnvironment(environment);
+
+        CollisionMetrics metrics = CollisionMetrics.getInstance();
+        long queries = metrics.getQueries();
+        for (int i = 0; i < 20; i++) {
+            ball.moveOneStep();
+            environment.getArena().reset();
+        }
+        assertEquals(160, ball.getX());
+        assertTrue(metrics.getQueries() - queries < 20);
+    }
+
+    @Test
+    public void testAddedCollidableInvalidatesClearance() {
+        GameEnvironment environment = new GameEnvironment(64);
+        environment.addCollidable(new Rectangle(new Point(900, 0), 50, 1000));
+        Ball ball = new Ball(new Point(100, 500), 5, Color.BLACK);
+        ball.setVelocity(3, 0);
+        ball.setEnvironment(environment);
+        ball.moveOneStep();
+        environment.getArena().reset();
+
+        // A block right in front of ball, well within the clearance measured before it was added
+        environment.addCollidable(new Rectangle(new Point(110, 400), 10, 200));
+        for (int i = 0; i < 5; i++) {
+            ball.moveOneStep();
+            environment.getArena().reset();
+        }
+        assertTrue(ball.getX() < 110);
+        assertTrue(ball.getVelocity().getDx() < 0);
+    }
+
+    @Test
+    public void testPaddleEscapeInvalidatesClearance() {
+        GameEnvironment environment = new GameEnvironment(64);
+        environment.addCollidable(new Rectangle(new Point(900, 0), 50, 1000));
+        Ball ball = new Ball(new Point(100, 500), 5, Color.BLACK);
+        ball.setVelocity(3, 0);
+        ball.setEnvironment(environment);
+        ball.moveOneStep();
+        environment.getArena().reset();
+
+        // Paddle moved onto ball pushes it out, without a sweep
+        CollisionMetrics metrics = CollisionMetrics.getInstance();
+        long escapes = metrics.getPaddleEscapes();
+        ball.setPaddle(new Rectangle(new Point(ball.getCenter().getX() + 2, 495), 50, 10));
+        ball.moveOneStep();
+        environment.getArena().reset();
+        assertEquals(escapes + 1, metrics.getPaddleEscapes());
+
+        // Clearance measured before the push no longer holds, so next step is queried
+        ball.setPaddles(new Rectangle[0]);
+        long queries = metrics.getQueries();
+        ball.moveOneStep();
+        environment.getArena().reset();
+        assertTrue(metrics.getQueries() > queries);
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Game;
+import metrics.FramePhase;
+import metrics.FrameProfiler;
+import metrics.Histogram;
+
+/**
+ * Test class for Histogram and FrameProfiler.
+ */
+public class HistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMin());
+        assertEquals(0, h.getMax());
+        assertEquals(0, h.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram h = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            h.record(i);
+        }
+        assertEquals(100, h.getCount());
+        assertEquals(1, h.getMin());
+        assertEquals(100, h.getMax());
+        assertEquals(50, h.getValueAtPercentile(50));
+        assertEquals(99, h.getValueAtPercentile(99));
+        assertEquals(100, h.getValueAtPercentile(100));
+        assertEquals(50.5, h.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testLargeValuesWithinRelativeError() {
+        Histogram h = new Histogram();
+        long[] values = {1_000, 123_456, 16_666_666, 1_000_000_000L, 987_654_321_000L};
+        for (long value : values) {
+            h.record(value);
+        }
+        for (int i = 0; i < values.length; i++) {
+            double percentile = (i + 1) * 100.0 / values.length;
+            long result = h.getValueAtPercentile(percentile);
+            assertTrue(Math.abs(result - values[i]) <= values[i] / 64, "value " + values[i] + " was " + result);
+        }
+        assertEquals(987_654_321_000L, h.getMax());
+    }
+
+    @Test
+    public void testPercentilesOfSkewedDistribution() {
+        Histogram h = new Histogram();
+        for (int i = 0; i < 990; i++) {
+            h.record(1_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            h.record(50_000);
+        }
+        assertTrue(Math.abs(h.getValueAtPercentile(50) - 1_000) <= 1_000 / 64);
+        assertTrue(Math.abs(h.getValueAtPercentile(99) - 1_000) <= 1_000 / 64);
+        assertTrue(Math.abs(h.getValueAtPercentile(99.9) - 50_000) <= 50_000 / 64);
+    }
+
+    @Test
+    public void testNegativeValuesAndReset() {
+        Histogram h = new Histogram();
+        h.record(-5);
+        assertEquals(0, h.getMax());
+        assertEquals(1, h.getCount());
+
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testFrameProfilerRecordsPhases() {
+        FrameProfiler profiler = new FrameProfiler();
+        for (int i = 0; i < 10; i++) {
+            profiler.startFrame();
+            profiler.mark(FramePhase.INPUT);
+            profiler.mark(FramePhase.TIME_PASSED);
+            profiler.endFrame();
+        }
+        assertEquals(10, profiler.getHistogram(FramePhase.INPUT).getCount());
+        assertEquals(10, profiler.getHistogram(FramePhase.TIME_PASSED).getCount());
+        assertEquals(0, profiler.getHistogram(FramePhase.SLEEP).getCount());
+        assertEquals(10, profiler.getHistogram(FramePhase.FRAME).getCount());
+        assertTrue(profiler.report().contains("timePassed"));
+    }
+
+    @Test
+    public void testHeadlessTicksAreProfiledAsFrames() throws InterruptedException {
+        Game game = TestGames.start(TestGames.IDLE);
+        FrameProfiler profiler = game.getFrameProfiler();
+        profiler.reset();
+        for (int i = 0; i < 3; i++) {
+            game.tick();
+            // Time between ticks belongs to the caller, not to the next tick's input phase
+            Thread.sleep(50);
+        }
+        assertEquals(3, profiler.getHistogram(FramePhase.FRAME).getCount());
+        assertEquals(3, profiler.getHistogram(FramePhase.INPUT).getCount());
+        assertTrue(profiler.getHistogram(FramePhase.INPUT).getMax() < 40_000_000L);
+        assertFalse(profiler.isFrameOpen());
+    }
+}
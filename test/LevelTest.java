@@ -0,0 +1,207 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import biuoop.KeyboardSensor;
+import game.Game;
+import levels.LevelGenerator;
+import levels.LevelPattern;
+import levels.LevelReader;
+import levels.LevelSink;
+import levels.LevelWriter;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for level files reading and writing.
+ */
+public class LevelTest {
+
+    @TempDir
+    Path dir;
+
+    // Level sink which records every object as a string
+    private static class RecordingSink implements LevelSink {
+        private final List<String> objects = new ArrayList<>();
+
+        @Override
+        public void addBall(double x, double y, double dx, double dy) {
+            objects.add("ball " + x + " " + y + " " + dx + " " + dy);
+        }
+
+        @Override
+        public void addBlock(double x, double y, double width, double height, Color color) {
+            objects.add("block " + x + " " + y + " " + width + " " + height + " " + color.getRGB());
+        }
+    }
+
+    /**
+     * Writes a small level in given form.
+     * @param path level path
+     * @param binary whether to write binary form
+     */
+    private void writeLevel(Path path, boolean binary) throws IOException {
+        try (LevelWriter writer = LevelWriter.create(path, 640, 480, binary)) {
+            writer.addBall(100, 200.5, 3, -5);
+            writer.addBlock(10, 20, 50, 20, Color.RED);
+            writer.addBlock(60.25, 20, 50, 20, new Color(0x123456));
+        }
+    }
+
+    /**
+     * Reads a level into a recording sink.
+     * @param path level path
+     * @return recorded objects
+     */
+    private List<String> readLevel(Path path) throws IOException {
+        RecordingSink sink = new RecordingSink();
+        try (LevelReader reader = LevelReader.open(path)) {
+            assertEquals(640, reader.getWidth());
+            assertEquals(480, reader.getHeight());
+            assertEquals(3, reader.readInto(sink));
+        }
+        return sink.objects;
+    }
+
+    @Test
+    public void testTextAndBinaryRoundTrip() throws IOException {
+        Path text = dir.resolve("level.lvl");
+        Path binary = dir.resolve("level.bin");
+        writeLevel(text, false);
+        writeLevel(binary, true);
+
+        List<String> fromText = readLevel(text);
+        assertEquals("ball 100.0 200.5 3.0 -5.0", fromText.get(0));
+        assertEquals("block 10.0 20.0 50.0 20.0 " + Color.RED.getRGB(), fromText.get(1));
+        assertEquals("block 60.25 20.0 50.0 20.0 " + new Color(0x123456).getRGB(), fromText.get(2));
+        assertEquals(fromText, readLevel(binary));
+        assertTrue(Files.size(binary) < Files.size(text));
+    }
+
+    @Test
+    public void testCommentsAndBlankLinesAreIgnored() throws IOException {
+        Path path = dir.resolve("comments.lvl");
+        Files.writeString(path, "# header comment\n\nsize 640 480\n  # indented comment\n\n"
+                + "ball 100 200.5 3 -5\n\tblock 10 20 50 20 #ff0000\nblock 60.25 20 50 20 #123456\n");
+        assertEquals(3, readLevel(path).size());
+    }
+
+    @Test
+    public void testNumberForms() throws IOException {
+        Path path = dir.resolve("numbers.lvl");
+        Files.writeString(path, "size 640 480\nball -0.5 .25 1e2 12345678901234567890\n");
+        RecordingSink sink = new RecordingSink();
+        try (LevelReader reader = LevelReader.open(path)) {
+            reader.readInto(sink);
+        }
+        assertEquals("ball -0.5 0.25 100.0 1.2345678901234567E19", sink.objects.get(0));
+    }
+
+    @Test
+    public void testMalformedLevelsThrow() throws IOException {
+        Path noSize = dir.resolve("nosize.lvl");
+        Files.writeString(noSize, "ball 1 2 3 4\n");
+        assertThrows(IOException.class, () -> LevelReader.open(noSize));
+
+        Path badObject = dir.resolve("bad.lvl");
+        Files.writeString(badObject, "size 640 480\nblock 1 2 3\n");
+        try (LevelReader reader = LevelReader.open(badObject)) {
+            IOException e = assertThrows(IOException.class, () -> reader.readInto(new RecordingSink()));
+            assertTrue(e.getMessage().startsWith("Line 2"));
+        }
+
+        Path truncated = dir.resolve("truncated.bin");
+        writeLevel(truncated, true);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+        try (LevelReader reader = LevelReader.open(truncated)) {
+            assertThrows(IOException.class, () -> reader.readInto(new RecordingSink()));
+        }
+    }
+
+    @Test
+    public void testDefaultLevelFileMatchesDefaultGame() throws IOException {
+        KeyboardSensor idle = key -> false;
+        Game loaded = Game.load(Paths.get("levels/default.lvl"));
+        Game initialized = TestGames.create();
+        loaded.start(idle);
+        initialized.start(idle);
+
+        assertEquals(57, loaded.getRemainingBlocks());
+        assertEquals(35, loaded.getRemainingBalls());
+        for (int i = 0; i < 500; i++) {
+            loaded.tick();
+            initialized.tick();
+            assertEquals(initialized.getScore(), loaded.getScore());
+            assertEquals(initialized.getRemainingBlocks(), loaded.getRemainingBlocks());
+            assertEquals(initialized.getRemainingBalls(), loaded.getRemainingBalls());
+        }
+    }
+
+    @Test
+    public void testGeneratorIsDeterministic() {
+        for (LevelPattern pattern : LevelPattern.values()) {
+            RecordingSink first = new RecordingSink();
+            RecordingSink second = new RecordingSink();
+            RecordingSink other = new RecordingSink();
+            new LevelGenerator(7, pattern, 150, 90, 0.4, 3).generate(first);
+            new LevelGenerator(7, pattern, 150, 90, 0.4, 3).generate(second);
+            new LevelGenerator(8, pattern, 150, 90, 0.4, 3).generate(other);
+            assertEquals(first.objects, second.objects, pattern.toString());
+            if (pattern != LevelPattern.PATTERN) {
+                assertNotEquals(first.objects, other.objects, pattern.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratorDensityAndBounds() {
+        LevelGenerator generator = new LevelGenerator(1, LevelPattern.DENSITY, 200, 100, 0.3, 5);
+        RecordingSink sink = new RecordingSink();
+        long blocks = generator.generate(sink);
+        assertEquals(blocks + 5, sink.objects.size());
+        assertEquals(0.3, blocks / 20000.0, 0.02);
+
+        // Every block is inside the level, between its side borders
+        LevelSink bounds = new LevelSink() {
+            @Override
+            public void addBall(double x, double y, double dx, double dy) {
+                assertTrue(x > 0 && x < generator.getWidth() && y > 0 && y < generator.getHeight());
+            }
+
+            @Override
+            public void addBlock(double x, double y, double width, double height, Color color) {
+                assertTrue(x >= 30 && x + width <= generator.getWidth() - 30);
+                assertTrue(y >= 30 && y + height <= generator.getHeight());
+            }
+        };
+        generator.generate(bounds);
+    }
+
+    @Test
+    public void testGeneratedFileMatchesGeneratedLevel() throws IOException {
+        LevelGenerator generator = new LevelGenerator(3, LevelPattern.MAZE, 130, 70, 0, 2);
+        RecordingSink direct = new RecordingSink();
+        long blocks = generator.generate(direct);
+        assertTrue(blocks > 0 && blocks < 130 * 70);
+
+        Path path = dir.resolve("maze.bin");
+        assertEquals(blocks, generator.write(path, true));
+        RecordingSink read = new RecordingSink();
+        try (LevelReader reader = LevelReader.open(path)) {
+            assertEquals(generator.getWidth(), reader.getWidth());
+            assertEquals(generator.getHeight(), reader.getHeight());
+            reader.readInto(read);
+        }
+        assertEquals(direct.objects, read.objects);
+
+        Game game = Game.load(path);
+        assertEquals(blocks, game.getRemainingBlocks());
+    }
+}
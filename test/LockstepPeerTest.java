@@ -0,0 +1,202 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Game;
+import geometry.Point;
+import net.InputKeyboard;
+import net.LockstepPeer;
+import objects.Block;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Test class for LockstepPeer, with both peers and an optional lossy relay on loopback.
+ */
+public class LockstepPeerTest {
+    private static final int FRAMES = 600;
+
+    // Forwards packets between two channels, dropping every dropEvery-th packet if positive
+    private static class Relay {
+        private final DatagramChannel first;
+        private final DatagramChannel second;
+        private final int dropEvery;
+        private final ByteBuffer buffer = ByteBuffer.allocate(2048);
+        private int forwarded;
+        private int dropped;
+
+        Relay(DatagramChannel first, DatagramChannel second, int dropEvery) {
+            this.first = first;
+            this.second = second;
+            this.dropEvery = dropEvery;
+        }
+
+        void pump() throws IOException {
+            this.forward(this.first, this.second);
+            this.forward(this.second, this.first);
+        }
+
+        private void forward(DatagramChannel from, DatagramChannel to) throws IOException {
+            while (true) {
+                this.buffer.clear();
+                if (from.receive(this.buffer) == null) {
+                    return;
+                }
+                this.buffer.flip();
+                if (this.dropEvery > 0 && ++this.forwarded % this.dropEvery == 0) {
+                    this.dropped++;
+                    continue;
+                }
+                to.write(this.buffer);
+            }
+        }
+    }
+
+    /**
+     * Opens a non-blocking datagram channel bound to a free loopback port.
+     * @return bound channel
+     * @throws IOException if channel couldn't be opened
+     */
+    private static DatagramChannel open() throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        channel.configureBlocking(false);
+        return channel;
+    }
+
+    /**
+     * Scripted input of a player on a frame, changing every few dozens of frames.
+     * @param player player index
+     * @param frame frame number
+     * @return input bits
+     */
+    private static int input(int player, int frame) {
+        int phase = (frame / (30 + 17 * player)) % 3;
+        return phase == 0 ? 0 : (phase == 1 ? InputKeyboard.LEFT : InputKeyboard.RIGHT);
+    }
+
+    /**
+     * Plays both peers until each played a number of frames, pumping relay between calls.
+     * @param peers both peers
+     * @param relay relay between peers, or null if peers are connected directly
+     * @param frames frames to play
+     * @throws IOException if a channel failed
+     */
+    private static void play(LockstepPeer[] peers, Relay relay, int frames) throws IOException {
+        int[] sampled = new int[peers.length];
+        for (int calls = 0; peers[0].getFrame() < frames || peers[1].getFrame() < frames; calls++) {
+            assertTrue(calls < frames * 20, "Peers stopped advancing");
+            for (int i = 0; i < peers.length; i++) {
+                if (peers[i].getFrame() < frames) {
+                    // Input is sampled once per frame, like a real loop would
+                    if (peers[i].advance(input(i, sampled[i]))) {
+                        sampled[i]++;
+                    }
+                }
+                if (relay != null) {
+                    relay.pump();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPeersPlayIdentically() throws IOException {
+        try (DatagramChannel a = open(); DatagramChannel b = open()) {
+            a.connect(b.getLocalAddress());
+            b.connect(a.getLocalAddress());
+            LockstepPeer[] peers = {new LockstepPeer(a, 0, 3), new LockstepPeer(b, 1, 3)};
+            Game[] games = {TestGames.create(), TestGames.create()};
+            peers[0].start(games[0]);
+            peers[1].start(games[1]);
+
+            play(peers, null, FRAMES);
+            assertEquals(FRAMES, games[0].getStateHash().getTick());
+            assertEquals(games[0].getStateHash().getChain(), games[1].getStateHash().getChain());
+            assertEquals(-1, peers[0].getDesyncFrame());
+            assertEquals(-1, peers[1].getDesyncFrame());
+
+            // Only inputs and a hash are sent, so packets are small
+            for (LockstepPeer peer : peers) {
+                assertTrue(peer.getBytesSent() / (double) peer.getPacketsSent() < 32,
+                        "Bytes per packet " + peer.getBytesSent() / (double) peer.getPacketsSent());
+            }
+        }
+    }
+
+    @Test
+    public void testPaddlesFollowTheirPlayers() throws IOException {
+        try (DatagramChannel a = open(); DatagramChannel b = open()) {
+            a.connect(b.getLocalAddress());
+            b.connect(a.getLocalAddress());
+            LockstepPeer[] peers = {new LockstepPeer(a, 0, 2), new LockstepPeer(b, 1, 2)};
+            Game[] games = {TestGames.create(), TestGames.create()};
+            peers[0].start(games[0]);
+            peers[1].start(games[1]);
+            double[] start = {games[0].getPaddle(0).getMinX(), games[0].getPaddle(1).getMinX()};
+
+            // First player holds left and second player holds right
+            int[] held = {InputKeyboard.LEFT, InputKeyboard.RIGHT};
+            for (int calls = 0; peers[0].getFrame() < 20 || peers[1].getFrame() < 20; calls++) {
+                assertTrue(calls < 400, "Peers stopped advancing");
+                for (int i = 0; i < peers.length; i++) {
+                    if (peers[i].getFrame() < 20) {
+                        peers[i].advance(held[i]);
+                    }
+                }
+            }
+            for (Game game : games) {
+                assertTrue(game.getPaddle(0).getMinX() < start[0], "First paddle moved left");
+                assertTrue(game.getPaddle(1).getMinX() > start[1], "Second paddle moved right");
+            }
+            assertEquals(games[0].getPaddle(0).getMinX(), games[1].getPaddle(0).getMinX());
+            assertEquals(games[0].getPaddle(1).getMinX(), games[1].getPaddle(1).getMinX());
+            assertEquals(games[0].getStateHash().getHash(), games[1].getStateHash().getHash());
+        }
+    }
+
+    @Test
+    public void testRedundantInputsCoverLostPackets() throws IOException {
+        try (DatagramChannel a = open(); DatagramChannel b = open();
+             DatagramChannel relayA = open(); DatagramChannel relayB = open()) {
+            SocketAddress aAddress = a.getLocalAddress();
+            SocketAddress bAddress = b.getLocalAddress();
+            a.connect(relayA.getLocalAddress());
+            relayA.connect(aAddress);
+            b.connect(relayB.getLocalAddress());
+            relayB.connect(bAddress);
+            Relay relay = new Relay(relayA, relayB, 4);
+            LockstepPeer[] peers = {new LockstepPeer(a, 0, 3), new LockstepPeer(b, 1, 3)};
+            Game[] games = {TestGames.create(), TestGames.create()};
+            peers[0].start(games[0]);
+            peers[1].start(games[1]);
+
+            play(peers, relay, FRAMES);
+            assertTrue(relay.dropped > FRAMES / 4);
+            assertEquals(games[0].getStateHash().getChain(), games[1].getStateHash().getChain());
+            assertEquals(-1, peers[0].getDesyncFrame());
+        }
+    }
+
+    @Test
+    public void testDetectsDesync() throws IOException {
+        try (DatagramChannel a = open(); DatagramChannel b = open()) {
+            a.connect(b.getLocalAddress());
+            b.connect(a.getLocalAddress());
+            LockstepPeer[] peers = {new LockstepPeer(a, 0, 3), new LockstepPeer(b, 1, 3)};
+            Game[] games = {TestGames.create(), TestGames.create()};
+            // Second game has an extra block, so it differs from the first frame
+            games[1].addCollidable(new Block(new Point(400, 400), 40, 20));
+            peers[0].start(games[0]);
+            peers[1].start(games[1]);
+
+            play(peers, null, 20);
+            assertEquals(0, peers[0].getDesyncFrame());
+            assertEquals(0, peers[1].getDesyncFrame());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Game;
+import net.InputCommand;
+import net.InputKeyboard;
+import net.LatencyLink;
+import net.PaddlePredictor;
+import net.PaddleServer;
+import net.PaddleSnapshot;
+
+/**
+ * Test class for PaddlePredictor and PaddleServer, over in-process links with latency.
+ */
+public class PaddlePredictorTest {
+    private static final int LATENCY = 6;
+
+    /**
+     * Scripted input of a frame, changing every few dozens of frames.
+     * @param frame frame number
+     * @return input bits
+     */
+    private static int input(int frame) {
+        int phase = (frame / 23) % 4;
+        return phase == 0 ? InputKeyboard.LEFT : (phase == 2 ? InputKeyboard.RIGHT : 0);
+    }
+
+    /**
+     * Creates a server playing a started default game.
+     * @param inputs link inputs are received from
+     * @param snapshots link snapshots are sent on
+     * @return server
+     */
+    private static PaddleServer createServer(LatencyLink<InputCommand> inputs,
+                                             LatencyLink<PaddleSnapshot> snapshots) {
+        Game game = TestGames.create();
+        PaddleServer server = new PaddleServer(inputs, snapshots);
+        server.start(game);
+        return server;
+    }
+
+    /**
+     * Plays a frame on client and server, with both links advancing a tick.
+     * @param client client predictor
+     * @param server server
+     * @param inputs link inputs are sent on
+     * @param snapshots link snapshots are sent on
+     * @param input input of frame
+     */
+    private static void frame(PaddlePredictor client, PaddleServer server, LatencyLink<InputCommand> inputs,
+                              LatencyLink<PaddleSnapshot> snapshots, int input) {
+        client.update(input);
+        inputs.tick();
+        server.tick();
+        snapshots.tick();
+    }
+
+    @Test
+    public void testInputMovesPaddleWithoutWaitingForServer() {
+        LatencyLink<InputCommand> inputs = new LatencyLink<>(LATENCY);
+        LatencyLink<PaddleSnapshot> snapshots = new LatencyLink<>(LATENCY);
+        PaddleServer server = createServer(inputs, snapshots);
+        PaddlePredictor client = new PaddlePredictor(server.getGame().getPaddle(0), inputs, snapshots);
+        double start = client.getPaddle().getMinX();
+
+        frame(client, server, inputs, snapshots, InputKeyboard.LEFT);
+        assertEquals(start - 10, client.getPaddle().getMinX(), 1e-9);
+        assertEquals(start, server.getGame().getPaddle(0).getMinX(), 1e-9);
+        assertNull(client.getLastSnapshot());
+    }
+
+    @Test
+    public void testPredictionMatchesServer() {
+        LatencyLink<InputCommand> inputs = new LatencyLink<>(LATENCY);
+        LatencyLink<PaddleSnapshot> snapshots = new LatencyLink<>(LATENCY);
+        PaddleServer server = createServer(inputs, snapshots);
+        PaddlePredictor client = new PaddlePredictor(server.getGame().getPaddle(0), inputs, snapshots);
+
+        for (int i = 0; i < 500; i++) {
+            frame(client, server, inputs, snapshots, input(i));
+            // Unacknowledged inputs are the ones still within a round trip
+            assertTrue(client.getUnacknowledgedCount() <= 2 * LATENCY + 1);
+        }
+        assertEquals(0, client.getCorrections());
+
+        // Once all inputs are acknowledged, server reaches the predicted position
+        double predicted = client.getPaddle().getMinX();
+        for (int i = 0; i < 2 * LATENCY + 2; i++) {
+            frame(client, server, inputs, snapshots, 0);
+        }
+        assertEquals(predicted, server.getGame().getPaddle(0).getMinX(), 1e-9);
+        assertEquals(predicted, client.getPaddle().getMinX(), 1e-9);
+        assertEquals(0, client.getCorrections());
+    }
+
+    @Test
+    public void testLostInputsAreCorrected() {
+        LatencyLink<InputCommand> inputs = new LatencyLink<>(LATENCY, 7);
+        LatencyLink<PaddleSnapshot> snapshots = new LatencyLink<>(LATENCY);
+        PaddleServer server = createServer(inputs, snapshots);
+        PaddlePredictor client = new PaddlePredictor(server.getGame().getPaddle(0), inputs, snapshots);
+
+        for (int i = 0; i < 500; i++) {
+            frame(client, server, inputs, snapshots, input(i));
+        }
+        assertTrue(inputs.getDropped() > 0);
+        assertTrue(client.getCorrections() > 0);
+
+        // Client converges to server's position once it stops sending moves
+        for (int i = 0; i < 2 * LATENCY + 2; i++) {
+            frame(client, server, inputs, snapshots, 0);
+        }
+        assertEquals(server.getGame().getPaddle(0).getMinX(), client.getPaddle().getMinX(), 1e-9);
+        assertEquals(server.getGame().getStateHash().getTick() - LATENCY, client.getLastSnapshot().getTick());
+    }
+}
@@ -140,4 +140,33 @@ public class RectangleTest {
         assertTrue(rect.isBallInside(new Point(15, 15), 0));
         assertFalse(rect.isBallInside(new Point(5, 5), 0));
     }
+
+    @Test
+    public void testSetOriginMovesBoundsAndEdges() {
+        Rectangle rect = new Rectangle(new Point(10, 10), 20, 20);
+        Line crossing = new Line(new Point(0, 45), new Point(100, 45));
+        assertTrue(rect.intersectionPoints(crossing).isEmpty());
+
+        rect.setOrigin(40, 30);
+        assertEquals(new Point(40, 30), rect.getOrigin());
+        assertEquals(40, rect.getMinX());
+        assertEquals(30, rect.getMinY());
+        assertEquals(60, rect.getMaxX());
+        assertEquals(50, rect.getMaxY());
+
+        // Edges created before the move follow the rectangle
+        assertEquals(2, rect.intersectionPoints(crossing).size());
+        assertEquals(CollisionEdge.TOP, rect.getCollisionEdge(new Point(50, 30)));
+        assertEquals(CollisionEdge.CORNER, rect.getCollisionEdge(new Point(60, 50)));
+        assertNull(rect.getCollisionEdge(new Point(20, 10)));
+    }
+
+    @Test
+    public void testOriginIsNotSharedWithCaller() {
+        Point origin = new Point(10, 10);
+        Rectangle rect = new Rectangle(origin, 20, 20);
+        rect.setOrigin(15, 15);
+        assertEquals(new Point(10, 10), origin);
+        assertEquals(new Point(15, 15), rect.getOrigin());
+    }
 }
@@ -0,0 +1,142 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.FrameEncoder;
+import game.Game;
+import geometry.Point;
+import net.SpectatorClient;
+import net.SpectatorServer;
+import objects.Block;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Test class for SpectatorServer and SpectatorClient, on loopback.
+ */
+public class SpectatorServerTest {
+
+    /**
+     *
+     * @return loopback address with any free port
+     */
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    /**
+     * Describes blocks as strings, so block sets of two clients can be compared.
+     * @param client spectator client
+     * @return block descriptions
+     */
+    private static Set<String> blocks(SpectatorClient client) {
+        Set<String> blocks = new HashSet<>();
+        for (Block block : client.getBlocks()) {
+            blocks.add(block.getOrigin() + " " + block.getWidth() + " " + block.getHeight() + " "
+                    + block.getColor().getRGB());
+        }
+        return blocks;
+    }
+
+    /**
+     * Asserts two clients see the same state.
+     * @param expected client whose state is expected
+     * @param actual client whose state is checked
+     */
+    private static void assertSameState(SpectatorClient expected, SpectatorClient actual) {
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getBallCount(), actual.getBallCount());
+        for (int i = 0; i < expected.getBallCount(); i++) {
+            assertEquals(expected.getBall(i), actual.getBall(i), "Ball " + i);
+        }
+        assertEquals(expected.getPaddle(0), actual.getPaddle(0));
+        assertEquals(blocks(expected), blocks(actual));
+    }
+
+    @Test
+    public void testSpectatorsFollowDeltas() throws IOException {
+        Game game = TestGames.start(TestGames.IDLE);
+        try (SpectatorServer server = new SpectatorServer(game, loopback())) {
+            List<SpectatorClient> clients = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                clients.add(SpectatorClient.connect(server.getAddress()));
+            }
+
+            for (int t = 0; t < 300; t++) {
+                game.tick();
+                server.broadcast();
+                for (SpectatorClient client : clients) {
+                    assertEquals(t == 0 ? FrameEncoder.KEYFRAME : FrameEncoder.DELTA, client.readFrame());
+                }
+            }
+            assertEquals(200, server.getSpectatorCount());
+            assertTrue(game.getScore() > 0, "Blocks were removed");
+
+            // A late spectator starts from a keyframe, which must match what deltas built
+            SpectatorClient late = SpectatorClient.connect(server.getAddress());
+            game.tick();
+            server.broadcast();
+            assertEquals(FrameEncoder.KEYFRAME, late.readFrame());
+            assertEquals(game.getScore(), late.getScore());
+            assertEquals(game.getRemainingBlocks(), late.getBlocks().size());
+            for (SpectatorClient client : clients) {
+                client.readFrame();
+                assertSameState(late, client);
+                client.close();
+            }
+            late.close();
+        }
+    }
+
+    @Test
+    public void testSlowSpectatorIsDroppedWithoutStallingGame() throws IOException {
+        Game game = TestGames.start(TestGames.IDLE);
+        try (SpectatorServer server = new SpectatorServer(game, loopback())) {
+            SocketChannel slow = SocketChannel.open();
+            slow.setOption(StandardSocketOptions.SO_RCVBUF, 1024);
+            slow.connect(server.getAddress());
+            SpectatorClient client = SpectatorClient.connect(server.getAddress());
+
+            // Slow spectator never reads, and game is broadcast until its buffers fill and it falls behind
+            for (int t = 0; t < 20000 && server.getDropped() == 0; t++) {
+                if (!game.isOver()) {
+                    game.tick();
+                }
+                game.addCollidable(new Block(new Point(100 + t % 500, 100), 10, 10));
+                server.broadcast();
+                client.readFrame();
+            }
+            assertEquals(1, server.getDropped());
+            assertTrue(server.getSkipped() > SpectatorServer.MAX_SKIPS);
+            assertEquals(1, server.getSpectatorCount());
+            assertEquals(game.getScore(), client.getScore());
+            slow.close();
+            client.close();
+        }
+    }
+
+    @Test
+    public void testClosedSpectatorIsDropped() throws IOException {
+        Game game = TestGames.start(TestGames.IDLE);
+        try (SpectatorServer server = new SpectatorServer(game, loopback())) {
+            SpectatorClient client = SpectatorClient.connect(server.getAddress());
+            server.broadcast();
+            client.readFrame();
+            client.close();
+            for (int t = 0; t < 10 && server.getSpectatorCount() > 0; t++) {
+                game.tick();
+                server.broadcast();
+            }
+            assertEquals(0, server.getSpectatorCount());
+            assertEquals(1, server.getDropped());
+        }
+    }
+}
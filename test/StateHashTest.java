@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import game.Game;
+import game.StateHash;
+import geometry.Point;
+import objects.Block;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * Test class for StateHash.
+ */
+public class StateHashTest {
+
+    // Keyboard sensor pressing left once it was queried a given number of times
+    private static class DelayedKeyboard implements KeyboardSensor {
+        private final int delay;
+        private int leftQueries;
+
+        DelayedKeyboard(int delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public boolean isPressed(String key) {
+            return KeyboardSensor.LEFT_KEY.equals(key) && this.leftQueries++ >= this.delay;
+        }
+    }
+
+    @Test
+    public void testIdenticalGamesHashEqually() {
+        Game first = TestGames.start(new DelayedKeyboard(100));
+        Game second = TestGames.start(new DelayedKeyboard(100));
+        for (int i = 0; i < 500 && !first.isOver(); i++) {
+            first.tick();
+            second.tick();
+            assertEquals(first.getStateHash().getHash(), second.getStateHash().getHash(), "Tick " + i);
+        }
+        assertEquals(first.getStateHash().getChain(), second.getStateHash().getChain());
+        assertEquals(-1, first.getStateHash().findDivergence(second.getStateHash()));
+    }
+
+    @Test
+    public void testFindsFirstDivergentTick() {
+        Game first = TestGames.start(new DelayedKeyboard(Integer.MAX_VALUE));
+        Game second = TestGames.start(new DelayedKeyboard(50));
+        for (int i = 0; i < 200; i++) {
+            first.tick();
+            second.tick();
+        }
+
+        StateHash hash = first.getStateHash();
+        assertEquals(200, hash.getTick());
+        assertEquals(50, hash.findDivergence(second.getStateHash()));
+        assertEquals(hash.getHash(49), second.getStateHash().getHash(49));
+        assertNotEquals(hash.getChain(), second.getStateHash().getChain());
+    }
+
+    @Test
+    public void testFindsSubpixelDivergence() {
+        Game first = TestGames.start(new DelayedKeyboard(Integer.MAX_VALUE));
+        Game second = TestGames.start(new DelayedKeyboard(Integer.MAX_VALUE));
+        for (int i = 0; i < 10; i++) {
+            first.tick();
+            second.tick();
+        }
+
+        // Ball is nudged by far less than a pixel, staying on the same pixel
+        Point center = second.getBall(0).getCenter();
+        double nudge = center.getX() - Math.floor(center.getX()) < 0.5 ? 1e-6 : -1e-6;
+        second.getBall(0).setCenter(center.getX() + nudge, center.getY());
+        first.tick();
+        second.tick();
+        assertEquals(10, first.getStateHash().findDivergence(second.getStateHash()));
+    }
+
+    @Test
+    public void testHistoryKeepsRecentTicksOnly() {
+        Game game = TestGames.start(new DelayedKeyboard(0));
+        for (int i = 0; i < 1500; i++) {
+            game.tick();
+        }
+        StateHash hash = game.getStateHash();
+        assertTrue(hash.hasHash(1499));
+        assertEquals(hash.getHash(), hash.getHash(1499));
+        assertFalse(hash.hasHash(1500));
+        assertFalse(hash.hasHash(0));
+    }
+
+    @Test
+    public void testRectanglesHashIndependentlyOfOrder() {
+        Block first = new Block(new Point(100, 300), 50, 20);
+        Block second = new Block(new Point(200, 300), 50, 20);
+        Game forward = TestGames.start(new DelayedKeyboard(Integer.MAX_VALUE));
+        Game backward = TestGames.start(new DelayedKeyboard(Integer.MAX_VALUE));
+        Game removed = TestGames.start(new DelayedKeyboard(Integer.MAX_VALUE));
+        forward.addCollidable(first);
+        forward.addCollidable(second);
+        backward.addCollidable(second);
+        backward.addCollidable(first);
+        removed.addCollidable(first);
+        removed.addCollidable(second);
+        removed.removeCollidable(second);
+        removed.removeCollidable(first);
+        Game plain = TestGames.start(new DelayedKeyboard(Integer.MAX_VALUE));
+
+        forward.tick();
+        backward.tick();
+        removed.tick();
+        plain.tick();
+        assertEquals(forward.getStateHash().getHash(), backward.getStateHash().getHash());
+        assertEquals(plain.getStateHash().getHash(), removed.getStateHash().getHash());
+        assertNotEquals(plain.getStateHash().getHash(), forward.getStateHash().getHash());
+    }
+}
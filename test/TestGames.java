@@ -0,0 +1,50 @@
+import biuoop.KeyboardSensor;
+import game.Game;
+
+/**
+ * Creates the default game that tests play, so all tests share one fixture.
+ */
+public final class TestGames {
+    // Keyboard sensor with no key pressed
+    public static final KeyboardSensor IDLE = key -> false;
+
+    // Keyboard sensor moving the paddle left and right in turns
+    public static class SwayingKeyboard implements KeyboardSensor {
+        private int leftQueries;
+
+        @Override
+        public boolean isPressed(String key) {
+            if (KeyboardSensor.LEFT_KEY.equals(key)) {
+                return this.leftQueries++ / 40 % 2 == 0;
+            }
+            return KeyboardSensor.RIGHT_KEY.equals(key);
+        }
+    }
+
+    /**
+     * Prevents instantiation of utility class.
+     */
+    private TestGames() {
+    }
+
+    /**
+     * Creates a default game, not yet started, so it can be configured before start.
+     * @return initialized game
+     */
+    public static Game create() {
+        Game game = new Game(800, 600);
+        game.initialize();
+        return game;
+    }
+
+    /**
+     * Creates and starts a default game.
+     * @param keyboard keyboard sensor which controls the paddle
+     * @return started game
+     */
+    public static Game start(KeyboardSensor keyboard) {
+        Game game = create();
+        game.start(keyboard);
+        return game;
+    }
+}
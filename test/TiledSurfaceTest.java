@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
+import game.Game;
+import render.FramebufferSurface;
+import render.TiledSurface;
+
+import java.awt.Color;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test class for TiledSurface, whose frames must match frames drawn on a single FramebufferSurface.
+ */
+public class TiledSurfaceTest {
+    /**
+     * Draws random shapes, many of them crossing tile and surface edges.
+     * @param d surface to draw on
+     * @param seed seed of shapes
+     */
+    private static void drawShapes(DrawSurface d, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage image = new BufferedImage(20, 15, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 15; y++) {
+            for (int x = 0; x < 20; x++) {
+                image.setRGB(x, y, x % 3 == 0 ? 0 : 0xFF000000 | (x * 12 << 16) | (y * 16));
+            }
+        }
+        for (int i = 0; i < 400; i++) {
+            d.setColor(new Color(random.nextInt(0x1000000)));
+            int x = random.nextInt(-50, 350), y = random.nextInt(-50, 250);
+            int w = random.nextInt(0, 120), h = random.nextInt(0, 120);
+            switch (i % 9) {
+                case 0:
+                    d.fillRectangle(x, y, w, h);
+                    break;
+                case 1:
+                    d.drawRectangle(x, y, w, h);
+                    break;
+                case 2:
+                    d.drawLine(x, y, x + w - 60, y + h - 60);
+                    break;
+                case 3:
+                    d.fillCircle(x, y, w / 2);
+                    break;
+                case 4:
+                    d.drawCircle(x, y, w / 2);
+                    break;
+                case 5:
+                    d.fillOval(x, y, w, h);
+                    break;
+                case 6:
+                    Polygon p = new Polygon(new int[] {x, x + w, x + w / 3}, new int[] {y, y + h / 2, y + h}, 3);
+                    d.fillPolygon(p);
+                    d.drawPolygon(p);
+                    break;
+                case 7:
+                    d.drawText(x, y, "Score: " + i, 5 + w / 4);
+                    break;
+                default:
+                    d.drawImage(x, y, image);
+            }
+        }
+    }
+
+    @Test
+    public void testShapesMatchSingleFramebuffer() {
+        FramebufferSurface expected = new FramebufferSurface(300, 200);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Tile sizes which divide the surface evenly and which don't
+            for (int tileSize : new int[] {16, 37, 128, 512}) {
+                TiledSurface actual = new TiledSurface(300, 200, tileSize, tileSize / 2 + 1, pool);
+                for (long seed = 0; seed < 3; seed++) {
+                    drawShapes(expected, seed);
+                    drawShapes(actual, seed);
+                    actual.render();
+                    assertArrayEquals(expected.getPixels(), actual.getPixels(), "Tile size " + tileSize);
+                }
+                expected = new FramebufferSurface(300, 200);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testGameFramesMatchSingleFramebuffer() {
+        Game game = new Game(1920, 1080, 100);
+        game.initialize(30, 120);
+        KeyboardSensor keyboard = key -> false;
+        game.start(keyboard);
+        FramebufferSurface expected = new FramebufferSurface(1920, 1080);
+        TiledSurface actual = new TiledSurface(1920, 1080);
+        for (int i = 0; i < 20; i++) {
+            game.tick();
+            game.drawOn(expected);
+            game.drawOn(actual);
+            actual.render();
+        }
+        assertArrayEquals(expected.getPixels(), actual.getPixels());
+    }
+
+    @Test
+    public void testRenderClearsCommands() {
+        TiledSurface surface = new TiledSurface(100, 100, 32, 32, ForkJoinPool.commonPool());
+        surface.setColor(Color.WHITE);
+        surface.fillRectangle(0, 0, 100, 100);
+        assertEquals(0xFF000000, surface.getPixel(50, 50));
+        surface.render();
+        assertEquals(0xFFFFFFFF, surface.getPixel(50, 50));
+
+        surface.setColor(Color.RED);
+        surface.fillRectangle(0, 0, 10, 10);
+        surface.render();
+        assertEquals(Color.RED.getRGB(), surface.getPixel(5, 5));
+        assertEquals(0xFFFFFFFF, surface.getPixel(50, 50));
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import collisions.Collidable;
 import collisions.CollisionEdge;
+import geometry.Fixed;
 import geometry.Point;
 import geometry.Rectangle;
 import geometry.Velocity;
@@ -143,6 +144,25 @@ public class VelocityTest {
         assertEquals(10, p5.getY()); // 10 + 0 (unchanged dy)
     }
 
+    @Test
+    public void testFixedPoint() {
+        Velocity v = new Velocity(0.1, 4);
+        v.setFixedPoint(true);
+        assertTrue(v.isFixedPoint());
+        assertEquals(Fixed.toDouble(Fixed.of(0.1)), v.getDx());
+        assertEquals(4, v.getDy());
+
+        // Speed and angle are computed in fixed point, so a right angle is exact
+        v = new Velocity(3, 4);
+        v.setFixedPoint(true);
+        v.accelerateInPlace(90, 1);
+        assertEquals(6, v.getDx());
+        assertEquals(0, v.getDy());
+        v.accelerateInPlace(30, 0);
+        assertEquals(Fixed.toDouble(Fixed.of(v.getDx())), v.getDx());
+        assertEquals(3, v.getDx(), 0.001);
+    }
+
     // Test helper class implementing Collidable with proper implementation
     private static class TestCollidable implements Collidable {
         private CollisionEdge edgeToReturn;